@@ -0,0 +1,188 @@
+package com.chargify;
+
+import com.chargify.model.Adjustment;
+import com.chargify.model.Allocation;
+import com.chargify.model.AllocationPreview;
+import com.chargify.model.Component;
+import com.chargify.model.ComponentPricePointUpdate;
+import com.chargify.model.ComponentWithPricePoints;
+import com.chargify.model.CreatePaymentProfile;
+import com.chargify.model.CreateSubscription;
+import com.chargify.model.Customer;
+import com.chargify.model.Metadata;
+import com.chargify.model.Migration;
+import com.chargify.model.PaymentProfile;
+import com.chargify.model.PricePoint;
+import com.chargify.model.PricePointUpdate;
+import com.chargify.model.ReferralCode;
+import com.chargify.model.RenewalPreview;
+import com.chargify.model.Subscription;
+import com.chargify.model.SubscriptionCharge;
+import com.chargify.model.SubscriptionChargeResult;
+import com.chargify.model.SubscriptionComponent;
+import com.chargify.model.SubscriptionMetadata;
+import com.chargify.model.SubscriptionProductUpdate;
+import com.chargify.model.SubscriptionReactivationData;
+import com.chargify.model.SubscriptionStatement;
+import com.chargify.model.Transaction;
+import com.chargify.model.UpdatePaymentProfile;
+import com.chargify.model.UpdateSubscription;
+import com.chargify.model.Usage;
+import com.chargify.model.product.Product;
+import com.chargify.model.product.ProductFamily;
+import com.chargify.model.product.ProductPricePoint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Chargify}: every operation returns immediately with a future that completes
+ * with the same result the blocking call would return, or exceptionally with the same exception it would throw.
+ */
+public interface AsyncChargify
+{
+  CompletableFuture<ProductFamily> createProductFamily( ProductFamily productFamily );
+
+  CompletableFuture<ProductFamily> findProductFamilyById( String id );
+
+  CompletableFuture<List<ProductFamily>> findAllProductFamilies();
+
+  CompletableFuture<ProductFamily> archiveProductFamilyById( String id );
+
+  CompletableFuture<Product> createProduct( String productFamilyId, Product product );
+
+  CompletableFuture<Product> findProductById( String id );
+
+  CompletableFuture<Product> findProductByApiHandle( String apiHandle );
+
+  CompletableFuture<Set<ProductPricePoint>> findProductPricePointsByProductId( String productId );
+
+  CompletableFuture<Set<PricePoint>> findComponentPricePoints( int componentId );
+
+  CompletableFuture<PricePoint> updatePricePoint( int componentId, int pricePointId, PricePointUpdate pricePointUpdate );
+
+  CompletableFuture<List<Product>> findAllProducts();
+
+  CompletableFuture<List<Product>> findProductsByProductFamilyId( String productFamilyId );
+
+  CompletableFuture<Product> archiveProductById( String id );
+
+  CompletableFuture<Subscription> createSubscription( CreateSubscription subscription );
+
+  CompletableFuture<Void> updateSubscription( String subscriptionId, UpdateSubscription subscription );
+
+  CompletableFuture<Void> updateSubscriptionNextBillingDate( String subscriptionId, LocalDateTime nextBillingDate );
+
+  CompletableFuture<SubscriptionChargeResult> createSubscriptionCharge( String subscriptionId, SubscriptionCharge subscriptionCharge );
+
+  CompletableFuture<Subscription> findSubscriptionById( String id );
+
+  CompletableFuture<List<PaymentProfile>> findPaymentProfilesForCustomer( String customerId );
+
+  CompletableFuture<PaymentProfile> createPaymentProfile( CreatePaymentProfile paymentProfile );
+
+  CompletableFuture<Void> updatePaymentProfile( String paymentProfileId, UpdatePaymentProfile paymentProfile );
+
+  CompletableFuture<PaymentProfile> updateSubscriptionPaymentProfile( String subscriptionId, String paymentProfileId );
+
+  CompletableFuture<PaymentProfile> findPaymentProfileById( String paymentProfileId );
+
+  CompletableFuture<Void> deleteUnusedPaymentProfile( String paymentProfileId );
+
+  CompletableFuture<Void> deletePaymentProfile( String subscriptionId, String paymentProfileId );
+
+  CompletableFuture<List<Subscription>> findSubscriptionsByCustomerId( String customerId );
+
+  CompletableFuture<List<Subscription>> findSubscriptionsByCustomerId( String customerId, int pageNumber, int pageSize );
+
+  CompletableFuture<List<Subscription>> findAllSubscriptions();
+
+  CompletableFuture<List<Subscription>> findSubscriptions( int pageNumber, int pageSize );
+
+  CompletableFuture<Subscription> purgeSubscription( Subscription subscription );
+
+  CompletableFuture<List<Subscription>> findSubscriptionsByState( String state, int pageNumber, int pageSize );
+
+  CompletableFuture<List<Subscription>> findSubscriptionsByStateAndMetadata( String state, Map<String, String> metadata, int pageNumber, int pageSize );
+
+  CompletableFuture<Subscription> cancelSubscriptionById( String id );
+
+  CompletableFuture<Subscription> cancelSubscriptionProductChange( String subscriptionId );
+
+  CompletableFuture<Subscription> migrateSubscription( String subscriptionId, Migration migration );
+
+  CompletableFuture<Subscription> reactivateSubscription( String subscriptionId, boolean preserveBalance );
+
+  CompletableFuture<Subscription> reactivateSubscription( String subscriptionId, SubscriptionReactivationData reactivationData );
+
+  CompletableFuture<ComponentPricePointUpdate> migrateSubscriptionComponentToPricePoint( String subscriptionId, int componentId,
+                                                                                         String pricePointHandle );
+
+  CompletableFuture<List<ComponentPricePointUpdate>> bulkUpdateSubscriptionComponentPricePoint( String subscriptionId, List<ComponentPricePointUpdate> items );
+
+  CompletableFuture<Subscription> cancelScheduledSubscriptionProductChange( String subscriptionId );
+
+  CompletableFuture<Subscription> changeSubscriptionProduct( String subscriptionId, SubscriptionProductUpdate payload );
+
+  CompletableFuture<RenewalPreview> previewSubscriptionRenewal( String subscriptionId );
+
+  CompletableFuture<List<Metadata>> createSubscriptionMetadata( String subscriptionId, Metadata... metadata );
+
+  CompletableFuture<SubscriptionMetadata> readSubscriptionMetadata( String subscriptionId );
+
+  CompletableFuture<List<Metadata>> updateSubscriptionMetadata( String subscriptionId, Metadata... metadata );
+
+  CompletableFuture<Component> createComponent( String productFamilyId, Component component );
+
+  CompletableFuture<Allocation> createComponentAllocation( String subscriptionId, int componentId, Allocation allocation );
+
+  CompletableFuture<AllocationPreview> previewComponentAllocation( String subscriptionId, int componentId, int quantity );
+
+  CompletableFuture<List<Component>> findComponentsByProductFamily( String productFamilyId );
+
+  CompletableFuture<Component> findComponentByIdAndProductFamily( int componentId, String productFamilyId );
+
+  CompletableFuture<ComponentWithPricePoints> findComponentWithPricePointsByIdAndProductFamily( int componentId, String productFamilyId );
+
+  CompletableFuture<List<SubscriptionComponent>> findSubscriptionComponents( String subscriptionId );
+
+  CompletableFuture<List<SubscriptionStatement>> findSubscriptionStatements(
+      String subscriptionId, int page, int pageSize, String sort, String direction );
+
+  CompletableFuture<List<Transaction>> findSubscriptionTransactions( String subscriptionId, SubscriptionTransactionsSearchOptions options );
+
+  CompletableFuture<SubscriptionComponent> findSubscriptionComponentById( String subscriptionId, int componentId );
+
+  CompletableFuture<Usage> reportSubscriptionComponentUsage( String subscriptionId, int componentId, Usage usage );
+
+  CompletableFuture<Customer> createCustomer( Customer customer );
+
+  CompletableFuture<Customer> updateCustomer( Customer customer );
+
+  CompletableFuture<Customer> findCustomerById( String id );
+
+  CompletableFuture<Customer> findCustomerByReference( String reference );
+
+  CompletableFuture<Subscription> findSubscriptionByReference( String reference );
+
+  /**
+   * @see Chargify#findCustomersBy(Object, int)
+   */
+  CompletableFuture<List<Customer>> findCustomersBy( Object criterion, int pageNumber );
+
+  /**
+   * @see Chargify#findAllCustomers()
+   */
+  CompletableFuture<List<Customer>> findAllCustomers();
+
+  CompletableFuture<List<Customer>> findCustomers( int pageNumber, int perPage );
+
+  CompletableFuture<Void> deleteCustomerById( String id );
+
+  CompletableFuture<ReferralCode> validateReferralCode( String code );
+
+  CompletableFuture<Adjustment> adjust( String subscriptionId, Adjustment adjustment );
+}
@@ -0,0 +1,800 @@
+package com.chargify;
+
+import com.chargify.exceptions.ChargifyResponseErrorHandler;
+import com.chargify.exceptions.ResourceNotFoundException;
+import com.chargify.model.Adjustment;
+import com.chargify.model.Allocation;
+import com.chargify.model.AllocationPreview;
+import com.chargify.model.Component;
+import com.chargify.model.ComponentPricePointUpdate;
+import com.chargify.model.ComponentWithPricePoints;
+import com.chargify.model.CreatePaymentProfile;
+import com.chargify.model.CreateSubscription;
+import com.chargify.model.Customer;
+import com.chargify.model.Metadata;
+import com.chargify.model.Migration;
+import com.chargify.model.PaymentProfile;
+import com.chargify.model.PricePoint;
+import com.chargify.model.PricePointUpdate;
+import com.chargify.model.ReferralCode;
+import com.chargify.model.RenewalPreview;
+import com.chargify.model.Subscription;
+import com.chargify.model.SubscriptionCharge;
+import com.chargify.model.SubscriptionChargePayload;
+import com.chargify.model.SubscriptionChargeResult;
+import com.chargify.model.SubscriptionComponent;
+import com.chargify.model.SubscriptionMetadata;
+import com.chargify.model.SubscriptionProductUpdate;
+import com.chargify.model.SubscriptionReactivationData;
+import com.chargify.model.SubscriptionStatement;
+import com.chargify.model.Transaction;
+import com.chargify.model.UpdatePaymentProfile;
+import com.chargify.model.UpdateSubscription;
+import com.chargify.model.Usage;
+import com.chargify.model.product.Product;
+import com.chargify.model.product.ProductFamily;
+import com.chargify.model.product.ProductPricePoint;
+import com.chargify.model.wrappers.AdjustmentWrapper;
+import com.chargify.model.wrappers.AllocationPreviewWrapper;
+import com.chargify.model.wrappers.AllocationWrapper;
+import com.chargify.model.wrappers.AnyComponentWrapper;
+import com.chargify.model.wrappers.ComponentPricePointUpdatesWrapper;
+import com.chargify.model.wrappers.ComponentPricePointsWrapper;
+import com.chargify.model.wrappers.ComponentWrapper;
+import com.chargify.model.wrappers.CreateSubscriptionWrapper;
+import com.chargify.model.wrappers.CustomerWrapper;
+import com.chargify.model.wrappers.MetadataWrapper;
+import com.chargify.model.wrappers.MeteredComponentWrapper;
+import com.chargify.model.wrappers.MigrationWrapper;
+import com.chargify.model.wrappers.OnOffComponentWrapper;
+import com.chargify.model.wrappers.PaymentProfileWrapper;
+import com.chargify.model.wrappers.PricePointUpdateResultWrapper;
+import com.chargify.model.wrappers.PricePointUpdateWrapper;
+import com.chargify.model.wrappers.ProductFamilyWrapper;
+import com.chargify.model.wrappers.ProductPricePointsWrapper;
+import com.chargify.model.wrappers.ProductWrapper;
+import com.chargify.model.wrappers.QuantityBasedComponentWrapper;
+import com.chargify.model.wrappers.ReferralCodeWrapper;
+import com.chargify.model.wrappers.RenewalPreviewWrapper;
+import com.chargify.model.wrappers.SubscriptionChargeWrapper;
+import com.chargify.model.wrappers.SubscriptionComponentWrapper;
+import com.chargify.model.wrappers.SubscriptionProductUpdateWrapper;
+import com.chargify.model.wrappers.SubscriptionStatementWrapper;
+import com.chargify.model.wrappers.SubscriptionWrapper;
+import com.chargify.model.wrappers.TransactionWrapper;
+import com.chargify.model.wrappers.UpdateSubscriptionWrapper;
+import com.chargify.model.wrappers.UsageWrapper;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * {@link AsyncChargify} on top of the JDK non-blocking {@link HttpClient}.
+ * <p>
+ * No thread is held while a request is in flight. Response bodies are deserialized and futures are completed on
+ * the supplied executor, so dependent stages never run on the HTTP client's selector thread. Failed responses are
+ * mapped by {@link ChargifyResponseErrorHandler} exactly like in {@link ChargifyService}.
+ */
+public final class AsyncChargifyService implements AsyncChargify
+{
+  private final HttpClient httpClient;
+  private final Executor executor;
+  private final DefaultUriBuilderFactory uriBuilderFactory;
+  private final String authorization;
+  private final Duration readTimeout;
+
+  public AsyncChargifyService( final String domain, final String apiKey, int connectTimeoutInMillis,
+                               int readTimeoutInMillis )
+  {
+    this( domain, apiKey, connectTimeoutInMillis, readTimeoutInMillis, ForkJoinPool.commonPool() );
+  }
+
+  public AsyncChargifyService( final String domain, final String apiKey, int connectTimeoutInMillis,
+                               int readTimeoutInMillis, Executor executor )
+  {
+    this( URI.create( "https://" + domain + ".chargify.com" ), apiKey, connectTimeoutInMillis, readTimeoutInMillis,
+          executor );
+  }
+
+  private AsyncChargifyService( URI baseUrl, String apiKey, int connectTimeoutInMillis, int readTimeoutInMillis,
+                                Executor executor )
+  {
+    this.executor = executor;
+    this.httpClient = HttpClient.newBuilder()
+        .connectTimeout( Duration.ofMillis( connectTimeoutInMillis ) )
+        .executor( executor )
+        .build();
+    this.uriBuilderFactory = new DefaultUriBuilderFactory( baseUrl.toString() );
+    this.authorization = "Basic " + Base64.getEncoder()
+        .encodeToString( ( apiKey + ":x" ).getBytes( StandardCharsets.UTF_8 ) );
+    this.readTimeout = Duration.ofMillis( readTimeoutInMillis );
+  }
+
+  static AsyncChargifyService forBaseUrl( String baseUrl, String apiKey, Executor executor )
+  {
+    return new AsyncChargifyService( URI.create( baseUrl ), apiKey, 5000, 5000, executor );
+  }
+
+  @Override
+  public CompletableFuture<ProductFamily> createProductFamily( ProductFamily productFamily )
+  {
+    return post( "/product_families.json", new ProductFamilyWrapper( productFamily ), ProductFamilyWrapper.class )
+        .thenApply( ProductFamilyWrapper::getProductFamily );
+  }
+
+  @Override
+  public CompletableFuture<ProductFamily> findProductFamilyById( String id )
+  {
+    return nullIfNotFound( get( "/product_families/" + id + ".json", ProductFamilyWrapper.class )
+                               .thenApply( ProductFamilyWrapper::getProductFamily ) );
+  }
+
+  @Override
+  public CompletableFuture<List<ProductFamily>> findAllProductFamilies()
+  {
+    return get( "/product_families.json", ProductFamilyWrapper[].class )
+        .thenApply( unwrap( ProductFamilyWrapper::getProductFamily ) );
+  }
+
+  @Override
+  public CompletableFuture<ProductFamily> archiveProductFamilyById( String id )
+  {
+    return nullIfNotFound( delete( "/product_families/" + id + ".json", ProductFamilyWrapper.class )
+                               .thenApply( ProductFamilyWrapper::getProductFamily ) );
+  }
+
+  @Override
+  public CompletableFuture<Product> createProduct( String productFamilyId, Product product )
+  {
+    return post( "/product_families/" + productFamilyId + "/products.json",
+                 new ProductWrapper( product ), ProductWrapper.class )
+        .thenApply( ProductWrapper::getProduct );
+  }
+
+  @Override
+  public CompletableFuture<Product> findProductById( String id )
+  {
+    return nullIfNotFound( get( "/products/" + id + ".json", ProductWrapper.class )
+                               .thenApply( ProductWrapper::getProduct ) );
+  }
+
+  @Override
+  public CompletableFuture<Product> findProductByApiHandle( String apiHandle )
+  {
+    return nullIfNotFound( get( "/products/handle/" + apiHandle + ".json", ProductWrapper.class )
+                               .thenApply( ProductWrapper::getProduct ) );
+  }
+
+  @Override
+  public CompletableFuture<Set<ProductPricePoint>> findProductPricePointsByProductId( String productId )
+  {
+    return nullIfNotFound( get( "/products/" + productId + "/price_points.json", ProductPricePointsWrapper.class )
+                               .thenApply( ProductPricePointsWrapper::getPricePoints ) );
+  }
+
+  @Override
+  public CompletableFuture<Set<PricePoint>> findComponentPricePoints( int componentId )
+  {
+    return nullIfNotFound( get( "/components/" + componentId + "/price_points.json", ComponentPricePointsWrapper.class )
+                               .thenApply( ComponentPricePointsWrapper::getPricePoints ) );
+  }
+
+  @Override
+  public CompletableFuture<PricePoint> updatePricePoint( int componentId, int pricePointId,
+                                                         PricePointUpdate pricePointUpdate )
+  {
+    return put( "/components/" + componentId + "/price_points/" + pricePointId + ".json",
+                new PricePointUpdateWrapper( pricePointUpdate ), PricePointUpdateResultWrapper.class )
+        .thenApply( PricePointUpdateResultWrapper::getPricePoint );
+  }
+
+  @Override
+  public CompletableFuture<List<Product>> findAllProducts()
+  {
+    return get( "/products.json", ProductWrapper[].class )
+        .thenApply( unwrap( ProductWrapper::getProduct ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Product>> findProductsByProductFamilyId( String productFamilyId )
+  {
+    return get( "/product_families/" + productFamilyId + "/products.json", ProductWrapper[].class )
+        .thenApply( unwrap( ProductWrapper::getProduct ) );
+  }
+
+  @Override
+  public CompletableFuture<Product> archiveProductById( String id )
+  {
+    return nullIfNotFound( delete( "/products/" + id + ".json", ProductWrapper.class )
+                               .thenApply( ProductWrapper::getProduct ) );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> createSubscription( CreateSubscription subscription )
+  {
+    return post( "/subscriptions.json", new CreateSubscriptionWrapper( subscription ), SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<Void> updateSubscription( String subscriptionId, UpdateSubscription subscription )
+  {
+    return put( "/subscriptions/" + subscriptionId + ".json", new UpdateSubscriptionWrapper( subscription ), Void.class );
+  }
+
+  @Override
+  public CompletableFuture<Void> updateSubscriptionNextBillingDate( String subscriptionId,
+                                                                   LocalDateTime nextBillingDate )
+  {
+    return updateSubscription(
+        subscriptionId,
+        UpdateSubscription.builder().nextBillingAt( ChargifyUtil.toChargifyDateString( nextBillingDate ) ).build()
+    );
+  }
+
+  @Override
+  public CompletableFuture<SubscriptionChargeResult> createSubscriptionCharge( String subscriptionId,
+                                                                               SubscriptionCharge subscriptionCharge )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/charges.json",
+                 Map.of( "charge", SubscriptionChargePayload.from( subscriptionCharge ) ), SubscriptionChargeWrapper.class )
+        .thenApply( SubscriptionChargeWrapper::getSubscriptionChargeResult );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> findSubscriptionById( String id )
+  {
+    return nullIfNotFound( get( "/subscriptions/" + id + ".json", SubscriptionWrapper.class )
+                               .thenApply( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<List<PaymentProfile>> findPaymentProfilesForCustomer( String customerId )
+  {
+    return get( "/payment_profiles.json?customer_id=" + customerId, PaymentProfileWrapper[].class )
+        .thenApply( unwrap( PaymentProfileWrapper::getPaymentProfile ) )
+        .exceptionally( e -> {
+          if( cause( e ) instanceof ResourceNotFoundException )
+            return List.of();
+          throw new CompletionException( cause( e ) );
+        } );
+  }
+
+  @Override
+  public CompletableFuture<PaymentProfile> createPaymentProfile( CreatePaymentProfile paymentProfile )
+  {
+    return post( "/payment_profiles.json", Map.of( "payment_profile", paymentProfile ), PaymentProfileWrapper.class )
+        .thenApply( PaymentProfileWrapper::getPaymentProfile );
+  }
+
+  @Override
+  public CompletableFuture<Void> updatePaymentProfile( String paymentProfileId, UpdatePaymentProfile paymentProfile )
+  {
+    return put( "/payment_profiles/" + paymentProfileId + ".json", Map.of( "payment_profile", paymentProfile ),
+                Void.class );
+  }
+
+  @Override
+  public CompletableFuture<PaymentProfile> updateSubscriptionPaymentProfile( String subscriptionId,
+                                                                             String paymentProfileId )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/payment_profiles/" + paymentProfileId +
+                     "/change_payment_profile.json", Map.of(), PaymentProfileWrapper.class )
+        .thenApply( PaymentProfileWrapper::getPaymentProfile );
+  }
+
+  @Override
+  public CompletableFuture<PaymentProfile> findPaymentProfileById( String paymentProfileId )
+  {
+    return nullIfNotFound( get( "/payment_profiles/" + paymentProfileId + ".json", PaymentProfileWrapper.class )
+                               .thenApply( PaymentProfileWrapper::getPaymentProfile ) );
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteUnusedPaymentProfile( String paymentProfileId )
+  {
+    return delete( "/payment_profiles/" + paymentProfileId + ".json", Void.class );
+  }
+
+  @Override
+  public CompletableFuture<Void> deletePaymentProfile( String subscriptionId, String paymentProfileId )
+  {
+    return delete( "/subscriptions/" + subscriptionId + "/payment_profiles/" + paymentProfileId + ".json",
+                   Void.class );
+  }
+
+  @Override
+  public CompletableFuture<List<Subscription>> findSubscriptionsByCustomerId( String customerId )
+  {
+    return findSubscriptionsByCustomerId( customerId, 0, 200 );
+  }
+
+  @Override
+  public CompletableFuture<List<Subscription>> findSubscriptionsByCustomerId( String customerId, int pageNumber,
+                                                                              int pageSize )
+  {
+    return get( "/customers/" + customerId + "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize,
+                SubscriptionWrapper[].class )
+        .thenApply( unwrap( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Subscription>> findAllSubscriptions()
+  {
+    return get( "/subscriptions.json", SubscriptionWrapper[].class )
+        .thenApply( unwrap( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Subscription>> findSubscriptions( int pageNumber, int pageSize )
+  {
+    return get( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize, SubscriptionWrapper[].class )
+        .thenApply( unwrap( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> purgeSubscription( Subscription subscription )
+  {
+    return post( "/subscriptions/" + subscription.getId() + "/purge.json?ack=" + subscription.getCustomer().getId() +
+                     "&cascade[]=customer&cascade[]=payment_profile", null, SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<List<Subscription>> findSubscriptionsByState( String state, int pageNumber, int pageSize )
+  {
+    return get( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize + "&state=" + state,
+                SubscriptionWrapper[].class )
+        .thenApply( unwrap( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Subscription>> findSubscriptionsByStateAndMetadata( String state,
+                                                                                    Map<String, String> metadata,
+                                                                                    int pageNumber, int pageSize )
+  {
+    StringBuilder fields = new StringBuilder();
+    metadata.forEach( ( key, value ) -> fields.append( "&metadata[" ).append( key ).append( "]=" ).append( value ) );
+
+    return get( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize + "&state=" + state + fields,
+                SubscriptionWrapper[].class )
+        .thenApply( unwrap( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> cancelSubscriptionById( String id )
+  {
+    return nullIfNotFound( delete( "/subscriptions/" + id + ".json", SubscriptionWrapper.class )
+                               .thenApply( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> cancelSubscriptionProductChange( String subscriptionId )
+  {
+    final Subscription subscription = new Subscription();
+    subscription.setNextProductId( "" );
+
+    return put( "/subscriptions/" + subscriptionId + ".json", new SubscriptionWrapper( subscription ),
+                SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> migrateSubscription( String subscriptionId, Migration migration )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/migrations.json", new MigrationWrapper( migration ),
+                 SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> reactivateSubscription( String subscriptionId, boolean preserveBalance )
+  {
+    return put( "/subscriptions/" + subscriptionId + "/reactivate.json", Map.of( "preserve_balance", preserveBalance ),
+                SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> reactivateSubscription( String subscriptionId,
+                                                                 SubscriptionReactivationData reactivationData )
+  {
+    return put( ChargifyService.prepareSubscriptionReactivationURI( subscriptionId, reactivationData ), null,
+                SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<ComponentPricePointUpdate> migrateSubscriptionComponentToPricePoint( String subscriptionId,
+                                                                                                int componentId,
+                                                                                                String pricePointHandle )
+  {
+    return bulkUpdateSubscriptionComponentPricePoint(
+        subscriptionId, List.of( new ComponentPricePointUpdate( componentId, pricePointHandle ) ) )
+        .thenApply( updates -> updates.get( 0 ) );
+  }
+
+  @Override
+  public CompletableFuture<List<ComponentPricePointUpdate>> bulkUpdateSubscriptionComponentPricePoint(
+      String subscriptionId, List<ComponentPricePointUpdate> items )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/price_points.json", new ComponentPricePointUpdatesWrapper( items ),
+                 ComponentPricePointUpdatesWrapper.class )
+        .thenApply( ComponentPricePointUpdatesWrapper::getPricePointUpdates );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> cancelScheduledSubscriptionProductChange( String subscriptionId )
+  {
+    return put( "/subscriptions/" + subscriptionId + ".json",
+                Map.of(
+                    "subscription",
+                    Map.of(
+                        "next_product_id", "",
+                        "next_product_price_point_id", ""
+                    )
+                ), SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> changeSubscriptionProduct( String subscriptionId,
+                                                                    SubscriptionProductUpdate payload )
+  {
+    return put( "/subscriptions/" + subscriptionId + ".json", new SubscriptionProductUpdateWrapper( payload ),
+                SubscriptionWrapper.class )
+        .thenApply( SubscriptionWrapper::getSubscription );
+  }
+
+  @Override
+  public CompletableFuture<RenewalPreview> previewSubscriptionRenewal( String subscriptionId )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/renewals/preview.json", null, RenewalPreviewWrapper.class )
+        .thenApply( RenewalPreviewWrapper::getRenewalPreview );
+  }
+
+  @Override
+  public CompletableFuture<List<Metadata>> createSubscriptionMetadata( String subscriptionId, Metadata... metadata )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/metadata.json", new MetadataWrapper( metadata ),
+                 Metadata[].class )
+        .thenApply( Arrays::asList );
+  }
+
+  @Override
+  public CompletableFuture<SubscriptionMetadata> readSubscriptionMetadata( String subscriptionId )
+  {
+    return nullIfNotFound( get( "/subscriptions/" + subscriptionId + "/metadata.json", SubscriptionMetadata.class ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Metadata>> updateSubscriptionMetadata( String subscriptionId, Metadata... metadata )
+  {
+    return put( "/subscriptions/" + subscriptionId + "/metadata.json", new MetadataWrapper( metadata ),
+                Metadata[].class )
+        .thenApply( Arrays::asList );
+  }
+
+  @Override
+  public CompletableFuture<Component> createComponent( String productFamilyId, Component component )
+  {
+    return validated( () -> {
+      if( component.getKind() == null )
+        throw new IllegalArgumentException( "Component Kind must not be null" );
+
+      final String pluralKindPathParam;
+      final ComponentWrapper componentWrapper = switch( component.getKind() )
+      {
+        case quantity_based_component ->
+        {
+          pluralKindPathParam = "quantity_based_components";
+          yield new QuantityBasedComponentWrapper( component );
+        }
+        case metered_component ->
+        {
+          pluralKindPathParam = "metered_components";
+          yield new MeteredComponentWrapper( component );
+        }
+        case on_off_component ->
+        {
+          pluralKindPathParam = "on_off_components";
+          yield new OnOffComponentWrapper( component );
+        }
+        default -> throw new IllegalArgumentException( "Invalid component kind - " + component.getKind() );
+      };
+
+      return post( "/product_families/" + productFamilyId + "/" + pluralKindPathParam + ".json", componentWrapper,
+                   AnyComponentWrapper.class )
+          .thenApply( AnyComponentWrapper::getComponent );
+    } );
+  }
+
+  @Override
+  public CompletableFuture<Allocation> createComponentAllocation( String subscriptionId, int componentId,
+                                                                  Allocation allocation )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/components/" + componentId + "/allocations.json",
+                 new AllocationWrapper( allocation ), AllocationWrapper.class )
+        .thenApply( AllocationWrapper::getAllocation );
+  }
+
+  @Override
+  public CompletableFuture<AllocationPreview> previewComponentAllocation( String subscriptionId, int componentId,
+                                                                          int quantity )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/allocations/preview.json",
+                 Map.of( "allocations", List.of( new AllocationPreview.ComponentAllocationDTO( componentId, quantity ) ) ),
+                 AllocationPreviewWrapper.class )
+        .thenApply( AllocationPreviewWrapper::getAllocationPreview );
+  }
+
+  @Override
+  public CompletableFuture<List<Component>> findComponentsByProductFamily( String productFamilyId )
+  {
+    return get( "/product_families/" + productFamilyId + "/components.json", AnyComponentWrapper[].class )
+        .thenApply( unwrap( AnyComponentWrapper::getComponent ) );
+  }
+
+  @Override
+  public CompletableFuture<Component> findComponentByIdAndProductFamily( int componentId, String productFamilyId )
+  {
+    return nullIfNotFound( get( "/product_families/" + productFamilyId + "/components/" + componentId + ".json",
+                                AnyComponentWrapper.class )
+                               .thenApply( AnyComponentWrapper::getComponent ) );
+  }
+
+  @Override
+  public CompletableFuture<ComponentWithPricePoints> findComponentWithPricePointsByIdAndProductFamily(
+      int componentId, String productFamilyId )
+  {
+    // both lookups are independent, so unlike the blocking client they are sent concurrently
+    return findComponentByIdAndProductFamily( componentId, productFamilyId )
+        .thenCombine( findComponentPricePoints( componentId ), ComponentWithPricePoints::new );
+  }
+
+  @Override
+  public CompletableFuture<List<SubscriptionComponent>> findSubscriptionComponents( String subscriptionId )
+  {
+    return get( "/subscriptions/" + subscriptionId + "/components.json", SubscriptionComponentWrapper[].class )
+        .thenApply( unwrap( SubscriptionComponentWrapper::getComponent ) );
+  }
+
+  @Override
+  public CompletableFuture<List<SubscriptionStatement>> findSubscriptionStatements(
+      String subscriptionId, int page, int pageSize, String sort, String direction )
+  {
+    return validated( () -> get( "/subscriptions/" + subscriptionId + "/statements.json?" +
+                                     ChargifyService.prepareSubscriptionStatementsQuery( page, pageSize, sort,
+                                                                                         direction ),
+                                 SubscriptionStatementWrapper[].class ) )
+        .thenApply( unwrap( SubscriptionStatementWrapper::getStatement ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Transaction>> findSubscriptionTransactions( String subscriptionId,
+                                                                            SubscriptionTransactionsSearchOptions options )
+  {
+    return validated( () -> get( "/subscriptions/" + subscriptionId + "/transactions.json?" +
+                                     ChargifyService.prepareSubscriptionTransactionsQuery( options ),
+                                 TransactionWrapper[].class ) )
+        .thenApply( unwrap( TransactionWrapper::getTransaction ) );
+  }
+
+  @Override
+  public CompletableFuture<SubscriptionComponent> findSubscriptionComponentById( String subscriptionId,
+                                                                                 int componentId )
+  {
+    return nullIfNotFound( get( "/subscriptions/" + subscriptionId + "/components/" + componentId + ".json",
+                                SubscriptionComponentWrapper.class )
+                               .thenApply( SubscriptionComponentWrapper::getComponent ) );
+  }
+
+  @Override
+  public CompletableFuture<Usage> reportSubscriptionComponentUsage( String subscriptionId, int componentId,
+                                                                    Usage usage )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/components/" + componentId + "/usages.json",
+                 new UsageWrapper( usage ), UsageWrapper.class )
+        .thenApply( UsageWrapper::getUsage );
+  }
+
+  @Override
+  public CompletableFuture<Customer> createCustomer( Customer customer )
+  {
+    return post( "/customers.json", new CustomerWrapper( customer ), CustomerWrapper.class )
+        .thenApply( CustomerWrapper::getCustomer );
+  }
+
+  @Override
+  public CompletableFuture<Customer> updateCustomer( Customer customer )
+  {
+    return put( "/customers/" + customer.getId() + ".json", new CustomerWrapper( customer ), CustomerWrapper.class )
+        .thenApply( CustomerWrapper::getCustomer );
+  }
+
+  @Override
+  public CompletableFuture<Customer> findCustomerById( String id )
+  {
+    return nullIfNotFound( get( "/customers/" + id + ".json", CustomerWrapper.class )
+                               .thenApply( CustomerWrapper::getCustomer ) );
+  }
+
+  @Override
+  public CompletableFuture<Customer> findCustomerByReference( String reference )
+  {
+    return nullIfNotFound( exchange( "GET", uriBuilderFactory.expand( "/customers/lookup.json?reference={reference}",
+                                                                      reference ), null, CustomerWrapper.class )
+                               .thenApply( CustomerWrapper::getCustomer ) );
+  }
+
+  @Override
+  public CompletableFuture<Subscription> findSubscriptionByReference( String reference )
+  {
+    return nullIfNotFound( exchange( "GET", uriBuilderFactory.expand( "/subscriptions/lookup.json?reference={reference}",
+                                                                      reference ), null, SubscriptionWrapper.class )
+                               .thenApply( SubscriptionWrapper::getSubscription ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Customer>> findCustomersBy( Object criterion, int pageNumber )
+  {
+    return exchange( "GET", uriBuilderFactory.expand( "/customers.json?q={criterion}&page={pageNumber}",
+                                                      criterion, pageNumber ), null, CustomerWrapper[].class )
+        .thenApply( unwrap( CustomerWrapper::getCustomer ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Customer>> findAllCustomers()
+  {
+    return get( "/customers.json", CustomerWrapper[].class )
+        .thenApply( unwrap( CustomerWrapper::getCustomer ) );
+  }
+
+  @Override
+  public CompletableFuture<List<Customer>> findCustomers( int pageNumber, int perPage )
+  {
+    return get( String.format( "/customers.json?page=%s&per_page=%s", pageNumber, perPage ), CustomerWrapper[].class )
+        .thenApply( unwrap( CustomerWrapper::getCustomer ) );
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteCustomerById( String id )
+  {
+    return nullIfNotFound( delete( "/customers/" + id + ".json", Void.class ) );
+  }
+
+  @Override
+  public CompletableFuture<ReferralCode> validateReferralCode( String code )
+  {
+    return nullIfNotFound( get( "/referral_codes/validate.json?code=" + code, ReferralCodeWrapper.class )
+                               .thenApply( ReferralCodeWrapper::getReferralCode ) );
+  }
+
+  @Override
+  public CompletableFuture<Adjustment> adjust( String subscriptionId, Adjustment adjustment )
+  {
+    return post( "/subscriptions/" + subscriptionId + "/adjustments.json", new AdjustmentWrapper( adjustment ),
+                 AdjustmentWrapper.class )
+        .thenApply( AdjustmentWrapper::getAdjustment );
+  }
+
+  private <T> CompletableFuture<T> get( String uri, Class<T> responseType )
+  {
+    return exchange( "GET", uriBuilderFactory.expand( uri ), null, responseType );
+  }
+
+  private <T> CompletableFuture<T> post( String uri, Object body, Class<T> responseType )
+  {
+    return exchange( "POST", uriBuilderFactory.expand( uri ), body, responseType );
+  }
+
+  private <T> CompletableFuture<T> put( String uri, Object body, Class<T> responseType )
+  {
+    return exchange( "PUT", uriBuilderFactory.expand( uri ), body, responseType );
+  }
+
+  private <T> CompletableFuture<T> delete( String uri, Class<T> responseType )
+  {
+    return exchange( "DELETE", uriBuilderFactory.expand( uri ), null, responseType );
+  }
+
+  private <T> CompletableFuture<T> exchange( String method, URI uri, Object body, Class<T> responseType )
+  {
+    final HttpRequest.Builder request = HttpRequest.newBuilder( uri )
+        .timeout( readTimeout )
+        .header( "Authorization", authorization )
+        .header( "Accept", "application/json" );
+
+    try
+    {
+      if( body == null )
+        request.method( method, HttpRequest.BodyPublishers.noBody() );
+      else
+        request.header( "Content-Type", "application/json" )
+            .method( method, HttpRequest.BodyPublishers.ofByteArray( ChargifyJson.writer( body.getClass() ).writeValueAsBytes( body ) ) );
+    }
+    catch( IOException e )
+    {
+      return CompletableFuture.failedFuture( new UncheckedIOException( e ) );
+    }
+
+    return httpClient.sendAsync( request.build(), HttpResponse.BodyHandlers.ofByteArray() )
+        .thenApplyAsync( response -> read( response, responseType ), executor );
+  }
+
+  private <T> T read( HttpResponse<byte[]> response, Class<T> responseType )
+  {
+    try
+    {
+      if( response.statusCode() >= 400 )
+        throw ChargifyResponseErrorHandler.exceptionFor( HttpStatusCode.valueOf( response.statusCode() ),
+                                                         response.headers().firstValue( "Retry-After" ).orElse( null ),
+                                                         new ByteArrayInputStream( response.body() ) );
+
+      if( responseType == Void.class || response.body().length == 0 )
+        return null;
+
+      return ChargifyJson.reader( responseType ).readValue( response.body() );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  /**
+   * Arguments {@code request} rejects fail the returned future, like any other failure of the call
+   */
+  private static <T> CompletableFuture<T> validated( Supplier<CompletableFuture<T>> request )
+  {
+    try
+    {
+      return request.get();
+    }
+    catch( IllegalArgumentException e )
+    {
+      return CompletableFuture.failedFuture( e );
+    }
+  }
+
+  private static <W, T> Function<W[], List<T>> unwrap( Function<W, T> unwrapper )
+  {
+    return wrappers -> Arrays.stream( wrappers ).map( unwrapper ).collect( Collectors.toList() );
+  }
+
+  private static <T> CompletableFuture<T> nullIfNotFound( CompletableFuture<T> future )
+  {
+    return future.exceptionally( e -> {
+      if( cause( e ) instanceof ResourceNotFoundException )
+        return null;
+      throw new CompletionException( cause( e ) );
+    } );
+  }
+
+  private static Throwable cause( Throwable e )
+  {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+  }
+}
@@ -36,6 +36,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface Chargify
 {
@@ -93,12 +95,62 @@ public interface Chargify
 
   List<Subscription> findSubscriptionsByCustomerId( String customerId, int pageNumber, int pageSize );
 
+  /**
+   * Only the first page of results is returned, use {@link #streamSubscriptions(int)} to go through all of them
+   */
   List<Subscription> findAllSubscriptions();
 
+  /**
+   * One page of all subscriptions, the page streams of subscriptions are built on it
+   */
+  List<Subscription> findSubscriptions( int pageNumber, int pageSize );
+
+  /**
+   * Hands the subscriptions of a page to {@code consumer} one by one. Unlike {@link #findSubscriptions(int, int)},
+   * {@link ChargifyService} parses the response incrementally and never holds the whole page.
+   *
+   * @return number of subscriptions in the page, less than {@code pageSize} on the last one
+   */
+  default int forEachSubscription( int pageNumber, int pageSize, Consumer<? super Subscription> consumer )
+  {
+    final List<Subscription> subscriptions = findSubscriptions( pageNumber, pageSize );
+    subscriptions.forEach( consumer );
+    return subscriptions.size();
+  }
+
+  /**
+   * Reads only the projected fields of the subscriptions. {@link ChargifyService} skips everything else while
+   * parsing, other implementations may project full subscriptions.
+   */
+  default List<ProjectedRecord> findSubscriptions( int pageNumber, int pageSize, Projection projection )
+  {
+    return projection.project( findSubscriptions( pageNumber, pageSize ) );
+  }
+
   Subscription purgeSubscription( Subscription subscription );
 
   List<Subscription> findSubscriptionsByState( String state, int pageNumber, int pageSize );
 
+  /**
+   * Same as {@link #forEachSubscription(int, int, Consumer)}, for the subscriptions in the given state
+   */
+  default int forEachSubscriptionByState( String state, int pageNumber, int pageSize,
+                                          Consumer<? super Subscription> consumer )
+  {
+    final List<Subscription> subscriptions = findSubscriptionsByState( state, pageNumber, pageSize );
+    subscriptions.forEach( consumer );
+    return subscriptions.size();
+  }
+
+  /**
+   * Same as {@link #findSubscriptions(int, int, Projection)}, for the subscriptions in the given state
+   */
+  default List<ProjectedRecord> findSubscriptionsByState( String state, int pageNumber, int pageSize,
+                                                          Projection projection )
+  {
+    return projection.project( findSubscriptionsByState( state, pageNumber, pageSize ) );
+  }
+
   List<Subscription> findSubscriptionsByStateAndMetadata( String state, Map<String, String> metadata, int pageNumber, int pageSize );
 
   Subscription cancelSubscriptionById( String id );
@@ -174,15 +226,104 @@ public interface Chargify
    * The first page of results is displayed
    * Default value for per_page is 50
    * For page settings and how many records to fetch in each request (perPage), use
-   * {@link #findCustomers(int pageNumber, int perPage)}
+   * {@link #findCustomers(int pageNumber, int perPage)} or {@link #streamCustomers(int)}
    */
   List<Customer> findAllCustomers();
 
   List<Customer> findCustomers( int pageNumber, int perPage );
 
+  /**
+   * Same as {@link #forEachSubscription(int, int, Consumer)}, for customers
+   */
+  default int forEachCustomer( int pageNumber, int perPage, Consumer<? super Customer> consumer )
+  {
+    final List<Customer> customers = findCustomers( pageNumber, perPage );
+    customers.forEach( consumer );
+    return customers.size();
+  }
+
+  /**
+   * Same as {@link #findSubscriptions(int, int, Projection)}, for customers
+   */
+  default List<ProjectedRecord> findCustomers( int pageNumber, int perPage, Projection projection )
+  {
+    return projection.project( findCustomers( pageNumber, perPage ) );
+  }
+
   void deleteCustomerById( String id );
 
   ReferralCode validateReferralCode( String code );
 
   Adjustment adjust( String subscriptionId, Adjustment adjustment );
+
+  /**
+   * Lazily goes through all subscriptions, requesting the next page only when the previous one is consumed
+   */
+  default Stream<Subscription> streamSubscriptions( int pageSize )
+  {
+    return PageIterator.stream( page -> findSubscriptions( page, pageSize ), 1, pageSize );
+  }
+
+  /**
+   * Same as {@link #streamSubscriptions(int)}, but keeps up to {@code prefetchPages} pages requested ahead of the
+   * consumer. Close the stream if it is not consumed to the end.
+   */
+  default Stream<Subscription> streamSubscriptions( int pageSize, int prefetchPages )
+  {
+    return PrefetchingPageIterator.stream( page -> findSubscriptions( page, pageSize ), 1, pageSize, prefetchPages );
+  }
+
+  /**
+   * Lazily goes through all subscriptions in the given state, requesting the next page only when the previous one
+   * is consumed
+   */
+  default Stream<Subscription> streamSubscriptionsByState( String state, int pageSize )
+  {
+    return PageIterator.stream( page -> findSubscriptionsByState( state, page, pageSize ), 1, pageSize );
+  }
+
+  /**
+   * Same as {@link #streamSubscriptionsByState(String, int)}, but keeps up to {@code prefetchPages} pages requested
+   * ahead of the consumer. Close the stream if it is not consumed to the end.
+   */
+  default Stream<Subscription> streamSubscriptionsByState( String state, int pageSize, int prefetchPages )
+  {
+    return PrefetchingPageIterator.stream( page -> findSubscriptionsByState( state, page, pageSize ), 1, pageSize,
+                                           prefetchPages );
+  }
+
+  /**
+   * Parallel stream over all subscriptions in the given state: the number of pages is probed first, then disjoint
+   * page ranges are fetched and processed on the common fork-join pool. Encounter order is kept.
+   */
+  default Stream<Subscription> parallelStreamSubscriptionsByState( String state, int pageSize )
+  {
+    return PageRangeSpliterator.parallelStream( page -> findSubscriptionsByState( state, page, pageSize ), pageSize );
+  }
+
+  default Stream<Subscription> parallelStreamSubscriptions( int pageSize )
+  {
+    return PageRangeSpliterator.parallelStream( page -> findSubscriptions( page, pageSize ), pageSize );
+  }
+
+  default Stream<Subscription> streamSubscriptionsByCustomerId( String customerId, int pageSize )
+  {
+    return PageIterator.stream( page -> findSubscriptionsByCustomerId( customerId, page, pageSize ), 1, pageSize );
+  }
+
+  default Stream<Customer> streamCustomers( int perPage )
+  {
+    return PageIterator.stream( page -> findCustomers( page, perPage ), 1, perPage );
+  }
+
+  /**
+   * Lazily goes through the subscription transactions matching {@code options}, starting from its page
+   */
+  default Stream<Transaction> streamSubscriptionTransactions( String subscriptionId,
+                                                              SubscriptionTransactionsSearchOptions options )
+  {
+    return PageIterator.stream(
+        page -> findSubscriptionTransactions( subscriptionId, options.toBuilder().page( page ).build() ),
+        options.getPage(), options.getPageSize() );
+  }
 }
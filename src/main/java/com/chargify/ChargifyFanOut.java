@@ -0,0 +1,128 @@
+package com.chargify;
+
+import com.chargify.model.SubscriptionComponent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs many blocking {@link Chargify} calls concurrently, at most {@code maxConcurrency} at a time.
+ * <p>
+ * On Java 21+ pass {@code Executors.newVirtualThreadPerTaskExecutor()} to {@link #onExecutor}, so a fan-out over
+ * thousands of subscriptions is bounded only by the concurrency cap, not by the size of a platform thread pool.
+ */
+public final class ChargifyFanOut implements AutoCloseable
+{
+  private final Chargify chargify;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final int maxConcurrency;
+
+  private ChargifyFanOut( Chargify chargify, ExecutorService executor, boolean ownsExecutor, int maxConcurrency )
+  {
+    if( maxConcurrency < 1 )
+      throw new IllegalArgumentException( "Max concurrency must be positive" );
+
+    this.chargify = chargify;
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public static ChargifyFanOut onPlatformThreads( Chargify chargify, int maxConcurrency )
+  {
+    return new ChargifyFanOut( chargify, Executors.newFixedThreadPool( maxConcurrency ), true, maxConcurrency );
+  }
+
+  /**
+   * Uses the given executor, which stays owned by the caller and is not shut down by {@link #close()}.
+   */
+  public static ChargifyFanOut onExecutor( Chargify chargify, ExecutorService executor, int maxConcurrency )
+  {
+    return new ChargifyFanOut( chargify, executor, false, maxConcurrency );
+  }
+
+  /**
+   * @return components of every subscription, keyed by subscription id in the order of {@code subscriptionIds}
+   */
+  public Map<String, List<SubscriptionComponent>> findSubscriptionComponents( Collection<String> subscriptionIds )
+  {
+    return fanOut( subscriptionIds, chargify::findSubscriptionComponents );
+  }
+
+  /**
+   * @return the component of every subscription keyed by subscription id, {@code null} where it does not exist
+   */
+  public Map<String, SubscriptionComponent> findSubscriptionComponentById( Collection<String> subscriptionIds,
+                                                                         int componentId )
+  {
+    return fanOut( subscriptionIds, subscriptionId -> chargify.findSubscriptionComponentById( subscriptionId, componentId ) );
+  }
+
+  /**
+   * Applies {@code call} to every key concurrently. The first call to fail stops the fan-out: no further call is
+   * started, the calls still running are cancelled and its exception is rethrown.
+   *
+   * @return results keyed in the order of {@code keys}
+   */
+  public <K, V> Map<K, V> fanOut( Collection<K> keys, Function<K, V> call )
+  {
+    final CompletionService<V> completionService = new ExecutorCompletionService<>( executor );
+    final List<Future<V>> futures = new ArrayList<>( keys.size() );
+    try
+    {
+      int running = 0;
+      for( K key : keys )
+      {
+        // a call is started only once another one completed, which also surfaces its failure right away
+        if( running == maxConcurrency )
+        {
+          completionService.take().get();
+          running--;
+        }
+        futures.add( completionService.submit( () -> call.apply( key ) ) );
+        running++;
+      }
+      for( ; running > 0; running-- )
+        completionService.take().get();
+
+      final Map<K, V> result = new LinkedHashMap<>();
+      int i = 0;
+      for( K key : keys )
+        result.put( key, futures.get( i++ ).get() );
+      return result;
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException( "Interrupted while waiting for Chargify calls", e );
+    }
+    catch( ExecutionException e )
+    {
+      if( e.getCause() instanceof RuntimeException runtimeException )
+        throw runtimeException;
+      throw new IllegalStateException( e.getCause() );
+    }
+    finally
+    {
+      futures.forEach( future -> future.cancel( true ) );
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    if( ownsExecutor )
+      executor.shutdown();
+  }
+}
@@ -0,0 +1,145 @@
+package com.chargify;
+
+import com.chargify.exceptions.ChargifyError;
+import com.chargify.model.wrappers.AdjustmentWrapper;
+import com.chargify.model.wrappers.AllocationPreviewWrapper;
+import com.chargify.model.wrappers.AllocationWrapper;
+import com.chargify.model.wrappers.AnyComponentWrapper;
+import com.chargify.model.wrappers.ComponentPricePointUpdatesWrapper;
+import com.chargify.model.wrappers.ComponentPricePointsWrapper;
+import com.chargify.model.wrappers.CreateSubscriptionWrapper;
+import com.chargify.model.wrappers.CustomerWrapper;
+import com.chargify.model.wrappers.MetadataWrapper;
+import com.chargify.model.wrappers.MeteredComponentWrapper;
+import com.chargify.model.wrappers.MigrationWrapper;
+import com.chargify.model.wrappers.OnOffComponentWrapper;
+import com.chargify.model.wrappers.PaymentProfileWrapper;
+import com.chargify.model.wrappers.PricePointUpdateResultWrapper;
+import com.chargify.model.wrappers.PricePointUpdateWrapper;
+import com.chargify.model.wrappers.ProductFamilyWrapper;
+import com.chargify.model.wrappers.ProductPricePointsWrapper;
+import com.chargify.model.wrappers.ProductWrapper;
+import com.chargify.model.wrappers.QuantityBasedComponentWrapper;
+import com.chargify.model.wrappers.ReferralCodeWrapper;
+import com.chargify.model.wrappers.RenewalPreviewWrapper;
+import com.chargify.model.wrappers.SubscriptionChargeWrapper;
+import com.chargify.model.wrappers.SubscriptionComponentWrapper;
+import com.chargify.model.wrappers.SubscriptionProductUpdateWrapper;
+import com.chargify.model.wrappers.SubscriptionStatementWrapper;
+import com.chargify.model.wrappers.SubscriptionWrapper;
+import com.chargify.model.wrappers.TransactionWrapper;
+import com.chargify.model.wrappers.UpdateSubscriptionWrapper;
+import com.chargify.model.wrappers.UsageWrapper;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Jackson setup of the SDK, shared by every client. Responses, request bodies and error bodies are all read and
+ * written with one {@link ObjectMapper}, so its serializer and deserializer caches are built once per JVM rather than
+ * once per {@link ChargifyService}.
+ * <p>
+ * Readers and writers of the wrapper types (and of their arrays, for listings) are created when the class is
+ * loaded, so the first call of each endpoint doesn't pay for introspecting the model.
+ * <p>
+ * The model is read and written through reflection. Setting the {@code chargify.json.generatedAccessors} system
+ * property to {@code true} switches to accessors generated with {@code LambdaMetafactory} by
+ * {@code jackson-module-blackbird}, which must then be on the classpath. Whether that pays off depends on the JVM and
+ * the payloads, and it didn't for Chargify's subscription listings: measure with {@code ModelDeserializationBenchmark}
+ * in the tests before turning it on.
+ */
+public final class ChargifyJson
+{
+  private static final List<Class<?>> WRAPPERS = List.of(
+      AdjustmentWrapper.class, AllocationPreviewWrapper.class, AllocationWrapper.class, AnyComponentWrapper.class,
+      ComponentPricePointUpdatesWrapper.class, ComponentPricePointsWrapper.class, CreateSubscriptionWrapper.class,
+      CustomerWrapper.class, MetadataWrapper.class, MeteredComponentWrapper.class, MigrationWrapper.class,
+      OnOffComponentWrapper.class, PaymentProfileWrapper.class, PricePointUpdateResultWrapper.class,
+      PricePointUpdateWrapper.class, ProductFamilyWrapper.class, ProductPricePointsWrapper.class,
+      ProductWrapper.class, QuantityBasedComponentWrapper.class, ReferralCodeWrapper.class,
+      RenewalPreviewWrapper.class, SubscriptionChargeWrapper.class, SubscriptionComponentWrapper.class,
+      SubscriptionProductUpdateWrapper.class, SubscriptionStatementWrapper.class, SubscriptionWrapper.class,
+      TransactionWrapper.class, UpdateSubscriptionWrapper.class, UsageWrapper.class );
+
+  private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+  private static final boolean generatedAccessors = Boolean.getBoolean( "chargify.json.generatedAccessors" );
+  private static final ObjectMapper objectMapper = newObjectMapper( generatedAccessors );
+  private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+  private static final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+  // pinned to Jackson 2: the model relies on its annotations even when Jackson 3 is on the classpath
+  private static final MappingJackson2HttpMessageConverter messageConverter =
+      new MappingJackson2HttpMessageConverter( objectMapper );
+
+  static {
+    for( Class<?> wrapper : WRAPPERS )
+    {
+      reader( wrapper );
+      reader( wrapper.arrayType() );
+      writer( wrapper );
+    }
+    reader( ChargifyError.class );
+  }
+
+  private ChargifyJson()
+  {
+  }
+
+  /**
+   * The shared mapper. Don't reconfigure it, it would change every client; use {@link ObjectMapper#copy()} for
+   * different settings.
+   */
+  public static ObjectMapper objectMapper()
+  {
+    return objectMapper;
+  }
+
+  /**
+   * @return whether the model is accessed through generated accessors rather than reflection
+   */
+  public static boolean usesGeneratedAccessors()
+  {
+    return generatedAccessors;
+  }
+
+  public static ObjectReader reader( Class<?> type )
+  {
+    return readers.computeIfAbsent( type, objectMapper::readerFor );
+  }
+
+  public static ObjectWriter writer( Class<?> type )
+  {
+    return writers.computeIfAbsent( type, objectMapper::writerFor );
+  }
+
+  static MappingJackson2HttpMessageConverter messageConverter()
+  {
+    return messageConverter;
+  }
+
+  static ObjectMapper newObjectMapper( boolean generatedAccessors )
+  {
+    final Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable( SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+                            DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES );
+    // by name, so that the SDK doesn't need Blackbird unless it's turned on
+    if( generatedAccessors )
+      builder.modulesToInstall( new JavaTimeModule(), BeanUtils.instantiateClass(
+          ClassUtils.resolveClassName( BLACKBIRD_MODULE, ChargifyJson.class.getClassLoader() ), Module.class ) );
+    else
+      builder.modulesToInstall( new JavaTimeModule() );
+    return builder.build();
+  }
+}
@@ -64,72 +64,109 @@ import com.chargify.model.wrappers.SubscriptionWrapper;
 import com.chargify.model.wrappers.TransactionWrapper;
 import com.chargify.model.wrappers.UpdateSubscriptionWrapper;
 import com.chargify.model.wrappers.UsageWrapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.chargify.resilience.IdempotencyKey;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.web.util.UriUtils;
 
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public final class ChargifyService implements Chargify
 {
+  private static final WrappedArrayReader<Subscription> subscriptionsReader =
+      new WrappedArrayReader<>( "subscription", Subscription.class );
+  private static final WrappedArrayReader<Customer> customersReader =
+      new WrappedArrayReader<>( "customer", Customer.class );
+
   private final RestTemplate httpClient;
 
   public ChargifyService( final String domain, final String apiKey, int connectTimeoutInMillis,
                           int readTimeoutInMillis )
   {
-    this( createRestTemplate( "https://" + domain + ".chargify.com", apiKey,
-                              connectTimeoutInMillis, readTimeoutInMillis ) );
+    this( domain, apiKey, ChargifyServiceOptions.builder()
+        .connectTimeoutInMillis( connectTimeoutInMillis )
+        .readTimeoutInMillis( readTimeoutInMillis )
+        .build() );
+  }
+
+  public ChargifyService( final String domain, final String apiKey, ChargifyServiceOptions options )
+  {
+    this( createRestTemplate( "https://" + domain + ".chargify.com", apiKey, options ) );
   }
 
   private ChargifyService( RestTemplate httpClient )
   {
     this.httpClient = httpClient;
-
-    this.httpClient.getMessageConverters().stream()
-        .filter( AbstractJackson2HttpMessageConverter.class::isInstance )
-        .map( AbstractJackson2HttpMessageConverter.class::cast )
-        .map( AbstractJackson2HttpMessageConverter::getObjectMapper )
-        .forEach( mapper -> mapper.disable( SerializationFeature.WRITE_DATES_AS_TIMESTAMPS ) );
   }
 
-  private static RestTemplate createRestTemplate( String baseUrl, String apiKey,
-                                                  int connectTimeoutInMillis, int readTimeoutInMillis )
+  static ChargifyService forBaseUrl( String baseUrl, String apiKey, ChargifyServiceOptions options )
   {
-    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-    requestFactory.setConnectTimeout( Duration.ofMillis( connectTimeoutInMillis ) );
-    requestFactory.setReadTimeout( Duration.ofMillis( readTimeoutInMillis ) );
+    return new ChargifyService( createRestTemplate( baseUrl, apiKey, options ) );
+  }
 
-    RestTemplate restTemplate = new RestTemplate( requestFactory );
+  private static RestTemplate createRestTemplate( String baseUrl, String apiKey, ChargifyServiceOptions options )
+  {
+    List<HttpMessageConverter<?>> messageConverters = List.of( ChargifyJson.messageConverter() );
+    RestTemplate restTemplate = options.isCoalesceGets()
+        ? new CoalescingRestTemplate( messageConverters )
+        : new RestTemplate( messageConverters );
+    restTemplate.setRequestFactory( options.getTransport().createRequestFactory(
+        options.getConnectTimeoutInMillis(), options.getReadTimeoutInMillis() ) );
     restTemplate.setUriTemplateHandler( new DefaultUriBuilderFactory( baseUrl ) );
     restTemplate.setErrorHandler( new ChargifyResponseErrorHandler() );
 
     String base64Creds = Base64.getEncoder()
         .encodeToString( ( apiKey + ":x" ).getBytes( StandardCharsets.UTF_8 ) );
     restTemplate.getInterceptors().add( ( request, body, execution ) -> {
-      request.getHeaders().add( "Authorization", "Basic " + base64Creds );
+      request.getHeaders().set( "Authorization", "Basic " + base64Creds );
+      if( IdempotencyKey.current() != null )
+        request.getHeaders().set( IdempotencyKey.HEADER, IdempotencyKey.current() );
       return execution.execute( request, body );
     } );
+    // a call holds its bulkhead slot through all of its attempts
+    if( options.getBulkheads() != null )
+      restTemplate.getInterceptors().add( options.getBulkheads() );
+    // each retry goes through the interceptors after the retry policy again
+    if( options.getRetryPolicy() != null )
+      restTemplate.getInterceptors().add( options.getRetryPolicy() );
+    if( options.getRateLimiter() != null )
+      restTemplate.getInterceptors().add( options.getRateLimiter() );
+    // after the rate limiter, so that the round trip times it adapts to don't include waiting for a token
+    if( options.getConcurrencyLimit() != null )
+      restTemplate.getInterceptors().add( options.getConcurrencyLimit() );
+    // last, so that waiting in the limiters doesn't count as slow calls and open it while Chargify is healthy
+    if( options.getCircuitBreaker() != null )
+      restTemplate.getInterceptors().add( options.getCircuitBreaker() );
 
     return restTemplate;
   }
 
+  /**
+   * @return how many GETs were coalesced, all zeros unless {@link ChargifyServiceOptions#isCoalesceGets()} is on
+   */
+  public CoalescingStats getCoalescingStats()
+  {
+    return httpClient instanceof CoalescingRestTemplate coalescing ? coalescing.stats() : new CoalescingStats( 0, 0 );
+  }
+
   @Override
   public ProductFamily createProductFamily( ProductFamily productFamily )
   {
@@ -410,19 +447,34 @@ public final class ChargifyService implements Chargify
   @Override
   public List<Subscription> findSubscriptionsByCustomerId( String customerId, int pageNumber, int pageSize )
   {
-    return Arrays.stream( httpClient.getForObject(
-            "/customers/" + customerId + "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize,
-            SubscriptionWrapper[].class ) )
-        .map( SubscriptionWrapper::getSubscription )
-        .collect( Collectors.toList() );
+    return readArray( "/customers/" + customerId + "/subscriptions.json?page=" + pageNumber + "&" +
+                          "per_page=" + pageSize, subscriptionsReader );
   }
 
   @Override
   public List<Subscription> findAllSubscriptions()
   {
-    return Arrays.stream( httpClient.getForObject( "/subscriptions.json", SubscriptionWrapper[].class ) )
-        .map( SubscriptionWrapper::getSubscription )
-        .collect( Collectors.toList() );
+    return readArray( "/subscriptions.json", subscriptionsReader );
+  }
+
+  @Override
+  public List<Subscription> findSubscriptions( int pageNumber, int pageSize )
+  {
+    return readArray( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize, subscriptionsReader );
+  }
+
+  @Override
+  public int forEachSubscription( int pageNumber, int pageSize, Consumer<? super Subscription> consumer )
+  {
+    return readArray( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize, subscriptionsReader,
+                      consumer );
+  }
+
+  @Override
+  public List<ProjectedRecord> findSubscriptions( int pageNumber, int pageSize, Projection projection )
+  {
+    return readArray( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize,
+                      new WrappedArrayReader<>( "subscription", projection::read ) );
   }
 
   @Override
@@ -440,21 +492,31 @@ public final class ChargifyService implements Chargify
     StringBuilder fields = new StringBuilder();
     metadata.forEach( ( key, value ) -> fields.append( "&metadata[" ).append( key ).append( "]=" ).append( value ) );
 
-    return Arrays.stream( httpClient.getForObject( "/subscriptions.json?page=" + pageNumber + "&" +
-                                                       "per_page=" + pageSize + "&state=" + state + fields,
-                                                   SubscriptionWrapper[].class ) )
-        .map( SubscriptionWrapper::getSubscription )
-        .collect( Collectors.toList() );
+    return readArray( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize + "&state=" + state +
+                          fields, subscriptionsReader );
   }
 
   @Override
   public List<Subscription> findSubscriptionsByState( String state, int pageNumber, int pageSize )
   {
-    return Arrays.stream( httpClient.getForObject( "/subscriptions.json?page=" + pageNumber + "&" +
-                                                       "per_page=" + pageSize + "&state=" + state,
-                                                   SubscriptionWrapper[].class ) )
-        .map( SubscriptionWrapper::getSubscription )
-        .collect( Collectors.toList() );
+    return readArray( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize + "&state=" + state,
+                      subscriptionsReader );
+  }
+
+  @Override
+  public int forEachSubscriptionByState( String state, int pageNumber, int pageSize,
+                                         Consumer<? super Subscription> consumer )
+  {
+    return readArray( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize + "&state=" + state,
+                      subscriptionsReader, consumer );
+  }
+
+  @Override
+  public List<ProjectedRecord> findSubscriptionsByState( String state, int pageNumber, int pageSize,
+                                                         Projection projection )
+  {
+    return readArray( "/subscriptions.json?page=" + pageNumber + "&" + "per_page=" + pageSize + "&state=" + state,
+                      new WrappedArrayReader<>( "subscription", projection::read ) );
   }
 
   @Override
@@ -699,19 +761,9 @@ public final class ChargifyService implements Chargify
   public List<SubscriptionStatement> findSubscriptionStatements(
       String subscriptionId, int page, int pageSize, String sort, String direction )
   {
-    if( pageSize > 200 )
-      throw new IllegalArgumentException( "Page size can't be bigger than 200" );
-
-    StringBuilder uriBuilder = new StringBuilder();
-    uriBuilder.append( "page=" ).append( page );
-    uriBuilder.append( "&per_page=" ).append( pageSize );
-    if( sort != null )
-      uriBuilder.append( "&sort=" ).append( sort );
-    if( direction != null )
-      uriBuilder.append( "&direction=" ).append( direction );
-
     return Arrays.stream( httpClient.getForObject(
-            "/subscriptions/" + subscriptionId + "/statements.json?" + uriBuilder, SubscriptionStatementWrapper[].class ) )
+            "/subscriptions/" + subscriptionId + "/statements.json?" +
+                prepareSubscriptionStatementsQuery( page, pageSize, sort, direction ), SubscriptionStatementWrapper[].class ) )
         .map( SubscriptionStatementWrapper::getStatement )
         .collect( Collectors.toList() );
   }
@@ -719,28 +771,9 @@ public final class ChargifyService implements Chargify
   @Override
   public List<Transaction> findSubscriptionTransactions( String subscriptionId, SubscriptionTransactionsSearchOptions options )
   {
-    if( options.getPageSize() > 200 )
-      throw new IllegalArgumentException( "Page size can't be bigger than 200" );
-
-    StringBuilder uriBuilder = new StringBuilder();
-    uriBuilder.append( "page=" ).append( options.getPage() );
-    uriBuilder.append( "&per_page=" ).append( options.getPageSize() );
-    uriBuilder.append( "&direction=" ).append( options.getDirection().getValue() );
-    if( options.getMaxId() != null )
-      uriBuilder.append( "&max_id=" ).append( options.getMaxId() );
-    if( options.getSinceId() != null )
-      uriBuilder.append( "&since_id=" ).append( options.getSinceId() );
-    if( options.getKinds() != null )
-      options.getKinds().forEach( kind -> uriBuilder.append( "&kinds[]=" ).append( kind ) );
-
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern( "yyyy-MM-dd" );
-    if( options.getSinceDate() != null )
-      uriBuilder.append( "&since_date=" ).append( options.getSinceDate().format( dateFormatter ) );
-    if( options.getUntilDate() != null )
-      uriBuilder.append( "&until_date=" ).append( options.getUntilDate().format( dateFormatter ) );
-
     return Arrays.stream( httpClient.getForObject(
-            "/subscriptions/" + subscriptionId + "/transactions.json?" + uriBuilder, TransactionWrapper[].class ) )
+            "/subscriptions/" + subscriptionId + "/transactions.json?" +
+                prepareSubscriptionTransactionsQuery( options ), TransactionWrapper[].class ) )
         .map( TransactionWrapper::getTransaction )
         .collect( Collectors.toList() );
   }
@@ -833,26 +866,33 @@ public final class ChargifyService implements Chargify
   @Override
   public List<Customer> findCustomersBy( Object criterion, int pageNumber )
   {
-    return Arrays.stream( httpClient.getForObject( "/customers.json?q={criterion}&page={pageNumber}",
-                                                   CustomerWrapper[].class, criterion, pageNumber ) )
-        .map( CustomerWrapper::getCustomer )
-        .collect( Collectors.toList() );
+    return readArray( "/customers.json?q={criterion}&page={pageNumber}", customersReader, criterion, pageNumber );
   }
 
   @Override
   public List<Customer> findAllCustomers()
   {
-    return Arrays.stream( httpClient.getForObject( "/customers.json", CustomerWrapper[].class ) )
-        .map( CustomerWrapper::getCustomer )
-        .collect( Collectors.toList() );
+    return readArray( "/customers.json", customersReader );
   }
 
   @Override
   public List<Customer> findCustomers( int pageNumber, int perPage )
   {
-    return Arrays.stream( httpClient.getForObject( String.format( "/customers.json?page=%s&per_page=%s", pageNumber, perPage ), CustomerWrapper[].class ) )
-        .map( CustomerWrapper::getCustomer )
-        .collect( Collectors.toList() );
+    return readArray( String.format( "/customers.json?page=%s&per_page=%s", pageNumber, perPage ), customersReader );
+  }
+
+  @Override
+  public int forEachCustomer( int pageNumber, int perPage, Consumer<? super Customer> consumer )
+  {
+    return readArray( String.format( "/customers.json?page=%s&per_page=%s", pageNumber, perPage ), customersReader,
+                      consumer );
+  }
+
+  @Override
+  public List<ProjectedRecord> findCustomers( int pageNumber, int perPage, Projection projection )
+  {
+    return readArray( String.format( "/customers.json?page=%s&per_page=%s", pageNumber, perPage ),
+                      new WrappedArrayReader<>( "customer", projection::read ) );
   }
 
   @Override
@@ -891,8 +931,8 @@ public final class ChargifyService implements Chargify
         .getAdjustment();
   }
 
-  private String prepareSubscriptionReactivationURI( String subscriptionId,
-                                                     SubscriptionReactivationData reactivationData )
+  static String prepareSubscriptionReactivationURI( String subscriptionId,
+                                                   SubscriptionReactivationData reactivationData )
   {
     StringBuilder urlBuilder = new StringBuilder( "/subscriptions/" ).append( subscriptionId ).append( "/reactivate.json" );
 
@@ -913,4 +953,78 @@ public final class ChargifyService implements Chargify
 
     return urlBuilder.toString();
   }
+
+  private <T> List<T> readArray( String url, WrappedArrayReader<T> reader, Object... uriVariables )
+  {
+    final URI uri = httpClient.getUriTemplateHandler().expand( url, uriVariables );
+    // the list can be shared by coalesced callers, so none of them may change it
+    if( httpClient instanceof CoalescingRestTemplate coalescing )
+      return coalescing.coalesce( uri, reader, () -> Collections.unmodifiableList( readArray( uri, reader ) ) );
+    return readArray( uri, reader );
+  }
+
+  private <T> List<T> readArray( URI uri, WrappedArrayReader<T> reader )
+  {
+    final List<T> elements = new ArrayList<>();
+    readArray( uri, reader, elements::add );
+    return elements;
+  }
+
+  /**
+   * Streams the listing at {@code url} into {@code consumer}, see {@link WrappedArrayReader}
+   */
+  private <T> int readArray( String url, WrappedArrayReader<T> reader, Consumer<? super T> consumer,
+                             Object... uriVariables )
+  {
+    return readArray( httpClient.getUriTemplateHandler().expand( url, uriVariables ), reader, consumer );
+  }
+
+  private <T> int readArray( URI uri, WrappedArrayReader<T> reader, Consumer<? super T> consumer )
+  {
+    final Integer count = httpClient.execute(
+        uri, HttpMethod.GET, request -> request.getHeaders().setAccept( List.of( MediaType.APPLICATION_JSON ) ),
+        response -> reader.read( response.getBody(), consumer ) );
+    return count == null ? 0 : count;
+  }
+
+  static String prepareSubscriptionStatementsQuery( int page, int pageSize, String sort, String direction )
+  {
+    if( pageSize > 200 )
+      throw new IllegalArgumentException( "Page size can't be bigger than 200" );
+
+    StringBuilder uriBuilder = new StringBuilder();
+    uriBuilder.append( "page=" ).append( page );
+    uriBuilder.append( "&per_page=" ).append( pageSize );
+    if( sort != null )
+      uriBuilder.append( "&sort=" ).append( sort );
+    if( direction != null )
+      uriBuilder.append( "&direction=" ).append( direction );
+
+    return uriBuilder.toString();
+  }
+
+  static String prepareSubscriptionTransactionsQuery( SubscriptionTransactionsSearchOptions options )
+  {
+    if( options.getPageSize() > 200 )
+      throw new IllegalArgumentException( "Page size can't be bigger than 200" );
+
+    StringBuilder uriBuilder = new StringBuilder();
+    uriBuilder.append( "page=" ).append( options.getPage() );
+    uriBuilder.append( "&per_page=" ).append( options.getPageSize() );
+    uriBuilder.append( "&direction=" ).append( options.getDirection().getValue() );
+    if( options.getMaxId() != null )
+      uriBuilder.append( "&max_id=" ).append( options.getMaxId() );
+    if( options.getSinceId() != null )
+      uriBuilder.append( "&since_id=" ).append( options.getSinceId() );
+    if( options.getKinds() != null )
+      options.getKinds().forEach( kind -> uriBuilder.append( "&kinds[]=" ).append( kind ) );
+
+    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern( "yyyy-MM-dd" );
+    if( options.getSinceDate() != null )
+      uriBuilder.append( "&since_date=" ).append( options.getSinceDate().format( dateFormatter ) );
+    if( options.getUntilDate() != null )
+      uriBuilder.append( "&until_date=" ).append( options.getUntilDate().format( dateFormatter ) );
+
+    return uriBuilder.toString();
+  }
 }
@@ -0,0 +1,48 @@
+package com.chargify;
+
+import com.chargify.resilience.AdaptiveConcurrencyLimit;
+import com.chargify.resilience.Bulkheads;
+import com.chargify.resilience.CircuitBreaker;
+import com.chargify.resilience.RateLimiter;
+import com.chargify.resilience.RetryPolicy;
+import com.chargify.transport.HttpTransport;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class ChargifyServiceOptions
+{
+  @Builder.Default
+  private int connectTimeoutInMillis = 5000;
+  @Builder.Default
+  private int readTimeoutInMillis = 5000;
+  @Builder.Default
+  private HttpTransport transport = HttpTransport.simple();
+  /**
+   * Send identical concurrent GETs only once and share the response between the callers, who then must not modify
+   * the returned objects. Listings are returned as unmodifiable lists.
+   */
+  @Builder.Default
+  private boolean coalesceGets = false;
+  /**
+   * Limits the request rate, no limit when {@code null}. Use the same limiter for all clients of a site.
+   */
+  private RateLimiter rateLimiter;
+  /**
+   * Retries failed idempotent requests, no retries when {@code null}
+   */
+  private RetryPolicy retryPolicy;
+  /**
+   * Fails calls fast while Chargify looks unavailable, no circuit breaker when {@code null}
+   */
+  private CircuitBreaker circuitBreaker;
+  /**
+   * Limits concurrent calls per group of endpoints, no limits when {@code null}
+   */
+  private Bulkheads bulkheads;
+  /**
+   * Adapts the number of calls in flight to Chargify's latency and errors, no limit when {@code null}
+   */
+  private AdaptiveConcurrencyLimit concurrencyLimit;
+}
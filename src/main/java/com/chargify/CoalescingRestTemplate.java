@@ -0,0 +1,112 @@
+package com.chargify;
+
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link RestTemplate} that sends a GET only once while an identical one (same expanded URI and response type) is
+ * in flight. Callers arriving meanwhile wait for that request and get the very same deserialized response, or the
+ * same exception. Nothing is kept once the request completes, so this is not a cache.
+ * <p>
+ * {@link #getForObject} is coalesced as is; GETs made through other methods, such as streamed listings, go through
+ * {@link #coalesce} to be coalesced too.
+ */
+final class CoalescingRestTemplate extends RestTemplate
+{
+  private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder gets = new LongAdder();
+  private final LongAdder coalescedGets = new LongAdder();
+
+  CoalescingRestTemplate( List<HttpMessageConverter<?>> messageConverters )
+  {
+    super( messageConverters );
+  }
+
+  @Override
+  public <T> T getForObject( String url, Class<T> responseType, Object... uriVariables )
+  {
+    return getForObject( getUriTemplateHandler().expand( url, uriVariables ), responseType );
+  }
+
+  @Override
+  public <T> T getForObject( String url, Class<T> responseType, Map<String, ?> uriVariables )
+  {
+    return getForObject( getUriTemplateHandler().expand( url, uriVariables ), responseType );
+  }
+
+  @Override
+  public <T> T getForObject( URI url, Class<T> responseType )
+  {
+    return responseType.cast( coalesce( url, responseType, () -> super.getForObject( url, responseType ) ) );
+  }
+
+  /**
+   * Runs the GET {@code get} of {@code url} unless an identical one is in flight, then shares its result instead.
+   *
+   * @param responseKind tells apart GETs of the same URI read into different types, e.g. the response type
+   */
+  @SuppressWarnings( "unchecked" )
+  <T> T coalesce( URI url, Object responseKind, Supplier<T> get )
+  {
+    gets.increment();
+    final Key key = new Key( url, responseKind );
+    final CompletableFuture<Object> request = new CompletableFuture<>();
+    final CompletableFuture<Object> existing = inFlight.putIfAbsent( key, request );
+    if( existing != null )
+    {
+      coalescedGets.increment();
+      return (T) join( existing );
+    }
+
+    try
+    {
+      final T response = get.get();
+      request.complete( response );
+      return response;
+    }
+    catch( RuntimeException | Error e )
+    {
+      // errors too, or the callers waiting for this request would wait forever
+      request.completeExceptionally( e );
+      throw e;
+    }
+    finally
+    {
+      inFlight.remove( key, request );
+    }
+  }
+
+  CoalescingStats stats()
+  {
+    return new CoalescingStats( gets.sum(), coalescedGets.sum() );
+  }
+
+  private static Object join( CompletableFuture<Object> request )
+  {
+    try
+    {
+      return request.join();
+    }
+    catch( CompletionException e )
+    {
+      if( e.getCause() instanceof RuntimeException runtimeException )
+        throw runtimeException;
+      if( e.getCause() instanceof Error error )
+        throw error;
+      throw e;
+    }
+  }
+
+  private record Key( URI uri, Object responseKind )
+  {
+  }
+}
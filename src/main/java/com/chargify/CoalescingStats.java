@@ -0,0 +1,17 @@
+package com.chargify;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public final class CoalescingStats
+{
+  private final long gets;
+  /**
+   * GETs that were answered by an identical request already in flight instead of being sent
+   */
+  private final long coalescedGets;
+}
@@ -0,0 +1,506 @@
+package com.chargify;
+
+import com.chargify.model.Adjustment;
+import com.chargify.model.Allocation;
+import com.chargify.model.AllocationPreview;
+import com.chargify.model.Component;
+import com.chargify.model.ComponentPricePointUpdate;
+import com.chargify.model.ComponentWithPricePoints;
+import com.chargify.model.CreatePaymentProfile;
+import com.chargify.model.CreateSubscription;
+import com.chargify.model.Customer;
+import com.chargify.model.Metadata;
+import com.chargify.model.Migration;
+import com.chargify.model.PaymentProfile;
+import com.chargify.model.PricePoint;
+import com.chargify.model.PricePointUpdate;
+import com.chargify.model.ReferralCode;
+import com.chargify.model.RenewalPreview;
+import com.chargify.model.Subscription;
+import com.chargify.model.SubscriptionCharge;
+import com.chargify.model.SubscriptionChargeResult;
+import com.chargify.model.SubscriptionComponent;
+import com.chargify.model.SubscriptionMetadata;
+import com.chargify.model.SubscriptionProductUpdate;
+import com.chargify.model.SubscriptionReactivationData;
+import com.chargify.model.SubscriptionStatement;
+import com.chargify.model.Transaction;
+import com.chargify.model.UpdatePaymentProfile;
+import com.chargify.model.UpdateSubscription;
+import com.chargify.model.Usage;
+import com.chargify.model.product.Product;
+import com.chargify.model.product.ProductFamily;
+import com.chargify.model.product.ProductPricePoint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * {@link Chargify} that forwards every call to another instance. Decorators extend it and override only the
+ * operations they change.
+ */
+public abstract class ForwardingChargify implements Chargify
+{
+  protected final Chargify delegate;
+
+  protected ForwardingChargify( Chargify delegate )
+  {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public ProductFamily createProductFamily( ProductFamily productFamily )
+  {
+    return delegate.createProductFamily( productFamily );
+  }
+
+  @Override
+  public ProductFamily findProductFamilyById( String id )
+  {
+    return delegate.findProductFamilyById( id );
+  }
+
+  @Override
+  public List<ProductFamily> findAllProductFamilies()
+  {
+    return delegate.findAllProductFamilies();
+  }
+
+  @Override
+  public ProductFamily archiveProductFamilyById( String id )
+  {
+    return delegate.archiveProductFamilyById( id );
+  }
+
+  @Override
+  public Product createProduct( String productFamilyId, Product product )
+  {
+    return delegate.createProduct( productFamilyId, product );
+  }
+
+  @Override
+  public Product findProductById( String id )
+  {
+    return delegate.findProductById( id );
+  }
+
+  @Override
+  public Product findProductByApiHandle( String apiHandle )
+  {
+    return delegate.findProductByApiHandle( apiHandle );
+  }
+
+  @Override
+  public Set<ProductPricePoint> findProductPricePointsByProductId( String productId )
+  {
+    return delegate.findProductPricePointsByProductId( productId );
+  }
+
+  @Override
+  public Set<PricePoint> findComponentPricePoints( int componentId )
+  {
+    return delegate.findComponentPricePoints( componentId );
+  }
+
+  @Override
+  public PricePoint updatePricePoint( int componentId, int pricePointId, PricePointUpdate pricePointUpdate )
+  {
+    return delegate.updatePricePoint( componentId, pricePointId, pricePointUpdate );
+  }
+
+  @Override
+  public List<Product> findAllProducts()
+  {
+    return delegate.findAllProducts();
+  }
+
+  @Override
+  public List<Product> findProductsByProductFamilyId( String productFamilyId )
+  {
+    return delegate.findProductsByProductFamilyId( productFamilyId );
+  }
+
+  @Override
+  public Product archiveProductById( String id )
+  {
+    return delegate.archiveProductById( id );
+  }
+
+  @Override
+  public Subscription createSubscription( CreateSubscription subscription )
+  {
+    return delegate.createSubscription( subscription );
+  }
+
+  @Override
+  public void updateSubscription( String subscriptionId, UpdateSubscription subscription )
+  {
+    delegate.updateSubscription( subscriptionId, subscription );
+  }
+
+  @Override
+  public void updateSubscriptionNextBillingDate( String subscriptionId, LocalDateTime nextBillingDate )
+  {
+    delegate.updateSubscriptionNextBillingDate( subscriptionId, nextBillingDate );
+  }
+
+  @Override
+  public SubscriptionChargeResult createSubscriptionCharge( String subscriptionId,
+                                                            SubscriptionCharge subscriptionCharge )
+  {
+    return delegate.createSubscriptionCharge( subscriptionId, subscriptionCharge );
+  }
+
+  @Override
+  public Subscription findSubscriptionById( String id )
+  {
+    return delegate.findSubscriptionById( id );
+  }
+
+  @Override
+  public List<PaymentProfile> findPaymentProfilesForCustomer( String customerId )
+  {
+    return delegate.findPaymentProfilesForCustomer( customerId );
+  }
+
+  @Override
+  public PaymentProfile createPaymentProfile( CreatePaymentProfile paymentProfile )
+  {
+    return delegate.createPaymentProfile( paymentProfile );
+  }
+
+  @Override
+  public void updatePaymentProfile( String paymentProfileId, UpdatePaymentProfile paymentProfile )
+  {
+    delegate.updatePaymentProfile( paymentProfileId, paymentProfile );
+  }
+
+  @Override
+  public PaymentProfile updateSubscriptionPaymentProfile( String subscriptionId, String paymentProfileId )
+  {
+    return delegate.updateSubscriptionPaymentProfile( subscriptionId, paymentProfileId );
+  }
+
+  @Override
+  public PaymentProfile findPaymentProfileById( String paymentProfileId )
+  {
+    return delegate.findPaymentProfileById( paymentProfileId );
+  }
+
+  @Override
+  public void deleteUnusedPaymentProfile( String paymentProfileId )
+  {
+    delegate.deleteUnusedPaymentProfile( paymentProfileId );
+  }
+
+  @Override
+  public void deletePaymentProfile( String subscriptionId, String paymentProfileId )
+  {
+    delegate.deletePaymentProfile( subscriptionId, paymentProfileId );
+  }
+
+  @Override
+  public List<Subscription> findSubscriptionsByCustomerId( String customerId )
+  {
+    return delegate.findSubscriptionsByCustomerId( customerId );
+  }
+
+  @Override
+  public List<Subscription> findSubscriptionsByCustomerId( String customerId, int pageNumber, int pageSize )
+  {
+    return delegate.findSubscriptionsByCustomerId( customerId, pageNumber, pageSize );
+  }
+
+  @Override
+  public List<Subscription> findAllSubscriptions()
+  {
+    return delegate.findAllSubscriptions();
+  }
+
+  @Override
+  public List<Subscription> findSubscriptions( int pageNumber, int pageSize )
+  {
+    return delegate.findSubscriptions( pageNumber, pageSize );
+  }
+
+  @Override
+  public int forEachSubscription( int pageNumber, int pageSize, Consumer<? super Subscription> consumer )
+  {
+    return delegate.forEachSubscription( pageNumber, pageSize, consumer );
+  }
+
+  @Override
+  public List<ProjectedRecord> findSubscriptions( int pageNumber, int pageSize, Projection projection )
+  {
+    return delegate.findSubscriptions( pageNumber, pageSize, projection );
+  }
+
+  @Override
+  public Subscription purgeSubscription( Subscription subscription )
+  {
+    return delegate.purgeSubscription( subscription );
+  }
+
+  @Override
+  public List<Subscription> findSubscriptionsByState( String state, int pageNumber, int pageSize )
+  {
+    return delegate.findSubscriptionsByState( state, pageNumber, pageSize );
+  }
+
+  @Override
+  public int forEachSubscriptionByState( String state, int pageNumber, int pageSize,
+                                         Consumer<? super Subscription> consumer )
+  {
+    return delegate.forEachSubscriptionByState( state, pageNumber, pageSize, consumer );
+  }
+
+  @Override
+  public List<ProjectedRecord> findSubscriptionsByState( String state, int pageNumber, int pageSize,
+                                                         Projection projection )
+  {
+    return delegate.findSubscriptionsByState( state, pageNumber, pageSize, projection );
+  }
+
+  @Override
+  public List<Subscription> findSubscriptionsByStateAndMetadata( String state,
+                                                                 Map<String, String> metadata,
+                                                                 int pageNumber,
+                                                                 int pageSize )
+  {
+    return delegate.findSubscriptionsByStateAndMetadata( state, metadata, pageNumber, pageSize );
+  }
+
+  @Override
+  public Subscription cancelSubscriptionById( String id )
+  {
+    return delegate.cancelSubscriptionById( id );
+  }
+
+  @Override
+  public Subscription cancelSubscriptionProductChange( String subscriptionId )
+  {
+    return delegate.cancelSubscriptionProductChange( subscriptionId );
+  }
+
+  @Override
+  public Subscription migrateSubscription( String subscriptionId, Migration migration )
+  {
+    return delegate.migrateSubscription( subscriptionId, migration );
+  }
+
+  @Override
+  public Subscription reactivateSubscription( String subscriptionId, boolean preserveBalance )
+  {
+    return delegate.reactivateSubscription( subscriptionId, preserveBalance );
+  }
+
+  @Override
+  public Subscription reactivateSubscription( String subscriptionId, SubscriptionReactivationData reactivationData )
+  {
+    return delegate.reactivateSubscription( subscriptionId, reactivationData );
+  }
+
+  @Override
+  public ComponentPricePointUpdate migrateSubscriptionComponentToPricePoint( String subscriptionId,
+                                                                             int componentId,
+                                                                             String pricePointHandle )
+  {
+    return delegate.migrateSubscriptionComponentToPricePoint( subscriptionId, componentId, pricePointHandle );
+  }
+
+  @Override
+  public List<ComponentPricePointUpdate> bulkUpdateSubscriptionComponentPricePoint( String subscriptionId,
+                                                                                    List<ComponentPricePointUpdate> items )
+  {
+    return delegate.bulkUpdateSubscriptionComponentPricePoint( subscriptionId, items );
+  }
+
+  @Override
+  public Subscription cancelScheduledSubscriptionProductChange( String subscriptionId )
+  {
+    return delegate.cancelScheduledSubscriptionProductChange( subscriptionId );
+  }
+
+  @Override
+  public Subscription changeSubscriptionProduct( String subscriptionId, SubscriptionProductUpdate payload )
+  {
+    return delegate.changeSubscriptionProduct( subscriptionId, payload );
+  }
+
+  @Override
+  public RenewalPreview previewSubscriptionRenewal( String subscriptionId )
+  {
+    return delegate.previewSubscriptionRenewal( subscriptionId );
+  }
+
+  @Override
+  public List<Metadata> createSubscriptionMetadata( String subscriptionId, Metadata... metadata )
+  {
+    return delegate.createSubscriptionMetadata( subscriptionId, metadata );
+  }
+
+  @Override
+  public SubscriptionMetadata readSubscriptionMetadata( String subscriptionId )
+  {
+    return delegate.readSubscriptionMetadata( subscriptionId );
+  }
+
+  @Override
+  public List<Metadata> updateSubscriptionMetadata( String subscriptionId, Metadata... metadata )
+  {
+    return delegate.updateSubscriptionMetadata( subscriptionId, metadata );
+  }
+
+  @Override
+  public Component createComponent( String productFamilyId, Component component )
+  {
+    return delegate.createComponent( productFamilyId, component );
+  }
+
+  @Override
+  public Allocation createComponentAllocation( String subscriptionId, int componentId, Allocation allocation )
+  {
+    return delegate.createComponentAllocation( subscriptionId, componentId, allocation );
+  }
+
+  @Override
+  public AllocationPreview previewComponentAllocation( String subscriptionId, int componentId, int quantity )
+  {
+    return delegate.previewComponentAllocation( subscriptionId, componentId, quantity );
+  }
+
+  @Override
+  public List<Component> findComponentsByProductFamily( String productFamilyId )
+  {
+    return delegate.findComponentsByProductFamily( productFamilyId );
+  }
+
+  @Override
+  public Component findComponentByIdAndProductFamily( int componentId, String productFamilyId )
+  {
+    return delegate.findComponentByIdAndProductFamily( componentId, productFamilyId );
+  }
+
+  @Override
+  public ComponentWithPricePoints findComponentWithPricePointsByIdAndProductFamily( int componentId,
+                                                                                    String productFamilyId )
+  {
+    return delegate.findComponentWithPricePointsByIdAndProductFamily( componentId, productFamilyId );
+  }
+
+  @Override
+  public List<SubscriptionComponent> findSubscriptionComponents( String subscriptionId )
+  {
+    return delegate.findSubscriptionComponents( subscriptionId );
+  }
+
+  @Override
+  public List<SubscriptionStatement> findSubscriptionStatements( String subscriptionId,
+                                                                 int page,
+                                                                 int pageSize,
+                                                                 String sort,
+                                                                 String direction )
+  {
+    return delegate.findSubscriptionStatements( subscriptionId, page, pageSize, sort, direction );
+  }
+
+  @Override
+  public List<Transaction> findSubscriptionTransactions( String subscriptionId,
+                                                         SubscriptionTransactionsSearchOptions options )
+  {
+    return delegate.findSubscriptionTransactions( subscriptionId, options );
+  }
+
+  @Override
+  public SubscriptionComponent findSubscriptionComponentById( String subscriptionId, int componentId )
+  {
+    return delegate.findSubscriptionComponentById( subscriptionId, componentId );
+  }
+
+  @Override
+  public Usage reportSubscriptionComponentUsage( String subscriptionId, int componentId, Usage usage )
+  {
+    return delegate.reportSubscriptionComponentUsage( subscriptionId, componentId, usage );
+  }
+
+  @Override
+  public Customer createCustomer( Customer customer )
+  {
+    return delegate.createCustomer( customer );
+  }
+
+  @Override
+  public Customer updateCustomer( Customer customer )
+  {
+    return delegate.updateCustomer( customer );
+  }
+
+  @Override
+  public Customer findCustomerById( String id )
+  {
+    return delegate.findCustomerById( id );
+  }
+
+  @Override
+  public Customer findCustomerByReference( String reference )
+  {
+    return delegate.findCustomerByReference( reference );
+  }
+
+  @Override
+  public Subscription findSubscriptionByReference( String reference )
+  {
+    return delegate.findSubscriptionByReference( reference );
+  }
+
+  @Override
+  public List<Customer> findCustomersBy( Object criterion, int pageNumber )
+  {
+    return delegate.findCustomersBy( criterion, pageNumber );
+  }
+
+  @Override
+  public List<Customer> findAllCustomers()
+  {
+    return delegate.findAllCustomers();
+  }
+
+  @Override
+  public List<Customer> findCustomers( int pageNumber, int perPage )
+  {
+    return delegate.findCustomers( pageNumber, perPage );
+  }
+
+  @Override
+  public int forEachCustomer( int pageNumber, int perPage, Consumer<? super Customer> consumer )
+  {
+    return delegate.forEachCustomer( pageNumber, perPage, consumer );
+  }
+
+  @Override
+  public List<ProjectedRecord> findCustomers( int pageNumber, int perPage, Projection projection )
+  {
+    return delegate.findCustomers( pageNumber, perPage, projection );
+  }
+
+  @Override
+  public void deleteCustomerById( String id )
+  {
+    delegate.deleteCustomerById( id );
+  }
+
+  @Override
+  public ReferralCode validateReferralCode( String code )
+  {
+    return delegate.validateReferralCode( code );
+  }
+
+  @Override
+  public Adjustment adjust( String subscriptionId, Adjustment adjustment )
+  {
+    return delegate.adjust( subscriptionId, adjustment );
+  }
+}
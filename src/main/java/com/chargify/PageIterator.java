@@ -0,0 +1,67 @@
+package com.chargify;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over a paged Chargify listing, requesting the next page only when the current one is consumed.
+ * Only one page is held at a time; iteration stops after the first page shorter than the page size.
+ */
+public final class PageIterator<T> implements Iterator<T>
+{
+  private final IntFunction<List<T>> pageLoader;
+  private final int pageSize;
+  private int nextPage;
+  private boolean lastPageLoaded;
+  private Iterator<T> currentPage = Collections.emptyIterator();
+
+  /**
+   * @param pageLoader loads the page with the given number
+   * @param firstPage  number of the first page to load, Chargify pages start from 1
+   * @param pageSize   page size the loader requests
+   */
+  public PageIterator( IntFunction<List<T>> pageLoader, int firstPage, int pageSize )
+  {
+    if( pageSize < 1 )
+      throw new IllegalArgumentException( "Page size must be positive" );
+
+    this.pageLoader = pageLoader;
+    this.nextPage = firstPage;
+    this.pageSize = pageSize;
+  }
+
+  public static <T> Stream<T> stream( IntFunction<List<T>> pageLoader, int firstPage, int pageSize )
+  {
+    return StreamSupport.stream( Spliterators.spliteratorUnknownSize(
+        new PageIterator<>( pageLoader, firstPage, pageSize ), Spliterator.ORDERED | Spliterator.NONNULL ), false );
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    while( !currentPage.hasNext() && !lastPageLoaded )
+    {
+      final List<T> page = pageLoader.apply( nextPage++ );
+      lastPageLoaded = page.size() < pageSize;
+      currentPage = page.iterator();
+    }
+
+    return currentPage.hasNext();
+  }
+
+  @Override
+  public T next()
+  {
+    if( !hasNext() )
+      throw new NoSuchElementException();
+
+    return currentPage.next();
+  }
+}
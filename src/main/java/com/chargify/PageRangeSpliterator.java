@@ -0,0 +1,139 @@
+package com.chargify;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterator over a known range of pages of a Chargify listing. Splitting hands half of the pages not fetched yet
+ * to the new spliterator, so a parallel stream fetches and processes disjoint page ranges on the fork-join pool.
+ * <p>
+ * Chargify listings don't report their size, use {@link #probeTotalPages(IntFunction, int)} when it isn't known.
+ */
+public final class PageRangeSpliterator<T> implements Spliterator<T>
+{
+  private final IntFunction<List<T>> pageLoader;
+  private final int pageSize;
+  private Iterator<T> currentPage;
+  private int nextPage;
+  private int endPage;
+
+  /**
+   * @param firstPage first page of the range, Chargify pages start from 1
+   * @param endPage   page after the last one of the range
+   */
+  public PageRangeSpliterator( IntFunction<List<T>> pageLoader, int pageSize, int firstPage, int endPage )
+  {
+    this( pageLoader, pageSize, Collections.emptyIterator(), firstPage, endPage );
+  }
+
+  private PageRangeSpliterator( IntFunction<List<T>> pageLoader, int pageSize, Iterator<T> currentPage,
+                                int nextPage, int endPage )
+  {
+    if( pageSize < 1 )
+      throw new IllegalArgumentException( "Page size must be positive" );
+
+    this.pageLoader = pageLoader;
+    this.pageSize = pageSize;
+    this.currentPage = currentPage;
+    this.nextPage = nextPage;
+    this.endPage = endPage;
+  }
+
+  /**
+   * Parallel stream over all pages of the listing, probing its size first
+   */
+  public static <T> Stream<T> parallelStream( IntFunction<List<T>> pageLoader, int pageSize )
+  {
+    return parallelStream( pageLoader, pageSize, probeTotalPages( pageLoader, pageSize ) );
+  }
+
+  public static <T> Stream<T> parallelStream( IntFunction<List<T>> pageLoader, int pageSize, int totalPages )
+  {
+    return StreamSupport.stream( new PageRangeSpliterator<>( pageLoader, pageSize, 1, totalPages + 1 ), true );
+  }
+
+  /**
+   * Finds the number of non-empty pages with an exponential then a binary search, in O(log(pages)) page requests.
+   */
+  public static <T> int probeTotalPages( IntFunction<List<T>> pageLoader, int pageSize )
+  {
+    int lastFull = 0;
+    int probe = 1;
+    int size;
+    while( ( size = pageLoader.apply( probe ).size() ) >= pageSize )
+    {
+      lastFull = probe;
+      probe *= 2;
+    }
+    if( size > 0 )
+      return probe;
+
+    // the last non-empty page lies in (lastFull, probe)
+    int low = lastFull;
+    int high = probe;
+    while( high - low > 1 )
+    {
+      final int middle = ( low + high ) >>> 1;
+      size = pageLoader.apply( middle ).size();
+      if( size == 0 )
+        high = middle;
+      else if( size < pageSize )
+        return middle;
+      else
+        low = middle;
+    }
+    return low;
+  }
+
+  @Override
+  public boolean tryAdvance( Consumer<? super T> action )
+  {
+    while( !currentPage.hasNext() )
+    {
+      if( nextPage >= endPage )
+        return false;
+
+      final List<T> page = pageLoader.apply( nextPage++ );
+      if( page.size() < pageSize )
+        endPage = nextPage; // the listing shrank since the range was computed
+      currentPage = page.iterator();
+    }
+
+    action.accept( currentPage.next() );
+    return true;
+  }
+
+  @Override
+  public Spliterator<T> trySplit()
+  {
+    final int remainingPages = endPage - nextPage;
+    if( remainingPages < 2 )
+      return null;
+
+    // the prefix keeps the partially consumed page, as an ordered split must
+    final int middle = nextPage + remainingPages / 2;
+    final PageRangeSpliterator<T> prefix =
+        new PageRangeSpliterator<>( pageLoader, pageSize, currentPage, nextPage, middle );
+    currentPage = Collections.emptyIterator();
+    nextPage = middle;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize()
+  {
+    return (long) ( endPage - nextPage ) * pageSize + ( currentPage.hasNext() ? pageSize : 0 );
+  }
+
+  @Override
+  public int characteristics()
+  {
+    return ORDERED | NONNULL;
+  }
+}
@@ -0,0 +1,150 @@
+package com.chargify;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Like {@link PageIterator}, but keeps up to {@code prefetchPages} pages requested ahead of the consumer, so that
+ * network latency and deserialization of the next pages overlap with processing of the current one.
+ * <p>
+ * At most {@code prefetchPages} pages are buffered or in flight: a new page is requested only when the consumer
+ * takes one from the buffer. Items come out in page order. Up to {@code prefetchPages - 1} requests past the last
+ * page may be sent before the end of the listing is known; they are cancelled once it is.
+ * <p>
+ * Close the iterator (or the stream) when abandoning it before the end to stop the outstanding requests.
+ */
+public final class PrefetchingPageIterator<T> implements Iterator<T>, AutoCloseable
+{
+  private final IntFunction<List<T>> pageLoader;
+  private final int pageSize;
+  private final int prefetchPages;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final Deque<Future<List<T>>> pages = new ArrayDeque<>();
+  private int nextPageToRequest;
+  private boolean lastPageLoaded;
+  private Iterator<T> currentPage = Collections.emptyIterator();
+
+  /**
+   * @param executor runs the page loads; it must have at least {@code prefetchPages} threads for full overlap
+   */
+  public PrefetchingPageIterator( IntFunction<List<T>> pageLoader, int firstPage, int pageSize, int prefetchPages,
+                                  ExecutorService executor )
+  {
+    this( pageLoader, firstPage, pageSize, prefetchPages, executor, false );
+  }
+
+  public PrefetchingPageIterator( IntFunction<List<T>> pageLoader, int firstPage, int pageSize, int prefetchPages )
+  {
+    this( pageLoader, firstPage, pageSize, prefetchPages, Executors.newFixedThreadPool( prefetchPages, runnable -> {
+      Thread thread = new Thread( runnable, "chargify-page-prefetch" );
+      thread.setDaemon( true );
+      return thread;
+    } ), true );
+  }
+
+  private PrefetchingPageIterator( IntFunction<List<T>> pageLoader, int firstPage, int pageSize, int prefetchPages,
+                                   ExecutorService executor, boolean ownsExecutor )
+  {
+    if( pageSize < 1 )
+      throw new IllegalArgumentException( "Page size must be positive" );
+    if( prefetchPages < 1 )
+      throw new IllegalArgumentException( "Prefetch pages must be positive" );
+
+    this.pageLoader = pageLoader;
+    this.pageSize = pageSize;
+    this.prefetchPages = prefetchPages;
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.nextPageToRequest = firstPage;
+  }
+
+  public static <T> Stream<T> stream( IntFunction<List<T>> pageLoader, int firstPage, int pageSize, int prefetchPages )
+  {
+    return stream( new PrefetchingPageIterator<>( pageLoader, firstPage, pageSize, prefetchPages ) );
+  }
+
+  public static <T> Stream<T> stream( PrefetchingPageIterator<T> iterator )
+  {
+    return StreamSupport.stream( Spliterators.spliteratorUnknownSize(
+            iterator, Spliterator.ORDERED | Spliterator.NONNULL ), false )
+        .onClose( iterator::close );
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    while( !currentPage.hasNext() && !lastPageLoaded )
+    {
+      requestPages();
+      final List<T> page = await( pages.removeFirst() );
+      currentPage = page.iterator();
+      if( page.size() < pageSize )
+        close();
+    }
+
+    return currentPage.hasNext();
+  }
+
+  @Override
+  public T next()
+  {
+    if( !hasNext() )
+      throw new NoSuchElementException();
+
+    return currentPage.next();
+  }
+
+  @Override
+  public void close()
+  {
+    lastPageLoaded = true;
+    pages.forEach( page -> page.cancel( true ) );
+    pages.clear();
+    if( ownsExecutor )
+      executor.shutdownNow();
+  }
+
+  private void requestPages()
+  {
+    while( pages.size() < prefetchPages )
+    {
+      final int pageNumber = nextPageToRequest++;
+      pages.addLast( executor.submit( () -> pageLoader.apply( pageNumber ) ) );
+    }
+  }
+
+  private List<T> await( Future<List<T>> page )
+  {
+    try
+    {
+      return page.get();
+    }
+    catch( InterruptedException e )
+    {
+      close();
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException( "Interrupted while waiting for a page", e );
+    }
+    catch( ExecutionException e )
+    {
+      close();
+      if( e.getCause() instanceof RuntimeException runtimeException )
+        throw runtimeException;
+      throw new IllegalStateException( e.getCause() );
+    }
+  }
+}
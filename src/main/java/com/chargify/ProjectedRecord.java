@@ -0,0 +1,82 @@
+package com.chargify;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lightweight view of a Chargify object read with a {@link Projection}. Only the text of the projected fields is
+ * kept; the typed getters convert it on every call. Asking for a field that isn't projected fails, while a field
+ * that is projected but missing or {@code null} in the response reads as {@code null}.
+ */
+public final class ProjectedRecord
+{
+  private final Projection projection;
+  private final String[] values;
+
+  ProjectedRecord( Projection projection, String[] values )
+  {
+    this.projection = projection;
+    this.values = values;
+  }
+
+  public String get( String field )
+  {
+    return values[ projection.indexOf( field ) ];
+  }
+
+  public Integer getInteger( String field )
+  {
+    final String value = get( field );
+    return value == null ? null : Integer.valueOf( value );
+  }
+
+  public Long getLong( String field )
+  {
+    final String value = get( field );
+    return value == null ? null : Long.valueOf( value );
+  }
+
+  public Boolean getBoolean( String field )
+  {
+    final String value = get( field );
+    return value == null ? null : Boolean.valueOf( value );
+  }
+
+  public ZonedDateTime getZonedDateTime( String field )
+  {
+    final String value = get( field );
+    return value == null ? null : ZonedDateTime.parse( value );
+  }
+
+  /**
+   * @return the projected fields and their text, in projection order
+   */
+  public Map<String, String> asMap()
+  {
+    final Map<String, String> map = new LinkedHashMap<>();
+    for( int i = 0; i < values.length; i++ )
+      map.put( projection.getFields().get( i ), values[ i ] );
+    return map;
+  }
+
+  @Override
+  public boolean equals( Object o )
+  {
+    return o instanceof ProjectedRecord other
+        && projection.getFields().equals( other.projection.getFields() ) && Arrays.equals( values, other.values );
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return Arrays.hashCode( values );
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ProjectedRecord" + asMap();
+  }
+}
@@ -0,0 +1,130 @@
+package com.chargify;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fields of a Chargify object a caller needs, named as in Chargify's JSON, with dots for nested objects:
+ * {@code Projection.of( "id", "state", "current_period_ends_at", "product.handle" )}.
+ * <p>
+ * Reading with a projection keeps the text of the named fields and skips every other subtree at the token level,
+ * without building model objects, dates or collections for it. Values are converted only when read from the
+ * resulting {@link ProjectedRecord}.
+ */
+public final class Projection
+{
+  private final List<String> fields;
+  private final Node root = new Node();
+
+  private Projection( List<String> fields )
+  {
+    this.fields = fields;
+    for( int i = 0; i < fields.size(); i++ )
+    {
+      Node node = root;
+      final String[] path = fields.get( i ).split( "\\." );
+      for( int depth = 0; depth < path.length - 1; depth++ )
+      {
+        if( node.leaves.containsKey( path[ depth ] ) )
+          throw new IllegalArgumentException( "Field " + fields.get( i ) + " is inside another projected field" );
+        node = node.children.computeIfAbsent( path[ depth ], name -> new Node() );
+      }
+
+      final String name = path[ path.length - 1 ];
+      if( node.children.containsKey( name ) || node.leaves.putIfAbsent( name, i ) != null )
+        throw new IllegalArgumentException( "Field " + fields.get( i ) + " is projected twice" );
+    }
+  }
+
+  public static Projection of( String... fields )
+  {
+    if( fields.length == 0 )
+      throw new IllegalArgumentException( "Projection must have fields" );
+
+    return new Projection( List.of( fields ) );
+  }
+
+  public List<String> getFields()
+  {
+    return fields;
+  }
+
+  int indexOf( String field )
+  {
+    final int index = fields.indexOf( field );
+    if( index < 0 )
+      throw new IllegalArgumentException( "Field " + field + " is not projected" );
+    return index;
+  }
+
+  /**
+   * Reads the object the parser is at, leaving the parser at its end
+   *
+   * @return {@code null} when the value is {@code null}
+   */
+  ProjectedRecord read( JsonParser parser ) throws IOException
+  {
+    if( parser.currentToken() == JsonToken.VALUE_NULL )
+      return null;
+
+    final String[] values = new String[ fields.size() ];
+    read( parser, root, values );
+    return new ProjectedRecord( this, values );
+  }
+
+  /**
+   * Projects objects that were already read, through their JSON form
+   */
+  <T> List<ProjectedRecord> project( List<T> objects )
+  {
+    return objects.stream().map( object -> {
+      try( JsonParser parser = ChargifyJson.objectMapper().treeAsTokens(
+          ChargifyJson.objectMapper().valueToTree( object ) ) )
+      {
+        parser.nextToken();
+        return read( parser );
+      }
+      catch( IOException e )
+      {
+        throw new UncheckedIOException( e );
+      }
+    } ).toList();
+  }
+
+  private static void read( JsonParser parser, Node node, String[] values ) throws IOException
+  {
+    if( parser.currentToken() != JsonToken.START_OBJECT )
+    {
+      parser.skipChildren();
+      return;
+    }
+
+    while( parser.nextToken() == JsonToken.FIELD_NAME )
+    {
+      final String name = parser.currentName();
+      final JsonToken value = parser.nextToken();
+      final Integer index = node.leaves.get( name );
+      final Node child = node.children.get( name );
+      if( index != null && value == JsonToken.VALUE_NULL )
+        values[ index ] = null;
+      else if( index != null )
+        values[ index ] = value.isScalarValue() ? parser.getText() : parser.readValueAsTree().toString();
+      else if( child != null )
+        read( parser, child, values );
+      else
+        parser.skipChildren();
+    }
+  }
+
+  private static final class Node
+  {
+    private final Map<String, Integer> leaves = new HashMap<>();
+    private final Map<String, Node> children = new HashMap<>();
+  }
+}
@@ -7,7 +7,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Getter
-@Builder
+@Builder( toBuilder = true )
 public class SubscriptionTransactionsSearchOptions
 {
   @Builder.Default
@@ -0,0 +1,77 @@
+package com.chargify;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads a Chargify listing, an array of single-field wrappers like {@code [{"subscription":{...}}, ...]}, token by
+ * token. Each element is unwrapped and handed to the consumer as soon as it is parsed, so neither the wrapper array
+ * nor a second copy of the page is ever built and only one element is held at a time.
+ */
+final class WrappedArrayReader<T>
+{
+  private final String wrapperField;
+  private final ElementReader<T> elementReader;
+
+  /**
+   * @param wrapperField name of the field every array element wraps its value in, e.g. {@code subscription}
+   */
+  WrappedArrayReader( String wrapperField, Class<T> elementType )
+  {
+    this( wrapperField, ChargifyJson.reader( elementType )::readValue );
+  }
+
+  /**
+   * @param elementReader reads the unwrapped value the parser is at, leaving the parser at its last token
+   */
+  WrappedArrayReader( String wrapperField, ElementReader<T> elementReader )
+  {
+    this.wrapperField = wrapperField;
+    this.elementReader = elementReader;
+  }
+
+  /**
+   * @return number of elements read
+   */
+  int read( InputStream body, Consumer<? super T> consumer ) throws IOException
+  {
+    try( JsonParser parser = ChargifyJson.objectMapper().createParser( body ) )
+    {
+      final JsonToken first = parser.nextToken();
+      if( first == null )
+        return 0;
+      if( first != JsonToken.START_ARRAY )
+        throw MismatchedInputException.from( parser, Object[].class, "Expected an array of " + wrapperField + "s" );
+
+      int count = 0;
+      while( parser.nextToken() == JsonToken.START_OBJECT )
+      {
+        T element = null;
+        while( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+          final boolean wrapped = wrapperField.equals( parser.currentName() );
+          parser.nextToken();
+          if( wrapped )
+            element = elementReader.read( parser );
+          else
+            parser.skipChildren();
+        }
+
+        consumer.accept( element );
+        count++;
+      }
+      return count;
+    }
+  }
+
+  @FunctionalInterface
+  interface ElementReader<T>
+  {
+    T read( JsonParser parser ) throws IOException;
+  }
+}
@@ -0,0 +1,27 @@
+package com.chargify.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public final class CacheStats
+{
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  /**
+   * Misses that waited for a load already in progress instead of starting another one
+   */
+  private final long collapsedLoads;
+  private final long refreshes;
+  private final int size;
+
+  public double getHitRate()
+  {
+    final long requests = hits + misses;
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+}
@@ -0,0 +1,241 @@
+package com.chargify.cache;
+
+import com.chargify.Chargify;
+import com.chargify.ForwardingChargify;
+import com.chargify.model.product.Product;
+import com.chargify.model.product.ProductFamily;
+import com.chargify.model.product.ProductPricePoint;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the product catalog (product families, products and product price points) in memory for a while, so that
+ * resolving a product by id or API handle doesn't cost a Chargify call every time. Everything else is forwarded as is.
+ * <p>
+ * Products are cached by id and by API handle, product families by id (Chargify has no lookup of families by
+ * handle). Concurrent misses for the same key wait for a single load. Creating or archiving them through this
+ * instance writes the result into the cache and drops the listings it affects; changes made elsewhere show up once
+ * entries expire or after {@link #invalidateAll()}.
+ * <p>
+ * Cached objects are shared between callers and must not be modified. Cached lists and sets are unmodifiable.
+ */
+public final class CachingChargify extends ForwardingChargify
+{
+  private static final String ALL = "*";
+
+  private final TtlCache<String, ProductFamily> productFamiliesById;
+  private final TtlCache<String, List<ProductFamily>> productFamilyLists;
+  private final TtlCache<String, Product> productsById;
+  private final TtlCache<String, Product> productsByHandle;
+  private final TtlCache<String, List<Product>> productLists;
+  private final TtlCache<String, Set<ProductPricePoint>> productPricePoints;
+
+  public CachingChargify( Chargify delegate )
+  {
+    this( delegate, 1000, Duration.ofMinutes( 10 ) );
+  }
+
+  /**
+   * @param maxSize max number of entries in each of the caches
+   * @param ttl     how long an entry is used after it was loaded
+   */
+  public CachingChargify( Chargify delegate, int maxSize, Duration ttl )
+  {
+    this( delegate, maxSize, ttl, Clock.systemUTC() );
+  }
+
+  CachingChargify( Chargify delegate, int maxSize, Duration ttl, Clock clock )
+  {
+    super( delegate );
+    this.productFamiliesById = new TtlCache<>( maxSize, ttl, clock );
+    this.productFamilyLists = new TtlCache<>( maxSize, ttl, clock );
+    this.productsById = new TtlCache<>( maxSize, ttl, clock );
+    this.productsByHandle = new TtlCache<>( maxSize, ttl, clock );
+    this.productLists = new TtlCache<>( maxSize, ttl, clock );
+    this.productPricePoints = new TtlCache<>( maxSize, ttl, clock );
+  }
+
+  @Override
+  public ProductFamily createProductFamily( ProductFamily productFamily )
+  {
+    final ProductFamily created = delegate.createProductFamily( productFamily );
+    productFamiliesById.put( created.getId(), created );
+    productFamilyLists.invalidateAll();
+    return created;
+  }
+
+  @Override
+  public ProductFamily findProductFamilyById( String id )
+  {
+    return productFamiliesById.get( id, delegate::findProductFamilyById );
+  }
+
+  @Override
+  public List<ProductFamily> findAllProductFamilies()
+  {
+    return productFamilyLists.get( ALL, ignored -> {
+      final long generation = productFamiliesById.generation();
+      final List<ProductFamily> productFamilies = List.copyOf( delegate.findAllProductFamilies() );
+      productFamilies.forEach( productFamily -> productFamiliesById.put( productFamily.getId(), productFamily,
+                                                                         generation ) );
+      return productFamilies;
+    } );
+  }
+
+  @Override
+  public ProductFamily archiveProductFamilyById( String id )
+  {
+    try
+    {
+      return delegate.archiveProductFamilyById( id );
+    }
+    finally
+    {
+      productFamiliesById.invalidate( id );
+      productFamilyLists.invalidateAll();
+      productLists.invalidateAll();
+    }
+  }
+
+  @Override
+  public Product createProduct( String productFamilyId, Product product )
+  {
+    final Product created = delegate.createProduct( productFamilyId, product );
+    cache( created );
+    productLists.invalidate( ALL );
+    productLists.invalidate( productFamilyId );
+    return created;
+  }
+
+  @Override
+  public Product findProductById( String id )
+  {
+    return productsById.get( id, productId -> {
+      final long generation = productsByHandle.generation();
+      final Product product = delegate.findProductById( productId );
+      if( product != null && product.getHandle() != null )
+        productsByHandle.put( product.getHandle(), product, generation );
+      return product;
+    } );
+  }
+
+  @Override
+  public Product findProductByApiHandle( String apiHandle )
+  {
+    return productsByHandle.get( apiHandle, handle -> {
+      final long generation = productsById.generation();
+      final Product product = delegate.findProductByApiHandle( handle );
+      if( product != null )
+        productsById.put( product.getId(), product, generation );
+      return product;
+    } );
+  }
+
+  @Override
+  public Set<ProductPricePoint> findProductPricePointsByProductId( String productId )
+  {
+    return productPricePoints.get( productId, id -> {
+      final Set<ProductPricePoint> pricePoints = delegate.findProductPricePointsByProductId( id );
+      return pricePoints == null ? null : Set.copyOf( pricePoints );
+    } );
+  }
+
+  @Override
+  public List<Product> findAllProducts()
+  {
+    return productLists.get( ALL, ignored -> {
+      final Generations generations = generations();
+      return cache( delegate.findAllProducts(), generations );
+    } );
+  }
+
+  @Override
+  public List<Product> findProductsByProductFamilyId( String productFamilyId )
+  {
+    return productLists.get( productFamilyId, id -> {
+      final Generations generations = generations();
+      return cache( delegate.findProductsByProductFamilyId( id ), generations );
+    } );
+  }
+
+  @Override
+  public Product archiveProductById( String id )
+  {
+    try
+    {
+      return delegate.archiveProductById( id );
+    }
+    finally
+    {
+      productsById.invalidate( id );
+      productsByHandle.invalidateIf( product -> id.equals( product.getId() ) );
+      productPricePoints.invalidate( id );
+      productLists.invalidateAll();
+    }
+  }
+
+  public void invalidateAll()
+  {
+    productFamiliesById.invalidateAll();
+    productFamilyLists.invalidateAll();
+    productsById.invalidateAll();
+    productsByHandle.invalidateAll();
+    productLists.invalidateAll();
+    productPricePoints.invalidateAll();
+  }
+
+  /**
+   * @return statistics of every cache by its name
+   */
+  public Map<String, CacheStats> stats()
+  {
+    final Map<String, CacheStats> stats = new LinkedHashMap<>();
+    stats.put( "productFamiliesById", productFamiliesById.stats() );
+    stats.put( "productFamilyLists", productFamilyLists.stats() );
+    stats.put( "productsById", productsById.stats() );
+    stats.put( "productsByHandle", productsByHandle.stats() );
+    stats.put( "productLists", productLists.stats() );
+    stats.put( "productPricePoints", productPricePoints.stats() );
+    return stats;
+  }
+
+  private Product cache( Product product )
+  {
+    if( product != null )
+    {
+      productsById.put( product.getId(), product );
+      if( product.getHandle() != null )
+        productsByHandle.put( product.getHandle(), product );
+    }
+    return product;
+  }
+
+  /**
+   * Caches the products of a listing unless their entries were invalidated while it was loading
+   */
+  private List<Product> cache( List<Product> products, Generations generations )
+  {
+    final List<Product> copy = List.copyOf( products );
+    for( Product product : copy )
+    {
+      productsById.put( product.getId(), product, generations.byId() );
+      if( product.getHandle() != null )
+        productsByHandle.put( product.getHandle(), product, generations.byHandle() );
+    }
+    return copy;
+  }
+
+  private Generations generations()
+  {
+    return new Generations( productsById.generation(), productsByHandle.generation() );
+  }
+
+  private record Generations( long byId, long byHandle )
+  {
+  }
+}
@@ -0,0 +1,148 @@
+package com.chargify.cache;
+
+import com.chargify.Chargify;
+import com.chargify.ForwardingChargify;
+import com.chargify.model.Component;
+import com.chargify.model.ComponentWithPricePoints;
+import com.chargify.model.PricePoint;
+import com.chargify.model.PricePointUpdate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps components and their price points in memory, so that
+ * {@link #findComponentWithPricePointsByIdAndProductFamily(int, String)} stops costing two Chargify calls on every
+ * invocation. Everything else is forwarded as is.
+ * <p>
+ * Components are cached per product family and component id, component listings per product family and price
+ * points per component id. Concurrent misses for the same key wait for a single load. {@link #updatePricePoint}
+ * and {@link #createComponent} drop the entries they affect.
+ * <p>
+ * Cached objects are shared between callers and must not be modified. Cached lists and sets are unmodifiable.
+ */
+public final class ComponentCachingChargify extends ForwardingChargify
+{
+  private final TtlCache<ComponentKey, Component> components;
+  private final TtlCache<String, List<Component>> componentLists;
+  private final TtlCache<Integer, Set<PricePoint>> pricePoints;
+
+  public ComponentCachingChargify( Chargify delegate )
+  {
+    this( delegate, 1000, Duration.ofMinutes( 10 ) );
+  }
+
+  public ComponentCachingChargify( Chargify delegate, int maxSize, Duration ttl )
+  {
+    this( delegate, maxSize, ttl, null, null, Clock.systemUTC() );
+  }
+
+  /**
+   * @param refreshAfter    age after which an entry that is read gets reloaded on {@code refreshExecutor}, so hot
+   *                        entries are renewed before they expire
+   */
+  public ComponentCachingChargify( Chargify delegate, int maxSize, Duration ttl, Duration refreshAfter,
+                                   Executor refreshExecutor )
+  {
+    this( delegate, maxSize, ttl, refreshAfter, refreshExecutor, Clock.systemUTC() );
+  }
+
+  ComponentCachingChargify( Chargify delegate, int maxSize, Duration ttl, Duration refreshAfter,
+                            Executor refreshExecutor, Clock clock )
+  {
+    super( delegate );
+    this.components = new TtlCache<>( maxSize, ttl, refreshAfter, refreshExecutor, clock );
+    this.componentLists = new TtlCache<>( maxSize, ttl, refreshAfter, refreshExecutor, clock );
+    this.pricePoints = new TtlCache<>( maxSize, ttl, refreshAfter, refreshExecutor, clock );
+  }
+
+  @Override
+  public Set<PricePoint> findComponentPricePoints( int componentId )
+  {
+    return pricePoints.get( componentId, id -> {
+      final Set<PricePoint> loaded = delegate.findComponentPricePoints( id );
+      return loaded == null ? null : Set.copyOf( loaded );
+    } );
+  }
+
+  @Override
+  public PricePoint updatePricePoint( int componentId, int pricePointId, PricePointUpdate pricePointUpdate )
+  {
+    try
+    {
+      return delegate.updatePricePoint( componentId, pricePointId, pricePointUpdate );
+    }
+    finally
+    {
+      pricePoints.invalidate( componentId );
+      components.invalidateIf( component -> component.getId() != null && component.getId() == componentId );
+      componentLists.invalidateAll();
+    }
+  }
+
+  @Override
+  public Component createComponent( String productFamilyId, Component component )
+  {
+    final Component created = delegate.createComponent( productFamilyId, component );
+    componentLists.invalidate( productFamilyId );
+    if( created != null && created.getId() != null )
+      components.put( new ComponentKey( productFamilyId, created.getId() ), created );
+    return created;
+  }
+
+  @Override
+  public List<Component> findComponentsByProductFamily( String productFamilyId )
+  {
+    return componentLists.get( productFamilyId, id -> {
+      final long generation = components.generation();
+      final List<Component> loaded = List.copyOf( delegate.findComponentsByProductFamily( id ) );
+      loaded.forEach( component -> components.put( new ComponentKey( id, component.getId() ), component,
+                                                   generation ) );
+      return loaded;
+    } );
+  }
+
+  @Override
+  public Component findComponentByIdAndProductFamily( int componentId, String productFamilyId )
+  {
+    return components.get( new ComponentKey( productFamilyId, componentId ),
+                           key -> delegate.findComponentByIdAndProductFamily( key.componentId(),
+                                                                             key.productFamilyId() ) );
+  }
+
+  @Override
+  public ComponentWithPricePoints findComponentWithPricePointsByIdAndProductFamily( int componentId,
+                                                                                    String productFamilyId )
+  {
+    return new ComponentWithPricePoints( findComponentByIdAndProductFamily( componentId, productFamilyId ),
+                                         findComponentPricePoints( componentId ) );
+  }
+
+  public void invalidateAll()
+  {
+    components.invalidateAll();
+    componentLists.invalidateAll();
+    pricePoints.invalidateAll();
+  }
+
+  /**
+   * @return statistics of every cache by its name
+   */
+  public Map<String, CacheStats> stats()
+  {
+    final Map<String, CacheStats> stats = new LinkedHashMap<>();
+    stats.put( "components", components.stats() );
+    stats.put( "componentLists", componentLists.stats() );
+    stats.put( "pricePoints", pricePoints.stats() );
+    return stats;
+  }
+
+  private record ComponentKey( String productFamilyId, Integer componentId )
+  {
+  }
+}
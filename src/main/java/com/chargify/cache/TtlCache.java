@@ -0,0 +1,278 @@
+package com.chargify.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded cache whose entries expire a fixed time after they were written. When full, the least recently used
+ * entry is evicted. {@code null} values are never cached.
+ * <p>
+ * Loads through {@link #get(Object, Function)} are collapsed: while a key is being loaded, other callers missing the
+ * same key wait for that load instead of starting their own. With a refresh executor, an entry read after its
+ * refresh time is reloaded in the background while callers keep getting the current value until it expires.
+ */
+public final class TtlCache<K, V>
+{
+  private final int maxSize;
+  private final long ttlInMillis;
+  private final long refreshAfterInMillis;
+  private final Executor refreshExecutor;
+  private final Clock clock;
+  private final LinkedHashMap<K, Entry<V>> entries;
+  private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder collapsedLoads = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private long generation;
+
+  public TtlCache( int maxSize, Duration ttl )
+  {
+    this( maxSize, ttl, null, null, Clock.systemUTC() );
+  }
+
+  /**
+   * @param refreshAfter    age after which a read entry is reloaded in the background, must be shorter than the ttl
+   * @param refreshExecutor runs the background reloads
+   */
+  public TtlCache( int maxSize, Duration ttl, Duration refreshAfter, Executor refreshExecutor )
+  {
+    this( maxSize, ttl, refreshAfter, refreshExecutor, Clock.systemUTC() );
+  }
+
+  TtlCache( int maxSize, Duration ttl, Clock clock )
+  {
+    this( maxSize, ttl, null, null, clock );
+  }
+
+  TtlCache( int maxSize, Duration ttl, Duration refreshAfter, Executor refreshExecutor, Clock clock )
+  {
+    if( maxSize < 1 )
+      throw new IllegalArgumentException( "Max size must be positive" );
+    if( refreshAfter != null && refreshAfter.compareTo( ttl ) >= 0 )
+      throw new IllegalArgumentException( "Refresh must happen before expiration" );
+
+    this.maxSize = maxSize;
+    this.ttlInMillis = ttl.toMillis();
+    this.refreshAfterInMillis = refreshAfter == null ? Long.MAX_VALUE : refreshAfter.toMillis();
+    this.refreshExecutor = refreshAfter == null ? null : refreshExecutor;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>( 16, 0.75f, true )
+    {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<K, Entry<V>> eldest )
+      {
+        if( size() <= TtlCache.this.maxSize )
+          return false;
+
+        evictions.increment();
+        return true;
+      }
+    };
+  }
+
+  public V get( K key )
+  {
+    final Entry<V> entry = lookup( key );
+    return entry == null ? null : entry.value;
+  }
+
+  /**
+   * Returns the cached value or loads, caches and returns it. The loader runs outside the lock, and at most once
+   * at a time per key.
+   */
+  public V get( K key, Function<K, V> loader )
+  {
+    final Entry<V> entry = lookup( key );
+    if( entry == null )
+      return load( key, loader );
+
+    if( refreshExecutor != null && clock.millis() >= entry.refreshAt )
+      refresh( key, loader );
+    return entry.value;
+  }
+
+  public void put( K key, V value )
+  {
+    final long now = clock.millis();
+    synchronized( this )
+    {
+      if( value == null )
+        entries.remove( key );
+      else
+        entries.put( key, new Entry<>( value, saturatedAdd( now, refreshAfterInMillis ), now + ttlInMillis ) );
+    }
+  }
+
+  /**
+   * Caches the value unless the cache was invalidated after {@code generation} was taken, so that a value loaded
+   * elsewhere doesn't resurrect what was invalidated while it was loading.
+   *
+   * @param generation taken by {@link #generation()} before the value was loaded
+   */
+  public synchronized void put( K key, V value, long generation )
+  {
+    if( generation == this.generation )
+      put( key, value );
+  }
+
+  /**
+   * @return the current generation, changed by every invalidation
+   */
+  public synchronized long generation()
+  {
+    return generation;
+  }
+
+  public synchronized void invalidate( K key )
+  {
+    generation++;
+    entries.remove( key );
+  }
+
+  public synchronized void invalidateIf( Predicate<V> predicate )
+  {
+    generation++;
+    entries.values().removeIf( entry -> predicate.test( entry.value ) );
+  }
+
+  public synchronized void invalidateAll()
+  {
+    generation++;
+    entries.clear();
+  }
+
+  public synchronized int size()
+  {
+    final Iterator<Entry<V>> iterator = entries.values().iterator();
+    while( iterator.hasNext() )
+      if( isExpired( iterator.next() ) )
+        iterator.remove();
+    return entries.size();
+  }
+
+  public CacheStats stats()
+  {
+    return new CacheStats( hits.sum(), misses.sum(), evictions.sum(), collapsedLoads.sum(), refreshes.sum(), size() );
+  }
+
+  private synchronized Entry<V> lookup( K key )
+  {
+    final Entry<V> entry = entries.get( key );
+    if( entry == null || isExpired( entry ) )
+    {
+      if( entry != null )
+        entries.remove( key );
+      misses.increment();
+      return null;
+    }
+
+    hits.increment();
+    return entry;
+  }
+
+  private V load( K key, Function<K, V> loader )
+  {
+    final CompletableFuture<V> load = new CompletableFuture<>();
+    final CompletableFuture<V> inFlight = loading.putIfAbsent( key, load );
+    if( inFlight != null )
+    {
+      collapsedLoads.increment();
+      try
+      {
+        return inFlight.join();
+      }
+      catch( CompletionException e )
+      {
+        if( e.getCause() instanceof RuntimeException runtimeException )
+          throw runtimeException;
+        if( e.getCause() instanceof Error error )
+          throw error;
+        throw e;
+      }
+    }
+
+    try
+    {
+      final V value = loadAndPut( key, loader );
+      load.complete( value );
+      return value;
+    }
+    catch( RuntimeException | Error e )
+    {
+      // errors too, or the callers waiting for this load would wait forever
+      load.completeExceptionally( e );
+      throw e;
+    }
+    finally
+    {
+      loading.remove( key, load );
+    }
+  }
+
+  private void refresh( K key, Function<K, V> loader )
+  {
+    final CompletableFuture<V> load = new CompletableFuture<>();
+    if( loading.putIfAbsent( key, load ) != null )
+      return;
+
+    refreshes.increment();
+    try
+    {
+      refreshExecutor.execute( () -> {
+        try
+        {
+          load.complete( loadAndPut( key, loader ) );
+        }
+        catch( RuntimeException | Error e )
+        {
+          // the current value stays until it expires
+          load.completeExceptionally( e );
+        }
+        finally
+        {
+          loading.remove( key, load );
+        }
+      } );
+    }
+    catch( RuntimeException | Error e )
+    {
+      loading.remove( key, load );
+      load.completeExceptionally( e );
+    }
+  }
+
+  private V loadAndPut( K key, Function<K, V> loader )
+  {
+    final long loadGeneration = generation();
+    final V value = loader.apply( key );
+    put( key, value, loadGeneration );
+    return value;
+  }
+
+  private boolean isExpired( Entry<V> entry )
+  {
+    return entry.expiresAt <= clock.millis();
+  }
+
+  private static long saturatedAdd( long a, long b )
+  {
+    final long sum = a + b;
+    return sum < a ? Long.MAX_VALUE : sum;
+  }
+
+  private record Entry<V>( V value, long refreshAt, long expiresAt )
+  {
+  }
+}
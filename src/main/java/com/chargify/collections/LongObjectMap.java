@@ -0,0 +1,245 @@
+package com.chargify.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Map keyed by primitive {@code long} ids, e.g. subscriptions or transactions by id, for caches and indexes that
+ * would otherwise box every key or hash id strings on every lookup.
+ * <p>
+ * Keys and values sit in two parallel arrays probed linearly from the key's hash, so lookups allocate nothing and
+ * touch adjacent memory. {@code null} values are not allowed, an empty slot is one without a value. Not thread-safe.
+ */
+public final class LongObjectMap<V>
+{
+  private static final int MIN_CAPACITY = 8;
+  private static final float LOAD_FACTOR = 0.6f;
+
+  private long[] keys;
+  private Object[] values;
+  private int mask;
+  private int shift;
+  private int maxSize;
+  private int size;
+
+  public LongObjectMap()
+  {
+    this( MIN_CAPACITY );
+  }
+
+  /**
+   * @param expectedSize number of entries the map holds without resizing
+   */
+  public LongObjectMap( int expectedSize )
+  {
+    if( expectedSize < 0 )
+      throw new IllegalArgumentException( "Expected size must not be negative" );
+
+    allocate( capacityFor( expectedSize ) );
+  }
+
+  /**
+   * @return the values keyed by their id, a later value replacing an earlier one with the same id
+   */
+  public static <V> LongObjectMap<V> index( Collection<? extends V> values, ToLongFunction<? super V> id )
+  {
+    final LongObjectMap<V> index = new LongObjectMap<>( values.size() );
+    for( V value : values )
+      index.put( id.applyAsLong( value ), value );
+    return index;
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  public boolean containsKey( long key )
+  {
+    return values[ find( key ) ] != null;
+  }
+
+  /**
+   * @return the value of the key, {@code null} if there is none
+   */
+  @SuppressWarnings( "unchecked" )
+  public V get( long key )
+  {
+    return (V) values[ find( key ) ];
+  }
+
+  public V getOrDefault( long key, V defaultValue )
+  {
+    final V value = get( key );
+    return value == null ? defaultValue : value;
+  }
+
+  /**
+   * @return the previous value of the key, {@code null} if there was none
+   */
+  @SuppressWarnings( "unchecked" )
+  public V put( long key, V value )
+  {
+    Objects.requireNonNull( value, "value" );
+
+    final int slot = find( key );
+    final V previous = (V) values[ slot ];
+    keys[ slot ] = key;
+    values[ slot ] = value;
+    if( previous == null && ++size > maxSize )
+      allocate( keys.length << 1 );
+    return previous;
+  }
+
+  /**
+   * @return the value of the key, computed and stored first if there is none, or {@code null} if the function returned
+   * {@code null}
+   */
+  public V computeIfAbsent( long key, LongFunction<? extends V> function )
+  {
+    final V value = get( key );
+    if( value != null )
+      return value;
+
+    final V computed = function.apply( key );
+    if( computed != null )
+      put( key, computed );
+    return computed;
+  }
+
+  /**
+   * @return the removed value, {@code null} if there was none
+   */
+  @SuppressWarnings( "unchecked" )
+  public V remove( long key )
+  {
+    int gap = find( key );
+    final V removed = (V) values[ gap ];
+    if( removed == null )
+      return null;
+
+    // shift back the entries probed past the freed slot, so no lookup stops early at it
+    for( int slot = ( gap + 1 ) & mask; values[ slot ] != null; slot = ( slot + 1 ) & mask )
+    {
+      final int home = slot( keys[ slot ] );
+      if( ( ( slot - home ) & mask ) >= ( ( slot - gap ) & mask ) )
+      {
+        keys[ gap ] = keys[ slot ];
+        values[ gap ] = values[ slot ];
+        gap = slot;
+      }
+    }
+    values[ gap ] = null;
+    size--;
+    return removed;
+  }
+
+  public void clear()
+  {
+    Arrays.fill( values, null );
+    size = 0;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  public void forEach( EntryConsumer<? super V> consumer )
+  {
+    for( int slot = 0; slot < values.length; slot++ )
+      if( values[ slot ] != null )
+        consumer.accept( keys[ slot ], (V) values[ slot ] );
+  }
+
+  /**
+   * @return a copy of the keys, in no particular order
+   */
+  public long[] keys()
+  {
+    final long[] copy = new long[ size ];
+    int i = 0;
+    for( int slot = 0; slot < values.length; slot++ )
+      if( values[ slot ] != null )
+        copy[ i++ ] = keys[ slot ];
+    return copy;
+  }
+
+  /**
+   * @return a copy of the values, in no particular order
+   */
+  public List<V> values()
+  {
+    final List<V> copy = new ArrayList<>( size );
+    forEach( ( key, value ) -> copy.add( value ) );
+    return copy;
+  }
+
+  @Override
+  public String toString()
+  {
+    final StringBuilder builder = new StringBuilder( "{" );
+    forEach( ( key, value ) -> builder.append( builder.length() == 1 ? "" : ", " )
+        .append( key ).append( '=' ).append( value ) );
+    return builder.append( '}' ).toString();
+  }
+
+  /**
+   * @return the slot of the key, or the empty slot where it would go
+   */
+  private int find( long key )
+  {
+    int slot = slot( key );
+    while( values[ slot ] != null && keys[ slot ] != key )
+      slot = ( slot + 1 ) & mask;
+    return slot;
+  }
+
+  private int slot( long key )
+  {
+    // Fibonacci hashing spreads sequential ids over the whole table
+    return (int) ( ( key * 0x9E3779B97F4A7C15L ) >>> shift );
+  }
+
+  private void allocate( int capacity )
+  {
+    final long[] oldKeys = keys;
+    final Object[] oldValues = values;
+
+    keys = new long[ capacity ];
+    values = new Object[ capacity ];
+    mask = capacity - 1;
+    shift = Long.numberOfLeadingZeros( mask );
+    maxSize = (int) ( capacity * LOAD_FACTOR );
+
+    if( oldValues != null )
+      for( int i = 0; i < oldValues.length; i++ )
+        if( oldValues[ i ] != null )
+        {
+          final int slot = find( oldKeys[ i ] );
+          keys[ slot ] = oldKeys[ i ];
+          values[ slot ] = oldValues[ i ];
+        }
+  }
+
+  private static int capacityFor( int expectedSize )
+  {
+    final int minCapacity = Math.max( MIN_CAPACITY, (int) Math.ceil( expectedSize / LOAD_FACTOR ) );
+    final int capacity = Integer.highestOneBit( minCapacity - 1 ) << 1;
+    if( capacity <= 0 )
+      throw new IllegalArgumentException( "Expected size is too large: " + expectedSize );
+    return capacity;
+  }
+
+  @FunctionalInterface
+  public interface EntryConsumer<V>
+  {
+    void accept( long key, V value );
+  }
+}
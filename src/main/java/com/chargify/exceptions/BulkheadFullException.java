@@ -0,0 +1,19 @@
+package com.chargify.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown instead of sending a request when its bulkhead has no free slot and its queue is full, or the request
+ * waited in the queue for too long.
+ */
+@Getter
+public class BulkheadFullException extends ChargifyException
+{
+  private final String bulkheadName;
+
+  public BulkheadFullException( String bulkheadName )
+  {
+    super( "Bulkhead '" + bulkheadName + "' is full" );
+    this.bulkheadName = bulkheadName;
+  }
+}
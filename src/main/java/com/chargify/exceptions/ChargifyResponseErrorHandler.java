@@ -1,9 +1,8 @@
 package com.chargify.exceptions;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.chargify.ChargifyJson;
+import com.chargify.resilience.RetryAfter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -17,33 +16,46 @@ import java.net.URI;
 
 public final class ChargifyResponseErrorHandler extends DefaultResponseErrorHandler
 {
-  private static final ObjectMapper objectMapper = new ObjectMapper();
+  @Override
+  protected void handleError( ClientHttpResponse response, HttpStatusCode statusCode, @Nullable URI url, @Nullable HttpMethod method ) throws IOException
+  {
+    throw exceptionFor( statusCode, response.getHeaders().getFirst( HttpHeaders.RETRY_AFTER ), response.getBody() );
+  }
 
-  static {
-    objectMapper.disable( SerializationFeature.WRITE_DATES_AS_TIMESTAMPS );
-    objectMapper.configure( DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    objectMapper.registerModules( new JavaTimeModule() );
+  /**
+   * Maps an unsuccessful Chargify response to the exception the SDK reports for it.
+   * Shared by every client so that blocking and asynchronous calls fail the same way.
+   */
+  public static RuntimeException exceptionFor( HttpStatusCode statusCode, InputStream body ) throws IOException
+  {
+    return exceptionFor( statusCode, null, body );
   }
 
-  @Override
-  protected void handleError( ClientHttpResponse response, HttpStatusCode statusCode, @Nullable URI url, @Nullable HttpMethod method ) throws IOException
+  /**
+   * @param retryAfter value of the {@code Retry-After} response header, if any
+   */
+  public static RuntimeException exceptionFor( HttpStatusCode statusCode, @Nullable String retryAfter,
+                                               InputStream body ) throws IOException
   {
     if( statusCode.is4xxClientError() )
     {
-      if( statusCode == HttpStatus.NOT_FOUND )
-        throw new ResourceNotFoundException();
+      if( statusCode.value() == HttpStatus.TOO_MANY_REQUESTS.value() )
+        return new RateLimitExceededException( "Chargify API rate limit exceeded",
+                                               RetryAfter.toMillis( retryAfter ) );
+      else if( statusCode == HttpStatus.NOT_FOUND )
+        return new ResourceNotFoundException();
       else if( statusCode == HttpStatus.FORBIDDEN ) // TODO: see issue https://chargify.zendesk.com/hc/en-us/requests/69553
-        throw new ChargifyException( readInputStream( response.getBody() ) );
+        return new ChargifyException( readInputStream( body ) );
       else
-        throw objectMapper.readValue( response.getBody(), ChargifyError.class ).exception();
+        return ChargifyJson.reader( ChargifyError.class ).<ChargifyError>readValue( body ).exception();
     }
     else if( statusCode.is5xxServerError() )
-      throw new HttpServerErrorException( statusCode.value(), readInputStream( response.getBody() ) );
+      return new HttpServerErrorException( statusCode.value(), readInputStream( body ) );
     else
-      throw new UnknownHttpStatusCodeException( statusCode.value(), readInputStream( response.getBody() ) );
+      return new UnknownHttpStatusCodeException( statusCode.value(), readInputStream( body ) );
   }
 
-  private String readInputStream( final InputStream stream )
+  private static String readInputStream( final InputStream stream )
   {
     return new java.util.Scanner( stream ).useDelimiter( "\\A" ).next();
   }
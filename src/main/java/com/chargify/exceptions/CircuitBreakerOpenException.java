@@ -0,0 +1,21 @@
+package com.chargify.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker considers Chargify unavailable.
+ */
+@Getter
+public class CircuitBreakerOpenException extends ChargifyException
+{
+  /**
+   * How long the circuit stays open before letting trial requests through
+   */
+  private final long retryAfterInMillis;
+
+  public CircuitBreakerOpenException( long retryAfterInMillis )
+  {
+    super( "Circuit breaker is open, Chargify calls are rejected for " + retryAfterInMillis + " ms" );
+    this.retryAfterInMillis = retryAfterInMillis;
+  }
+}
@@ -0,0 +1,13 @@
+package com.chargify.exceptions;
+
+/**
+ * Thrown instead of sending a request when the adaptive concurrency limit is reached and no queue slot is free, or
+ * the request waited in the queue for too long.
+ */
+public class ConcurrencyLimitExceededException extends ChargifyException
+{
+  public ConcurrencyLimitExceededException( int limit )
+  {
+    super( "Concurrency limit of " + limit + " Chargify calls reached" );
+  }
+}
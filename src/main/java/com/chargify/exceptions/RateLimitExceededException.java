@@ -0,0 +1,22 @@
+package com.chargify.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when Chargify answers 429 Too Many Requests, or when a client side rate limiter refuses to send a request
+ * without waiting.
+ */
+@Getter
+public class RateLimitExceededException extends ChargifyException
+{
+  /**
+   * How long to wait before sending the request again, 0 when unknown
+   */
+  private final long retryAfterInMillis;
+
+  public RateLimitExceededException( String errorMessage, long retryAfterInMillis )
+  {
+    super( errorMessage );
+    this.retryAfterInMillis = retryAfterInMillis;
+  }
+}
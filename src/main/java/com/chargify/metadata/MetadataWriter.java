@@ -0,0 +1,327 @@
+package com.chargify.metadata;
+
+import com.chargify.Chargify;
+import com.chargify.model.Metadata;
+import lombok.Builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects subscription metafield writes for a short window and sends them with one
+ * {@link Chargify#createSubscriptionMetadata} call per subscription, instead of one call per field.
+ * <p>
+ * The window of a subscription opens with its first pending write and lasts {@code windowInMillis}. Writes of the
+ * same field within a window are merged and the last one wins; all of their futures complete with the result of the
+ * merged write. A pending create stays a create when the field is updated before it is sent. Updates go with
+ * {@link Chargify#updateSubscriptionMetadata}, so a window holding both creates and updates costs two calls.
+ * <p>
+ * Calls for one subscription are sent one at a time, in order; at most {@code maxConcurrentRequests} calls for
+ * different subscriptions are sent at once. A failed call completes the futures of its writes exceptionally, nothing
+ * is retried.
+ */
+public final class MetadataWriter implements AutoCloseable
+{
+  private final Chargify chargify;
+  private final long windowInMillis;
+  private final ExecutorService senders;
+  private final ScheduledExecutorService scheduler;
+  private final Map<String, Batch> pending = new HashMap<>();
+  private final Map<String, Batch> sending = new HashMap<>();
+  private final LongAdder writes = new LongAdder();
+  private final LongAdder mergedWrites = new LongAdder();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder failedRequests = new LongAdder();
+  private int pendingWrites;
+  private boolean closed;
+
+  /**
+   * @param windowInMillis        how long writes of a subscription are collected, 50 by default
+   * @param maxConcurrentRequests calls sent at once, 4 by default
+   */
+  @Builder
+  private MetadataWriter( Chargify chargify, Long windowInMillis, Integer maxConcurrentRequests )
+  {
+    this.chargify = Objects.requireNonNull( chargify, "chargify" );
+    this.windowInMillis = windowInMillis == null ? 50 : windowInMillis;
+    this.senders = Executors.newFixedThreadPool( maxConcurrentRequests == null ? 4 : maxConcurrentRequests,
+                                                 daemon( "chargify-metadata-sender" ) );
+    this.scheduler = Executors.newSingleThreadScheduledExecutor( daemon( "chargify-metadata-window" ) );
+  }
+
+  public CompletableFuture<Metadata> create( String subscriptionId, String name, String value )
+  {
+    final Metadata metadata = new Metadata();
+    metadata.setName( name );
+    metadata.setValue( value );
+    return create( subscriptionId, metadata );
+  }
+
+  /**
+   * @return the metafield as Chargify returned it, or as it was sent when it isn't in the response
+   */
+  public CompletableFuture<Metadata> create( String subscriptionId, Metadata metadata )
+  {
+    return write( subscriptionId, metadata, false );
+  }
+
+  /**
+   * Updates are merged by {@code currentName} when it is set, by {@code name} otherwise
+   */
+  public CompletableFuture<Metadata> update( String subscriptionId, Metadata metadata )
+  {
+    return write( subscriptionId, metadata, true );
+  }
+
+  /**
+   * Sends everything written so far without waiting for the windows to end, and waits until it is sent
+   */
+  public void flush()
+  {
+    final List<CompletableFuture<Metadata>> results = new ArrayList<>();
+    final List<String> subscriptionIds;
+    synchronized( this )
+    {
+      pending.values().forEach( batch -> batch.collectCallers( results ) );
+      sending.values().forEach( batch -> batch.collectCallers( results ) );
+      subscriptionIds = new ArrayList<>( pending.keySet() );
+    }
+
+    subscriptionIds.forEach( this::dispatch );
+    for( CompletableFuture<Metadata> result : results )
+    {
+      try
+      {
+        result.join();
+      }
+      catch( CompletionException | CancellationException ignored )
+      {
+        // the caller of the write gets the failure
+      }
+    }
+  }
+
+  public synchronized MetadataWriterStats stats()
+  {
+    return new MetadataWriterStats( writes.sum(), mergedWrites.sum(), requests.sum(), failedRequests.sum(),
+                                    pendingWrites );
+  }
+
+  /**
+   * Stops accepting writes and sends what is pending. Writes after it fail.
+   */
+  @Override
+  public void close()
+  {
+    synchronized( this )
+    {
+      closed = true;
+    }
+    try
+    {
+      flush();
+    }
+    finally
+    {
+      scheduler.shutdownNow();
+      senders.shutdown();
+    }
+  }
+
+  private CompletableFuture<Metadata> write( String subscriptionId, Metadata metadata, boolean update )
+  {
+    final String field = update && metadata.getCurrentName() != null ? metadata.getCurrentName() : metadata.getName();
+    if( field == null )
+      throw new IllegalArgumentException( "Metadata name must not be null" );
+
+    final CompletableFuture<Metadata> result = new CompletableFuture<>();
+    synchronized( this )
+    {
+      // checked under the lock close() sets it with, so a write accepted here is still seen by its flush and
+      // the scheduler isn't shut down yet
+      if( closed )
+      {
+        result.completeExceptionally( new IllegalStateException( "Metadata writer is closed" ) );
+        return result;
+      }
+
+      Batch batch = pending.get( subscriptionId );
+      if( batch == null )
+      {
+        batch = new Batch();
+        pending.put( subscriptionId, batch );
+        scheduler.schedule( () -> dispatch( subscriptionId ), windowInMillis, TimeUnit.MILLISECONDS );
+      }
+
+      final Write previous = batch.writes.get( field );
+      if( previous == null )
+      {
+        batch.writes.put( field, new Write( metadata, update, result ) );
+        pendingWrites++;
+      }
+      else
+      {
+        previous.supersede( metadata, update, result );
+        mergedWrites.increment();
+      }
+    }
+    writes.increment();
+    return result;
+  }
+
+  private void dispatch( String subscriptionId )
+  {
+    final Batch batch;
+    synchronized( this )
+    {
+      batch = pending.get( subscriptionId );
+      if( batch == null )
+        return;
+      if( sending.containsKey( subscriptionId ) )
+      {
+        // goes out once the call in flight for the subscription completes
+        batch.due = true;
+        return;
+      }
+
+      pending.remove( subscriptionId );
+      sending.put( subscriptionId, batch );
+      pendingWrites -= batch.writes.size();
+    }
+
+    try
+    {
+      senders.execute( () -> send( subscriptionId, batch ) );
+    }
+    catch( RejectedExecutionException e )
+    {
+      synchronized( this )
+      {
+        sending.remove( subscriptionId );
+      }
+      batch.writes.values().forEach( write -> write.complete( null, e ) );
+    }
+  }
+
+  private void send( String subscriptionId, Batch batch )
+  {
+    try
+    {
+      send( subscriptionId, batch, false );
+      send( subscriptionId, batch, true );
+    }
+    catch( Throwable e )
+    {
+      // whatever wasn't completed, so that neither its callers nor flush() and close() wait forever
+      batch.writes.values().forEach( write -> write.complete( null, e ) );
+      throw e;
+    }
+    finally
+    {
+      final boolean due;
+      synchronized( this )
+      {
+        sending.remove( subscriptionId );
+        final Batch next = pending.get( subscriptionId );
+        due = next != null && next.due;
+      }
+      if( due )
+        dispatch( subscriptionId );
+    }
+  }
+
+  private void send( String subscriptionId, Batch batch, boolean update )
+  {
+    final List<Write> group = batch.writes.values().stream().filter( write -> write.update == update ).toList();
+    if( group.isEmpty() )
+      return;
+
+    final Metadata[] metadata = group.stream().map( write -> write.metadata ).toArray( Metadata[]::new );
+    final List<Metadata> written;
+    try
+    {
+      written = update ? chargify.updateSubscriptionMetadata( subscriptionId, metadata )
+                       : chargify.createSubscriptionMetadata( subscriptionId, metadata );
+    }
+    catch( RuntimeException | Error e )
+    {
+      failedRequests.increment();
+      group.forEach( write -> write.complete( null, e ) );
+      if( e instanceof Error error )
+        throw error;
+      return;
+    }
+
+    requests.increment();
+    final Map<String, Metadata> writtenByName = new HashMap<>();
+    for( Metadata field : written )
+      if( field != null && field.getName() != null )
+        writtenByName.put( field.getName(), field );
+    group.forEach( write -> write.complete( writtenByName.getOrDefault( write.metadata.getName(), write.metadata ),
+                                           null ) );
+  }
+
+  private static ThreadFactory daemon( String name )
+  {
+    return runnable -> {
+      final Thread thread = new Thread( runnable, name );
+      thread.setDaemon( true );
+      return thread;
+    };
+  }
+
+  private static final class Batch
+  {
+    private final Map<String, Write> writes = new LinkedHashMap<>();
+    private boolean due;
+
+    private void collectCallers( List<CompletableFuture<Metadata>> results )
+    {
+      writes.values().forEach( write -> results.addAll( write.callers ) );
+    }
+  }
+
+  private static final class Write
+  {
+    private final List<CompletableFuture<Metadata>> callers = new ArrayList<>();
+    private Metadata metadata;
+    private boolean update;
+
+    private Write( Metadata metadata, boolean update, CompletableFuture<Metadata> caller )
+    {
+      this.metadata = metadata;
+      this.update = update;
+      this.callers.add( caller );
+    }
+
+    private void supersede( Metadata metadata, boolean update, CompletableFuture<Metadata> caller )
+    {
+      this.metadata = metadata;
+      this.update = this.update && update;
+      this.callers.add( caller );
+    }
+
+    private void complete( Metadata result, Throwable failure )
+    {
+      for( CompletableFuture<Metadata> caller : callers )
+        if( failure == null )
+          caller.complete( result );
+        else
+          caller.completeExceptionally( failure );
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.chargify.metadata;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public final class MetadataWriterStats
+{
+  private final long writes;
+  /**
+   * Writes replaced by a later write of the same field before they were sent
+   */
+  private final long mergedWrites;
+  /**
+   * Metadata calls that succeeded
+   */
+  private final long requests;
+  /**
+   * Metadata calls that failed; their writes are completed exceptionally
+   */
+  private final long failedRequests;
+  /**
+   * Fields waiting to be sent
+   */
+  private final long pendingWrites;
+}
@@ -0,0 +1,291 @@
+package com.chargify.model;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Memory-efficient, immutable copy of the scalar attributes of a {@link Subscription}, for holding hundreds of
+ * thousands of subscriptions in memory.
+ * <ul>
+ * <li>timestamps are kept as epoch milliseconds and come back in UTC, their original offset is dropped</li>
+ * <li>amounts and counters are primitives, with a sentinel standing for {@code null}</li>
+ * <li>states are kept as one byte</li>
+ * <li>strings taking few distinct values (product handles, payment methods, ...) are interned</li>
+ * <li>metafields take no memory unless the subscription has some</li>
+ * </ul>
+ * The nested customer, product, credit card and components are reduced to their ids and handles.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class CompactSubscription
+{
+  private static final long NO_MILLIS = Long.MIN_VALUE;
+  private static final long NO_LONG = Long.MIN_VALUE;
+  private static final int NO_INT = Integer.MIN_VALUE;
+
+  // codes of the states, Chargify may add states the SDK doesn't know yet
+  private static final List<String> states = new CopyOnWriteArrayList<>( Stream.concat(
+      Stream.of( (String) null ), Arrays.stream( SubscriptionState.values() ).map( SubscriptionState::getValue )
+          .filter( Objects::nonNull ) ).toList() );
+
+  private final long id;
+  @Getter( AccessLevel.NONE )
+  private final byte state;
+  @Getter( AccessLevel.NONE )
+  private final byte previousState;
+  private final boolean cancelAtEndOfPeriod;
+  private final boolean productChangeDelayed;
+  @Getter( AccessLevel.NONE )
+  private final long balanceInCents;
+  @Getter( AccessLevel.NONE )
+  private final long totalRevenueInCents;
+  @Getter( AccessLevel.NONE )
+  private final int productPriceInCents;
+  @Getter( AccessLevel.NONE )
+  private final int productVersionNumber;
+  private final long currentPeriodStartedAtMillis;
+  private final long currentPeriodEndsAtMillis;
+  private final long nextAssessmentAtMillis;
+  private final long nextBillingAtMillis;
+  private final long trialStartedAtMillis;
+  private final long trialEndedAtMillis;
+  private final long activatedAtMillis;
+  private final long expiresAtMillis;
+  private final long createdAtMillis;
+  private final long updatedAtMillis;
+  private final long canceledAtMillis;
+  private final long delayedCancelAtMillis;
+  private final String customerId;
+  private final String customerReference;
+  private final String productId;
+  private final String productHandle;
+  private final String nextProductId;
+  private final String nextProductHandle;
+  private final String paymentCollectionMethod;
+  private final String paymentType;
+  private final String paymentProfileId;
+  private final String couponCode;
+  private final String referralCode;
+  private final String reference;
+  private final String snapDay;
+  private final String cancellationMethod;
+  private final String cancellationMessage;
+  private final String reasonCode;
+  @Getter( AccessLevel.NONE )
+  private final Map<String, String> metafields;
+
+  private CompactSubscription( Subscription subscription )
+  {
+    this.id = Long.parseLong( subscription.getId() );
+    this.state = stateCode( subscription.getState() );
+    this.previousState = stateCode( subscription.getPreviousState() );
+    this.cancelAtEndOfPeriod = Boolean.TRUE.equals( subscription.getCancelAtEndOfPeriod() );
+    this.productChangeDelayed = subscription.isProductChangeDelayed();
+    this.balanceInCents = orNone( subscription.getBalanceInCents() );
+    this.totalRevenueInCents = orNone( subscription.getTotalRevenueInCents() );
+    this.productPriceInCents = orNone( subscription.getProductPriceInCents() );
+    this.productVersionNumber = orNone( subscription.getProductVersionNumber() );
+    this.currentPeriodStartedAtMillis = millis( subscription.getCurrentPeriodStartedAt() );
+    this.currentPeriodEndsAtMillis = millis( subscription.getCurrentPeriodEndsAt() );
+    this.nextAssessmentAtMillis = millis( subscription.getNextAssessmentAt() );
+    this.nextBillingAtMillis = millis( subscription.getNextBillingAt() );
+    this.trialStartedAtMillis = millis( subscription.getTrialStartedAt() );
+    this.trialEndedAtMillis = millis( subscription.getTrialEndedAt() );
+    this.activatedAtMillis = millis( subscription.getActivatedAt() );
+    this.expiresAtMillis = millis( subscription.getExpiresAt() );
+    this.createdAtMillis = millis( subscription.getCreatedAt() );
+    this.updatedAtMillis = millis( subscription.getUpdatedAt() );
+    this.canceledAtMillis = millis( subscription.getCanceledAt() );
+    this.delayedCancelAtMillis = millis( subscription.getDelayedCancelAt() );
+    this.customerId = subscription.getCustomer() != null && subscription.getCustomer().getId() != null
+                      ? subscription.getCustomer().getId() : subscription.getCustomerId();
+    this.customerReference = subscription.getCustomer() != null && subscription.getCustomer().getReference() != null
+                             ? subscription.getCustomer().getReference() : subscription.getCustomerReference();
+    this.productId = subscription.getProduct() == null ? null : intern( subscription.getProduct().getId() );
+    this.productHandle = subscription.getProduct() != null && subscription.getProduct().getHandle() != null
+                         ? intern( subscription.getProduct().getHandle() ) : intern( subscription.getProductHandle() );
+    this.nextProductId = intern( subscription.getNextProductId() );
+    this.nextProductHandle = intern( subscription.getNextProductHandle() );
+    this.paymentCollectionMethod = intern( subscription.getPaymentCollectionMethod() );
+    this.paymentType = intern( subscription.getPaymentType() );
+    this.paymentProfileId = subscription.getPaymentProfileId();
+    this.couponCode = intern( subscription.getCouponCode() );
+    this.referralCode = subscription.getReferralCode();
+    this.reference = subscription.getReference();
+    this.snapDay = intern( subscription.getSnapDay() );
+    this.cancellationMethod = intern( subscription.getCancellationMethod() );
+    this.cancellationMessage = subscription.getCancellationMessage();
+    this.reasonCode = intern( subscription.getReasonCode() );
+    this.metafields = subscription.getMetafields() == null || subscription.getMetafields().isEmpty()
+                      ? null : Map.copyOf( subscription.getMetafields() );
+  }
+
+  public static CompactSubscription of( Subscription subscription )
+  {
+    return new CompactSubscription( subscription );
+  }
+
+  public String getState()
+  {
+    return states.get( state );
+  }
+
+  public String getPreviousState()
+  {
+    return states.get( previousState );
+  }
+
+  public SubscriptionState getTypedState()
+  {
+    return SubscriptionState.of( getState() );
+  }
+
+  public SubscriptionState getTypedPreviousState()
+  {
+    return SubscriptionState.of( getPreviousState() );
+  }
+
+  public Long getBalanceInCents()
+  {
+    return balanceInCents == NO_LONG ? null : balanceInCents;
+  }
+
+  public Long getTotalRevenueInCents()
+  {
+    return totalRevenueInCents == NO_LONG ? null : totalRevenueInCents;
+  }
+
+  public Integer getProductPriceInCents()
+  {
+    return productPriceInCents == NO_INT ? null : productPriceInCents;
+  }
+
+  public Integer getProductVersionNumber()
+  {
+    return productVersionNumber == NO_INT ? null : productVersionNumber;
+  }
+
+  public ZonedDateTime getCurrentPeriodStartedAt()
+  {
+    return dateTime( currentPeriodStartedAtMillis );
+  }
+
+  public ZonedDateTime getCurrentPeriodEndsAt()
+  {
+    return dateTime( currentPeriodEndsAtMillis );
+  }
+
+  public ZonedDateTime getNextAssessmentAt()
+  {
+    return dateTime( nextAssessmentAtMillis );
+  }
+
+  public ZonedDateTime getNextBillingAt()
+  {
+    return dateTime( nextBillingAtMillis );
+  }
+
+  public ZonedDateTime getTrialStartedAt()
+  {
+    return dateTime( trialStartedAtMillis );
+  }
+
+  public ZonedDateTime getTrialEndedAt()
+  {
+    return dateTime( trialEndedAtMillis );
+  }
+
+  public ZonedDateTime getActivatedAt()
+  {
+    return dateTime( activatedAtMillis );
+  }
+
+  public ZonedDateTime getExpiresAt()
+  {
+    return dateTime( expiresAtMillis );
+  }
+
+  public ZonedDateTime getCreatedAt()
+  {
+    return dateTime( createdAtMillis );
+  }
+
+  public ZonedDateTime getUpdatedAt()
+  {
+    return dateTime( updatedAtMillis );
+  }
+
+  public ZonedDateTime getCanceledAt()
+  {
+    return dateTime( canceledAtMillis );
+  }
+
+  public ZonedDateTime getDelayedCancelAt()
+  {
+    return dateTime( delayedCancelAtMillis );
+  }
+
+  /**
+   * @return unmodifiable metafields, empty when there are none
+   */
+  public Map<String, String> getMetafields()
+  {
+    return metafields == null ? Map.of() : metafields;
+  }
+
+  private static byte stateCode( String state )
+  {
+    int code = states.indexOf( state );
+    if( code < 0 )
+      synchronized( states )
+      {
+        code = states.indexOf( state );
+        if( code < 0 )
+        {
+          if( states.size() > Byte.MAX_VALUE )
+            throw new IllegalStateException( "Too many subscription states: " + state );
+          states.add( state.intern() );
+          code = states.size() - 1;
+        }
+      }
+    return (byte) code;
+  }
+
+  private static long millis( ZonedDateTime dateTime )
+  {
+    return dateTime == null ? NO_MILLIS : dateTime.toInstant().toEpochMilli();
+  }
+
+  private static ZonedDateTime dateTime( long millis )
+  {
+    return millis == NO_MILLIS ? null : Instant.ofEpochMilli( millis ).atZone( ZoneOffset.UTC );
+  }
+
+  private static long orNone( Long value )
+  {
+    return value == null ? NO_LONG : value;
+  }
+
+  private static int orNone( Integer value )
+  {
+    return value == null ? NO_INT : value;
+  }
+
+  private static String intern( String value )
+  {
+    return value == null ? null : value.intern();
+  }
+}
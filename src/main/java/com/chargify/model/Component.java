@@ -18,6 +18,7 @@
 
 package com.chargify.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
@@ -64,4 +65,13 @@ public class Component implements Serializable
   private Boolean recurring;
 
   private String description;
+
+  /**
+   * @throws IllegalStateException when there is no id
+   */
+  @JsonIgnore
+  public long getIdAsLong()
+  {
+    return Ids.toLong( id, "id" );
+  }
 }
@@ -1,6 +1,7 @@
 package com.chargify.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -68,4 +69,13 @@ public class Customer implements Serializable
     this.lastName = lastName;
     this.email = email;
   }
+
+  /**
+   * @throws IllegalStateException when there is no id
+   */
+  @JsonIgnore
+  public long getIdAsLong()
+  {
+    return Ids.toLong( id, "id" );
+  }
 }
@@ -0,0 +1,72 @@
+package com.chargify.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Maps Chargify's string values to enum constants without allocating: straight from the parser's character
+ * buffer while reading JSON, or from a {@code String} by identity first, since the deserializers hand out the
+ * constants' own strings.
+ */
+final class EnumValues<E extends Enum<E>>
+{
+  private final E[] constants;
+  private final String[] values;
+  private final E unknown;
+
+  EnumValues( E[] constants, Function<E, String> value, E unknown )
+  {
+    this.constants = constants;
+    this.values = new String[ constants.length ];
+    for( E constant : constants )
+      values[ constant.ordinal() ] = value.apply( constant );
+    this.unknown = unknown;
+  }
+
+  E of( String value )
+  {
+    if( value == null )
+      return null;
+
+    for( int i = 0; i < values.length; i++ )
+      if( values[ i ] == value )
+        return constants[ i ];
+    for( int i = 0; i < values.length; i++ )
+      if( value.equals( values[ i ] ) )
+        return constants[ i ];
+    return unknown;
+  }
+
+  E of( char[] text, int offset, int length )
+  {
+    for( int i = 0; i < values.length; i++ )
+      if( values[ i ] != null && matches( values[ i ], text, offset, length ) )
+        return constants[ i ];
+    return unknown;
+  }
+
+  /**
+   * Reads the current string token as the value of a known constant, allocating a string only for unknown values
+   */
+  String read( JsonParser parser ) throws IOException
+  {
+    if( parser.currentToken() != JsonToken.VALUE_STRING )
+      return parser.getValueAsString();
+
+    final E constant = of( parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength() );
+    return constant == unknown ? parser.getText() : values[ constant.ordinal() ];
+  }
+
+  private static boolean matches( String value, char[] text, int offset, int length )
+  {
+    if( value.length() != length )
+      return false;
+    for( int i = 0; i < length; i++ )
+      if( value.charAt( i ) != text[ offset + i ] )
+        return false;
+    return true;
+  }
+}
@@ -0,0 +1,25 @@
+package com.chargify.model;
+
+/**
+ * Converts the ids of the model, typed as Chargify happens to send them, to {@code long}.
+ */
+final class Ids
+{
+  private Ids()
+  {
+  }
+
+  static long toLong( String id, String name )
+  {
+    if( id == null )
+      throw new IllegalStateException( "No " + name );
+    return Long.parseLong( id );
+  }
+
+  static long toLong( Integer id, String name )
+  {
+    if( id == null )
+      throw new IllegalStateException( "No " + name );
+    return id;
+  }
+}
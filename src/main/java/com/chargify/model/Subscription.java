@@ -18,8 +18,10 @@
 
 package com.chargify.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -34,6 +36,7 @@ public class Subscription implements Serializable
 {
   private String id;
 
+  @JsonDeserialize( using = SubscriptionState.ValueDeserializer.class )
   private String state;
 
   @JsonProperty( "balance_in_cents" )
@@ -103,6 +106,7 @@ public class Subscription implements Serializable
   private boolean productChangeDelayed;
 
   @JsonProperty( "previous_state" )
+  @JsonDeserialize( using = SubscriptionState.ValueDeserializer.class )
   private String previousState;
 
   @JsonProperty( "product_handle" )
@@ -166,4 +170,35 @@ public class Subscription implements Serializable
   private List<SubscriptionComponent> components;
 
   private Map<String, String> metafields = new HashMap<>();
+
+  @JsonIgnore
+  public SubscriptionState getTypedState()
+  {
+    return SubscriptionState.of( state );
+  }
+
+  @JsonIgnore
+  public SubscriptionState getTypedPreviousState()
+  {
+    return SubscriptionState.of( previousState );
+  }
+
+  /**
+   * @throws IllegalStateException when there is no id
+   */
+  @JsonIgnore
+  public long getIdAsLong()
+  {
+    return Ids.toLong( id, "id" );
+  }
+
+  /**
+   * @return id of the customer, taken from the nested customer when the subscription has no customer id
+   * @throws IllegalStateException when there is no customer id
+   */
+  @JsonIgnore
+  public long getCustomerIdAsLong()
+  {
+    return Ids.toLong( customerId == null && customer != null ? customer.getId() : customerId, "customer id" );
+  }
 }
@@ -18,6 +18,7 @@
 
 package com.chargify.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
@@ -58,4 +59,22 @@ public class SubscriptionComponent implements Serializable
 
   @JsonProperty( "price_point_handle" )
   private String pricePointHandle;
+
+  /**
+   * @throws IllegalStateException when there is no component id
+   */
+  @JsonIgnore
+  public long getComponentIdAsLong()
+  {
+    return Ids.toLong( componentId, "component id" );
+  }
+
+  /**
+   * @throws IllegalStateException when there is no subscription id
+   */
+  @JsonIgnore
+  public long getSubscriptionIdAsLong()
+  {
+    return Ids.toLong( subscriptionId, "subscription id" );
+  }
 }
@@ -0,0 +1,64 @@
+package com.chargify.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Typed {@link SubscriptionStates}. {@link #UNKNOWN} stands for states added to Chargify after this SDK.
+ */
+@Getter
+public enum SubscriptionState
+{
+  ACTIVE( SubscriptionStates.ACTIVE ),
+  CANCELED( SubscriptionStates.CANCELED ),
+  EXPIRED( SubscriptionStates.EXPIRED ),
+  ON_HOLD( SubscriptionStates.ON_HOLD ),
+  PAST_DUE( SubscriptionStates.PAST_DUE ),
+  SOFT_FAILURE( SubscriptionStates.SOFT_FAILURE ),
+  TRIALING( SubscriptionStates.TRAILING ),
+  TRIAL_ENDED( SubscriptionStates.TRIAL_ENDED ),
+  UNPAID( SubscriptionStates.UNPAID ),
+  SUSPENDED( SubscriptionStates.SUSPENDED ),
+  UNKNOWN( null );
+
+  private static final EnumValues<SubscriptionState> values =
+      new EnumValues<>( values(), SubscriptionState::getValue, UNKNOWN );
+
+  @JsonValue
+  private final String value;
+
+  SubscriptionState( String value )
+  {
+    this.value = value;
+  }
+
+  /**
+   * @return {@code null} for {@code null}, {@link #UNKNOWN} for a state this SDK doesn't know
+   */
+  public static SubscriptionState of( String value )
+  {
+    return values.of( value );
+  }
+
+  /**
+   * Reads the state strings of the model, handing out the shared strings of the known states
+   */
+  static final class ValueDeserializer extends StdDeserializer<String>
+  {
+    ValueDeserializer()
+    {
+      super( String.class );
+    }
+
+    @Override
+    public String deserialize( JsonParser parser, DeserializationContext context ) throws IOException
+    {
+      return values.read( parser );
+    }
+  }
+}
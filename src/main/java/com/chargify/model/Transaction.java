@@ -1,8 +1,10 @@
 package com.chargify.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 
 import java.time.ZonedDateTime;
@@ -16,8 +18,13 @@ public class Transaction
   @JsonProperty( "subscription_id" )
   private String subscriptionId;
   private String type;
+  /**
+   * What a charge was for, e.g. {@code baseline}, {@code initial}, {@code trial}, {@code quantity_change} or
+   * {@code component_proration}; not a {@link TransactionKind}, that is the {@code transactionType}
+   */
   private String kind;
   @JsonProperty( "transaction_type" )
+  @JsonDeserialize( using = TransactionKind.ValueDeserializer.class )
   private String transactionType;
   private boolean success;
   @JsonProperty( "amount_in_cents" )
@@ -41,4 +48,28 @@ public class Transaction
   private String productId;
   @JsonProperty( "component_id" )
   private String componentId;
+
+  @JsonIgnore
+  public TransactionKind getTypedTransactionType()
+  {
+    return TransactionKind.of( transactionType );
+  }
+
+  /**
+   * @throws IllegalStateException when there is no id
+   */
+  @JsonIgnore
+  public long getIdAsLong()
+  {
+    return Ids.toLong( id, "id" );
+  }
+
+  /**
+   * @throws IllegalStateException when there is no subscription id
+   */
+  @JsonIgnore
+  public long getSubscriptionIdAsLong()
+  {
+    return Ids.toLong( subscriptionId, "subscription id" );
+  }
 }
@@ -0,0 +1,62 @@
+package com.chargify.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Typed {@code transaction_type} of a {@link Transaction}: the {@link TransactionsKinds} the transaction listings
+ * filter by, plus the other types Chargify reports. {@link #UNKNOWN} stands for values this SDK doesn't know.
+ */
+@Getter
+public enum TransactionKind
+{
+  CHARGE( TransactionsKinds.CHARGE ),
+  CREDIT( TransactionsKinds.CREDIT ),
+  ADJUSTMENT( TransactionsKinds.ADJUSTMENT ),
+  PAYMENT( TransactionsKinds.PAYMENT ),
+  REFUND( TransactionsKinds.REFUND ),
+  INFO_TRANSACTION( "info_transaction" ),
+  PAYMENT_AUTHORIZATION( "payment_authorization" ),
+  UNKNOWN( null );
+
+  private static final EnumValues<TransactionKind> values =
+      new EnumValues<>( values(), TransactionKind::getValue, UNKNOWN );
+
+  @JsonValue
+  private final String value;
+
+  TransactionKind( String value )
+  {
+    this.value = value;
+  }
+
+  /**
+   * @return {@code null} for {@code null}, {@link #UNKNOWN} for a value this SDK doesn't know
+   */
+  public static TransactionKind of( String value )
+  {
+    return values.of( value );
+  }
+
+  /**
+   * Reads the transaction type strings of the model, handing out the shared strings of the known types
+   */
+  static final class ValueDeserializer extends StdDeserializer<String>
+  {
+    ValueDeserializer()
+    {
+      super( String.class );
+    }
+
+    @Override
+    public String deserialize( JsonParser parser, DeserializationContext context ) throws IOException
+    {
+      return values.read( parser );
+    }
+  }
+}
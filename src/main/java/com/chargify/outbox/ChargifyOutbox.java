@@ -0,0 +1,321 @@
+package com.chargify.outbox;
+
+import com.chargify.Chargify;
+import com.chargify.ChargifyJson;
+import com.chargify.exceptions.BulkheadFullException;
+import com.chargify.exceptions.ChargifyException;
+import com.chargify.exceptions.CircuitBreakerOpenException;
+import com.chargify.exceptions.ConcurrencyLimitExceededException;
+import com.chargify.exceptions.RateLimitExceededException;
+import com.chargify.model.Adjustment;
+import com.chargify.model.Allocation;
+import com.chargify.model.SubscriptionCharge;
+import com.chargify.model.SubscriptionChargeResult;
+import com.chargify.resilience.IdempotencyKey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Builder;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes Chargify mutations survive process crashes: each one is appended to a local log before it is sent, and
+ * removed from it once Chargify accepted it. Entries left in the log are sent again when the outbox is opened next
+ * time, with the idempotency key they were created with, so Chargify applies each mutation once even when it
+ * received it before the crash. Delivery is at least once; ChargifyService must be the client so that the key is
+ * sent along.
+ * <p>
+ * Entries are sent by {@code workers} threads; the entries of a subscription are sent one at a time, in order. A
+ * transient failure (I/O error, 5xx, rate limit, open circuit, ...) is retried with exponential backoff until it
+ * succeeds or the outbox is closed. While an entry waits for its retry, the later entries of its subscription wait
+ * with it, but the threads go on sending those of other subscriptions. An entry that Chargify rejects with a
+ * {@link ChargifyException} is dropped and its future completes exceptionally.
+ */
+public final class ChargifyOutbox implements AutoCloseable
+{
+  private static final long INITIAL_BACKOFF_IN_MILLIS = 100;
+
+  private final Chargify chargify;
+  private final OutboxLog log;
+  private final ObjectMapper objectMapper;
+  private final ScheduledExecutorService workers;
+  private final ScheduledExecutorService fsyncScheduler;
+  private final long maxBackoffInMillis;
+  private final Map<Long, CompletableFuture<Object>> results = new ConcurrentHashMap<>();
+  /**
+   * Entries not delivered yet by subscription id, guarded by itself
+   */
+  private final Map<String, Lane> lanes = new HashMap<>();
+  private final LongAdder appended = new LongAdder();
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder pending = new LongAdder();
+  private final long recovered;
+  private volatile boolean closed;
+
+  /**
+   * @param directory             directory of the log segments, created if missing
+   * @param fsyncPolicy           {@link FsyncPolicy#ALWAYS} by default
+   * @param fsyncIntervalInMillis period of {@link FsyncPolicy#INTERVAL}, 100 by default
+   * @param maxSegmentBytes       size from which a new segment is started, 16 MB by default
+   * @param workers               threads sending the entries, 4 by default
+   * @param maxBackoffInMillis    longest wait between two attempts of an entry, 30000 by default
+   */
+  @Builder
+  private ChargifyOutbox( Chargify chargify, Path directory, FsyncPolicy fsyncPolicy, Long fsyncIntervalInMillis,
+                          Long maxSegmentBytes, Integer workers, Long maxBackoffInMillis )
+  {
+    this.chargify = Objects.requireNonNull( chargify, "chargify" );
+    this.objectMapper = ChargifyJson.objectMapper();
+    final FsyncPolicy policy = fsyncPolicy == null ? FsyncPolicy.ALWAYS : fsyncPolicy;
+    this.log = new OutboxLog( Objects.requireNonNull( directory, "directory" ), policy,
+                              maxSegmentBytes == null ? 16 * 1024 * 1024 : maxSegmentBytes, objectMapper );
+    this.maxBackoffInMillis = maxBackoffInMillis == null ? 30000 : maxBackoffInMillis;
+
+    this.workers = Executors.newScheduledThreadPool( workers == null ? 4 : workers, daemon( "chargify-outbox" ) );
+
+    if( policy == FsyncPolicy.INTERVAL )
+    {
+      final long interval = fsyncIntervalInMillis == null ? 100 : fsyncIntervalInMillis;
+      this.fsyncScheduler = Executors.newSingleThreadScheduledExecutor( daemon( "chargify-outbox-fsync" ) );
+      this.fsyncScheduler.scheduleWithFixedDelay( log::force, interval, interval, TimeUnit.MILLISECONDS );
+    }
+    else
+    {
+      this.fsyncScheduler = null;
+    }
+
+    this.recovered = log.recovered().size();
+    log.recovered().forEach( entry -> {
+      pending.increment();
+      submit( entry, null );
+    } );
+  }
+
+  /**
+   * @return future of Chargify's response, completed once the allocation is delivered
+   */
+  public CompletableFuture<Allocation> createComponentAllocation( String subscriptionId, int componentId,
+                                                                  Allocation allocation )
+  {
+    return enqueue( OutboxEntry.Kind.ALLOCATION, subscriptionId, componentId, allocation );
+  }
+
+  public CompletableFuture<Adjustment> adjust( String subscriptionId, Adjustment adjustment )
+  {
+    return enqueue( OutboxEntry.Kind.ADJUSTMENT, subscriptionId, null, adjustment );
+  }
+
+  public CompletableFuture<SubscriptionChargeResult> createSubscriptionCharge( String subscriptionId,
+                                                                              SubscriptionCharge subscriptionCharge )
+  {
+    return enqueue( OutboxEntry.Kind.CHARGE, subscriptionId, null, subscriptionCharge );
+  }
+
+  public OutboxStats stats()
+  {
+    return new OutboxStats( appended.sum(), recovered, delivered.sum(), retries.sum(), failed.sum(),
+                            pending.sum() );
+  }
+
+  /**
+   * Stops sending. Entries not delivered yet stay in the log and are sent when it is opened again.
+   */
+  @Override
+  public void close()
+  {
+    closed = true;
+    workers.shutdownNow();
+    try
+    {
+      workers.awaitTermination( 10, TimeUnit.SECONDS );
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+    }
+    if( fsyncScheduler != null )
+      fsyncScheduler.shutdownNow();
+    log.close();
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private <T> CompletableFuture<T> enqueue( OutboxEntry.Kind kind, String subscriptionId, Integer componentId,
+                                            Object payload )
+  {
+    if( closed )
+      throw new IllegalStateException( "Outbox is closed" );
+
+    final OutboxEntry entry = new OutboxEntry( log.nextEntryId(), UUID.randomUUID().toString(), kind,
+                                               subscriptionId, componentId, objectMapper.valueToTree( payload ) );
+    final CompletableFuture<Object> result = new CompletableFuture<>();
+    log.append( entry );
+    appended.increment();
+    pending.increment();
+    submit( entry, result );
+    return (CompletableFuture<T>) result;
+  }
+
+  private void submit( OutboxEntry entry, CompletableFuture<Object> result )
+  {
+    if( result != null )
+      results.put( entry.id(), result );
+
+    final Lane lane;
+    synchronized( lanes )
+    {
+      lane = lanes.computeIfAbsent( entry.subscriptionId(), Lane::new );
+      lane.entries.add( entry );
+      if( lane.entries.size() > 1 )
+        return; // sent once the entries before it are
+    }
+    schedule( lane, 0 );
+  }
+
+  /**
+   * Sends the entries of the lane until it is empty, or until one needs to be retried: then the lane is scheduled
+   * again after a backoff, so that the thread isn't held while it waits.
+   */
+  private void dispatch( Lane lane )
+  {
+    while( !closed )
+    {
+      final OutboxEntry entry;
+      synchronized( lanes )
+      {
+        entry = lane.entries.peek();
+      }
+
+      try
+      {
+        final Object response = IdempotencyKey.with( entry.idempotencyKey(), () -> send( entry ) );
+        delivered.increment();
+        complete( entry, response, null );
+      }
+      catch( RuntimeException e )
+      {
+        if( !isPermanent( e ) )
+        {
+          retries.increment();
+          final long delay = ThreadLocalRandom.current().nextLong( lane.backoff + 1 );
+          lane.backoff = Math.min( maxBackoffInMillis, lane.backoff * 2 );
+          schedule( lane, delay );
+          return;
+        }
+        failed.increment();
+        complete( entry, null, e );
+      }
+
+      lane.backoff = INITIAL_BACKOFF_IN_MILLIS;
+      synchronized( lanes )
+      {
+        lane.entries.poll();
+        if( lane.entries.isEmpty() )
+        {
+          lanes.remove( lane.subscriptionId );
+          return;
+        }
+      }
+    }
+  }
+
+  private void schedule( Lane lane, long delayInMillis )
+  {
+    try
+    {
+      workers.schedule( () -> dispatch( lane ), delayInMillis, TimeUnit.MILLISECONDS );
+    }
+    catch( RejectedExecutionException e )
+    {
+      // closed, the entries stay in the log
+    }
+  }
+
+  private Object send( OutboxEntry entry )
+  {
+    try
+    {
+      return switch( entry.kind() )
+      {
+        case ALLOCATION -> chargify.createComponentAllocation(
+            entry.subscriptionId(), entry.componentId(), objectMapper.treeToValue( entry.payload(), Allocation.class ) );
+        case ADJUSTMENT -> chargify.adjust(
+            entry.subscriptionId(), objectMapper.treeToValue( entry.payload(), Adjustment.class ) );
+        case CHARGE -> chargify.createSubscriptionCharge(
+            entry.subscriptionId(), objectMapper.treeToValue( entry.payload(), SubscriptionCharge.class ) );
+      };
+    }
+    catch( JsonProcessingException e )
+    {
+      throw new IllegalStateException( "Corrupted outbox entry " + entry.id(), e );
+    }
+  }
+
+  private void complete( OutboxEntry entry, Object response, RuntimeException failure )
+  {
+    log.acknowledge( entry.id() );
+    pending.decrement();
+    final CompletableFuture<Object> result = results.remove( entry.id() );
+    if( result == null )
+      return;
+
+    if( failure == null )
+      result.complete( response );
+    else
+      result.completeExceptionally( failure );
+  }
+
+  private static boolean isPermanent( RuntimeException e )
+  {
+    return e instanceof ChargifyException && !isThrottled( e ) || e instanceof IllegalStateException;
+  }
+
+  /**
+   * @return whether Chargify or a client side limiter refused the call for now, so that it may pass later
+   */
+  private static boolean isThrottled( RuntimeException e )
+  {
+    return e instanceof RateLimitExceededException || e instanceof CircuitBreakerOpenException
+           || e instanceof BulkheadFullException || e instanceof ConcurrencyLimitExceededException;
+  }
+
+  private static final class Lane
+  {
+    private final String subscriptionId;
+    private final Deque<OutboxEntry> entries = new ArrayDeque<>();
+    /**
+     * Only used by the one thread dispatching the lane at a time
+     */
+    private long backoff = INITIAL_BACKOFF_IN_MILLIS;
+
+    private Lane( String subscriptionId )
+    {
+      this.subscriptionId = subscriptionId;
+    }
+  }
+
+  private static ThreadFactory daemon( String name )
+  {
+    return runnable -> {
+      final Thread thread = new Thread( runnable, name );
+      thread.setDaemon( true );
+      return thread;
+    };
+  }
+}
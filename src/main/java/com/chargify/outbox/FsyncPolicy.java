@@ -0,0 +1,20 @@
+package com.chargify.outbox;
+
+/**
+ * When the outbox forces its log to the disk
+ */
+public enum FsyncPolicy
+{
+  /**
+   * After every appended mutation and acknowledgement, before the call returns. Nothing is lost on power failure.
+   */
+  ALWAYS,
+  /**
+   * Every {@code fsyncIntervalInMillis}. A power failure loses at most that much, a process crash nothing.
+   */
+  INTERVAL,
+  /**
+   * Whenever the operating system writes its cache. A process crash loses nothing.
+   */
+  NEVER
+}
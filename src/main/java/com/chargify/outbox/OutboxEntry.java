@@ -0,0 +1,15 @@
+package com.chargify.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A mutation waiting in the outbox. The payload is the JSON of the model object passed to the mutation.
+ */
+record OutboxEntry( long id, String idempotencyKey, Kind kind, String subscriptionId, Integer componentId,
+                    JsonNode payload )
+{
+  enum Kind
+  {
+    ALLOCATION, ADJUSTMENT, CHARGE
+  }
+}
@@ -0,0 +1,261 @@
+package com.chargify.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of outbox entries ({@code E} lines with the entry JSON) and their acknowledgements ({@code A}
+ * lines with the entry id), one per line, split into numbered segment files. Replay ignores a last line without its
+ * newline, as a crash tore it. A new segment is started on open and whenever the
+ * current one exceeds its size limit. The oldest segments are deleted once all of their entries are acknowledged;
+ * deleting strictly oldest first keeps every acknowledgement until the entry it refers to is gone.
+ */
+final class OutboxLog implements AutoCloseable
+{
+  private static final String PREFIX = "outbox-";
+  private static final String SUFFIX = ".log";
+
+  private final Path directory;
+  private final FsyncPolicy fsyncPolicy;
+  private final long maxSegmentBytes;
+  private final ObjectMapper objectMapper;
+  private final TreeMap<Long, Integer> unackedBySegment = new TreeMap<>();
+  private final Map<Long, Long> segmentOfEntry = new HashMap<>();
+  private final List<OutboxEntry> recovered = new ArrayList<>();
+  private long nextEntryId = 1;
+  private long currentSegment;
+  private FileChannel channel;
+  private long channelSize;
+
+  OutboxLog( Path directory, FsyncPolicy fsyncPolicy, long maxSegmentBytes, ObjectMapper objectMapper )
+  {
+    this.directory = directory;
+    this.fsyncPolicy = fsyncPolicy;
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.objectMapper = objectMapper;
+    try
+    {
+      Files.createDirectories( directory );
+      replay();
+      deleteAcknowledgedSegments();
+      openSegment( currentSegment + 1 );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  /**
+   * @return entries not acknowledged before the log was opened, in the order they were appended
+   */
+  List<OutboxEntry> recovered()
+  {
+    return recovered;
+  }
+
+  synchronized long nextEntryId()
+  {
+    return nextEntryId++;
+  }
+
+  synchronized void append( OutboxEntry entry )
+  {
+    try
+    {
+      write( "E" + objectMapper.writeValueAsString( entry ) );
+    }
+    catch( JsonProcessingException e )
+    {
+      throw new IllegalArgumentException( e );
+    }
+    segmentOfEntry.put( entry.id(), currentSegment );
+    unackedBySegment.merge( currentSegment, 1, Integer::sum );
+    if( channelSize >= maxSegmentBytes )
+      roll();
+  }
+
+  synchronized void acknowledge( long entryId )
+  {
+    write( "A" + entryId );
+    final Long segment = segmentOfEntry.remove( entryId );
+    if( segment != null )
+      unackedBySegment.merge( segment, -1, Integer::sum );
+    deleteAcknowledgedSegments();
+    if( channelSize >= maxSegmentBytes )
+      roll();
+  }
+
+  synchronized void force()
+  {
+    try
+    {
+      if( channel.isOpen() )
+        channel.force( false );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  @Override
+  public synchronized void close()
+  {
+    try
+    {
+      if( fsyncPolicy != FsyncPolicy.NEVER )
+        channel.force( false );
+      channel.close();
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private void replay() throws IOException
+  {
+    final Map<Long, OutboxEntry> entries = new HashMap<>();
+    for( long segment : segments() )
+    {
+      currentSegment = segment;
+      unackedBySegment.put( segment, 0 );
+      // only lines ended by a newline were written completely, a crash may have torn the last one, e.g. "A123"
+      // into "A12"
+      final String content = Files.readString( segmentFile( segment ), StandardCharsets.UTF_8 );
+      for( String line : content.substring( 0, content.lastIndexOf( '\n' ) + 1 ).split( "\n" ) )
+      {
+        if( line.startsWith( "E" ) )
+        {
+          final OutboxEntry entry;
+          try
+          {
+            entry = objectMapper.readValue( line.substring( 1 ), OutboxEntry.class );
+          }
+          catch( JsonProcessingException e )
+          {
+            continue;
+          }
+          entries.put( entry.id(), entry );
+          segmentOfEntry.put( entry.id(), segment );
+          unackedBySegment.merge( segment, 1, Integer::sum );
+          nextEntryId = Math.max( nextEntryId, entry.id() + 1 );
+        }
+        else if( line.startsWith( "A" ) && line.length() > 1 )
+        {
+          final long entryId;
+          try
+          {
+            entryId = Long.parseLong( line.substring( 1 ) );
+          }
+          catch( NumberFormatException e )
+          {
+            continue;
+          }
+          entries.remove( entryId );
+          final Long entrySegment = segmentOfEntry.remove( entryId );
+          if( entrySegment != null )
+            unackedBySegment.merge( entrySegment, -1, Integer::sum );
+          nextEntryId = Math.max( nextEntryId, entryId + 1 );
+        }
+      }
+    }
+
+    entries.values().stream()
+        .sorted( ( a, b ) -> Long.compare( a.id(), b.id() ) )
+        .forEach( recovered::add );
+  }
+
+  private List<Long> segments() throws IOException
+  {
+    try( Stream<Path> files = Files.list( directory ) )
+    {
+      return files
+          .map( file -> file.getFileName().toString() )
+          .filter( name -> name.startsWith( PREFIX ) && name.endsWith( SUFFIX ) )
+          .map( name -> Long.valueOf( name.substring( PREFIX.length(), name.length() - SUFFIX.length() ) ) )
+          .sorted()
+          .toList();
+    }
+  }
+
+  private void deleteAcknowledgedSegments()
+  {
+    while( !unackedBySegment.isEmpty() )
+    {
+      final Map.Entry<Long, Integer> oldest = unackedBySegment.firstEntry();
+      if( oldest.getValue() > 0 || oldest.getKey() == currentSegment && channel != null )
+        return;
+
+      try
+      {
+        Files.deleteIfExists( segmentFile( oldest.getKey() ) );
+      }
+      catch( IOException e )
+      {
+        throw new UncheckedIOException( e );
+      }
+      unackedBySegment.remove( oldest.getKey() );
+    }
+  }
+
+  private void roll()
+  {
+    try
+    {
+      channel.force( false );
+      channel.close();
+      openSegment( currentSegment + 1 );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+    deleteAcknowledgedSegments();
+  }
+
+  private void openSegment( long segment ) throws IOException
+  {
+    currentSegment = segment;
+    unackedBySegment.putIfAbsent( segment, 0 );
+    channel = FileChannel.open( segmentFile( segment ), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE );
+    channelSize = 0;
+  }
+
+  private void write( String line )
+  {
+    final ByteBuffer buffer = ByteBuffer.wrap( ( line + "\n" ).getBytes( StandardCharsets.UTF_8 ) );
+    try
+    {
+      while( buffer.hasRemaining() )
+        channelSize += channel.write( buffer );
+      if( fsyncPolicy == FsyncPolicy.ALWAYS )
+        channel.force( false );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private Path segmentFile( long segment )
+  {
+    return directory.resolve( String.format( "%s%012d%s", PREFIX, segment, SUFFIX ) );
+  }
+}
@@ -0,0 +1,27 @@
+package com.chargify.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public final class OutboxStats
+{
+  private final long appended;
+  /**
+   * Entries replayed from the log on start
+   */
+  private final long recovered;
+  private final long delivered;
+  /**
+   * Dispatch attempts that failed transiently and were repeated
+   */
+  private final long retries;
+  /**
+   * Entries rejected by Chargify, dropped from the outbox
+   */
+  private final long failed;
+  private final long pending;
+}
@@ -0,0 +1,271 @@
+package com.chargify.resilience;
+
+import com.chargify.exceptions.CircuitBreakerOpenException;
+import com.chargify.exceptions.ConcurrencyLimitExceededException;
+import lombok.Builder;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the Chargify calls in flight to a number that follows what Chargify can currently take, using additive
+ * increase and multiplicative decrease (AIMD).
+ * <p>
+ * Round-trip times are averaged with an exponential moving average and compared to a baseline, the lowest one seen
+ * over the last {@code baselineWindow} calls. A call that fails with an I/O error, a 5xx or a 429, or makes the
+ * average exceed {@code rttTolerance} times the baseline signals overload: the limit is multiplied by {@code backoffRatio}, at
+ * most once per baseline round trip. Any other call raises the limit by {@code 1 / limit} while the limit is
+ * actually used, i.e. by about one per round trip. Calls rejected by an open {@link CircuitBreaker} behind this limit
+ * never reached Chargify and leave the limit as it is.
+ * <p>
+ * Calls over the limit wait in a queue of up to {@code maxQueuedCalls} for at most {@code maxWaitInMillis}, then
+ * fail with {@link ConcurrencyLimitExceededException}. {@link #getLimit()}, {@link #getInFlightCalls()} and
+ * {@link #getQueuedCalls()} can be exposed as gauges.
+ */
+public final class AdaptiveConcurrencyLimit implements ClientHttpRequestInterceptor
+{
+  private static final double RTT_SMOOTHING = 0.2;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final double rttTolerance;
+  private final int baselineWindow;
+  private final int maxQueuedCalls;
+  private final long maxWaitInNanos;
+  private final LongSupplier nanoTime;
+  private final ReentrantLock lock = new ReentrantLock( true );
+  private final Condition released = lock.newCondition();
+  private final LongAdder rejected = new LongAdder();
+
+  private double limit;
+  private int inFlight;
+  private int queued;
+  private double averageRtt;
+  private long baselineRtt = Long.MAX_VALUE;
+  private long windowMinRtt = Long.MAX_VALUE;
+  private int windowSamples;
+  private long lastDecreaseAt;
+
+  /**
+   * @param initialLimit    20 by default
+   * @param minLimit        1 by default
+   * @param maxLimit        200 by default
+   * @param backoffRatio    factor applied to the limit on overload, 0.9 by default
+   * @param rttTolerance    round trip time, relative to the baseline, from which a call is slow, 2 by default
+   * @param baselineWindow  calls after which the baseline round trip time is measured anew, 500 by default
+   * @param maxQueuedCalls  calls allowed to wait for a slot, 50 by default
+   * @param maxWaitInMillis how long a call may wait for a slot, 5000 by default
+   */
+  @Builder
+  private AdaptiveConcurrencyLimit( Integer initialLimit, Integer minLimit, Integer maxLimit, Double backoffRatio,
+                                    Double rttTolerance, Integer baselineWindow, Integer maxQueuedCalls,
+                                    Long maxWaitInMillis )
+  {
+    this( initialLimit == null ? 20 : initialLimit,
+          minLimit == null ? 1 : minLimit,
+          maxLimit == null ? 200 : maxLimit,
+          backoffRatio == null ? 0.9 : backoffRatio,
+          rttTolerance == null ? 2 : rttTolerance,
+          baselineWindow == null ? 500 : baselineWindow,
+          maxQueuedCalls == null ? 50 : maxQueuedCalls,
+          maxWaitInMillis == null ? 5000 : maxWaitInMillis,
+          System::nanoTime );
+  }
+
+  AdaptiveConcurrencyLimit( int initialLimit, int minLimit, int maxLimit, double backoffRatio, double rttTolerance,
+                            int baselineWindow, int maxQueuedCalls, long maxWaitInMillis, LongSupplier nanoTime )
+  {
+    if( minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit )
+      throw new IllegalArgumentException( "Limits must satisfy 1 <= min <= initial <= max" );
+    if( backoffRatio <= 0 || backoffRatio >= 1 )
+      throw new IllegalArgumentException( "Backoff ratio must be between 0 and 1" );
+
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.rttTolerance = rttTolerance;
+    this.baselineWindow = baselineWindow;
+    this.maxQueuedCalls = maxQueuedCalls;
+    this.maxWaitInNanos = TimeUnit.MILLISECONDS.toNanos( maxWaitInMillis );
+    this.nanoTime = nanoTime;
+    this.lastDecreaseAt = nanoTime.getAsLong();
+  }
+
+  @Override
+  public ClientHttpResponse intercept( HttpRequest request, byte[] body, ClientHttpRequestExecution execution )
+      throws IOException
+  {
+    acquire();
+    final long start = nanoTime.getAsLong();
+    boolean sent = true;
+    boolean overloaded = true;
+    try
+    {
+      final ClientHttpResponse response = execution.execute( request, body );
+      overloaded = response.getStatusCode().is5xxServerError()
+                   || response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+      return response;
+    }
+    catch( CircuitBreakerOpenException e )
+    {
+      sent = false;
+      throw e;
+    }
+    finally
+    {
+      release( nanoTime.getAsLong() - start, sent, overloaded );
+    }
+  }
+
+  public int getLimit()
+  {
+    lock.lock();
+    try
+    {
+      return (int) limit;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  public int getInFlightCalls()
+  {
+    lock.lock();
+    try
+    {
+      return inFlight;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  public int getQueuedCalls()
+  {
+    lock.lock();
+    try
+    {
+      return queued;
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  public long getRejectedCalls()
+  {
+    return rejected.sum();
+  }
+
+  private void acquire() throws InterruptedIOException
+  {
+    lock.lock();
+    try
+    {
+      if( inFlight < (int) limit )
+      {
+        inFlight++;
+        return;
+      }
+      if( queued >= maxQueuedCalls )
+        throw reject();
+
+      queued++;
+      try
+      {
+        long remaining = maxWaitInNanos;
+        while( inFlight >= (int) limit )
+        {
+          if( remaining <= 0 )
+            throw reject();
+          remaining = released.awaitNanos( remaining );
+        }
+        inFlight++;
+      }
+      catch( InterruptedException e )
+      {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException( "Interrupted while waiting for the concurrency limit" );
+      }
+      finally
+      {
+        queued--;
+      }
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private ConcurrencyLimitExceededException reject()
+  {
+    rejected.increment();
+    return new ConcurrencyLimitExceededException( (int) limit );
+  }
+
+  /**
+   * @param sent whether the call reached Chargify, only those adjust the limit
+   */
+  private void release( long rtt, boolean sent, boolean failed )
+  {
+    lock.lock();
+    try
+    {
+      final int usedLimit = inFlight;
+      inFlight--;
+      if( sent )
+        update( rtt, failed, usedLimit );
+      released.signalAll();
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private void update( long rtt, boolean failed, int usedLimit )
+  {
+    if( !failed )
+    {
+      averageRtt = averageRtt == 0 ? rtt : averageRtt + ( rtt - averageRtt ) * RTT_SMOOTHING;
+      windowMinRtt = Math.min( windowMinRtt, rtt );
+      if( baselineRtt == Long.MAX_VALUE || ++windowSamples >= baselineWindow )
+      {
+        baselineRtt = windowMinRtt;
+        windowMinRtt = Long.MAX_VALUE;
+        windowSamples = 0;
+      }
+    }
+
+    if( failed || averageRtt > rttTolerance * baselineRtt )
+    {
+      final long now = nanoTime.getAsLong();
+      if( now - lastDecreaseAt >= Math.min( baselineRtt, rtt ) )
+      {
+        limit = Math.max( minLimit, limit * backoffRatio );
+        lastDecreaseAt = now;
+      }
+    }
+    else if( usedLimit * 2 >= (int) limit )
+    {
+      limit = Math.min( maxLimit, limit + 1 / limit );
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.chargify.resilience;
+
+import com.chargify.exceptions.BulkheadFullException;
+import lombok.Getter;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named limit on the calls in flight at once. Calls over the limit wait in a bounded queue for up to
+ * {@code maxWaitInMillis}; calls that find the queue full or wait longer fail with {@link BulkheadFullException}.
+ */
+public final class Bulkhead
+{
+  @Getter
+  private final String name;
+  @Getter
+  private final int maxConcurrentCalls;
+  @Getter
+  private final int maxQueuedCalls;
+  @Getter
+  private final long maxWaitInMillis;
+  private final Semaphore permits;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  public Bulkhead( String name, int maxConcurrentCalls, int maxQueuedCalls, long maxWaitInMillis )
+  {
+    if( maxConcurrentCalls < 1 )
+      throw new IllegalArgumentException( "Max concurrent calls must be positive" );
+    if( maxQueuedCalls < 0 )
+      throw new IllegalArgumentException( "Max queued calls can't be negative" );
+
+    this.name = name;
+    this.maxConcurrentCalls = maxConcurrentCalls;
+    this.maxQueuedCalls = maxQueuedCalls;
+    this.maxWaitInMillis = maxWaitInMillis;
+    this.permits = new Semaphore( maxConcurrentCalls, true );
+  }
+
+  void acquire() throws InterruptedIOException
+  {
+    if( permits.tryAcquire() )
+      return;
+
+    if( queued.incrementAndGet() > maxQueuedCalls )
+    {
+      queued.decrementAndGet();
+      rejected.increment();
+      throw new BulkheadFullException( name );
+    }
+
+    try
+    {
+      if( !permits.tryAcquire( maxWaitInMillis, TimeUnit.MILLISECONDS ) )
+      {
+        rejected.increment();
+        throw new BulkheadFullException( name );
+      }
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while waiting for bulkhead '" + name + "'" );
+    }
+    finally
+    {
+      queued.decrementAndGet();
+    }
+  }
+
+  void release()
+  {
+    permits.release();
+  }
+
+  public int getInFlightCalls()
+  {
+    return maxConcurrentCalls - permits.availablePermits();
+  }
+
+  public int getQueuedCalls()
+  {
+    return queued.get();
+  }
+
+  public long getRejectedCalls()
+  {
+    return rejected.sum();
+  }
+}
@@ -0,0 +1,154 @@
+package com.chargify.resilience;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Isolates groups of Chargify calls from each other: every request is routed by its HTTP method and path to a
+ * {@link Bulkhead}, so that e.g. slow statement and transaction reads can't take the capacity that subscription
+ * writes need. Requests that match no route are not limited.
+ * <p>
+ * {@link #chargifyDefaults()} routes the endpoints behind the {@code Chargify} methods to five bulkheads:
+ * <ul>
+ * <li>{@value #REPORTING}: subscription statements and transactions</li>
+ * <li>{@value #USAGE}: component usage reports</li>
+ * <li>{@value #CATALOG}: product families, products, components and their price points</li>
+ * <li>{@value #SUBSCRIPTION_READ}: the other reads of subscriptions, customers, payment profiles and referral
+ * codes</li>
+ * <li>{@value #SUBSCRIPTION_WRITE}: the other writes of subscriptions, customers and payment profiles</li>
+ * </ul>
+ * Routes are tried in order and added routes come first, so a call can be moved to another bulkhead by routing its
+ * endpoint there.
+ */
+public final class Bulkheads implements ClientHttpRequestInterceptor
+{
+  public static final String CATALOG = "catalog";
+  public static final String SUBSCRIPTION_READ = "subscription-read";
+  public static final String SUBSCRIPTION_WRITE = "subscription-write";
+  public static final String USAGE = "usage";
+  public static final String REPORTING = "reporting";
+
+  private final Map<String, Bulkhead> bulkheads;
+  private final List<Route> routes;
+
+  private Bulkheads( Map<String, Bulkhead> bulkheads, List<Route> routes )
+  {
+    this.bulkheads = Map.copyOf( bulkheads );
+    this.routes = List.copyOf( routes );
+  }
+
+  public static Builder builder()
+  {
+    return new Builder();
+  }
+
+  /**
+   * @return builder with the five standard bulkheads and the routes of all Chargify endpoints to them
+   */
+  public static Builder chargifyDefaults()
+  {
+    return new Builder()
+        .bulkhead( new Bulkhead( CATALOG, 10, 20, 5000 ) )
+        .bulkhead( new Bulkhead( SUBSCRIPTION_READ, 20, 50, 5000 ) )
+        .bulkhead( new Bulkhead( SUBSCRIPTION_WRITE, 20, 50, 5000 ) )
+        .bulkhead( new Bulkhead( USAGE, 10, 100, 5000 ) )
+        .bulkhead( new Bulkhead( REPORTING, 4, 8, 5000 ) )
+        .route( null, "/(subscriptions|customers|payment_profiles)([./].*)?", SUBSCRIPTION_WRITE )
+        .route( HttpMethod.GET, "/(subscriptions|customers|payment_profiles|referral_codes)([./].*)?",
+                SUBSCRIPTION_READ )
+        .route( null, "/(product_families|products|components)([./].*)?", CATALOG )
+        .route( HttpMethod.POST, "/subscriptions/[^/]+/components/[^/]+/usages\\.json", USAGE )
+        .route( HttpMethod.GET, "/subscriptions/[^/]+/(statements|transactions)\\.json", REPORTING );
+  }
+
+  public Bulkhead get( String name )
+  {
+    return bulkheads.get( name );
+  }
+
+  @Override
+  public ClientHttpResponse intercept( HttpRequest request, byte[] body, ClientHttpRequestExecution execution )
+      throws IOException
+  {
+    final Bulkhead bulkhead = bulkheadFor( request.getMethod(), request.getURI().getPath() );
+    if( bulkhead == null )
+      return execution.execute( request, body );
+
+    bulkhead.acquire();
+    try
+    {
+      return execution.execute( request, body );
+    }
+    finally
+    {
+      bulkhead.release();
+    }
+  }
+
+  Bulkhead bulkheadFor( HttpMethod method, String path )
+  {
+    for( Route route : routes )
+      if( ( route.method == null || route.method.equals( method ) ) && route.path.matcher( path ).matches() )
+        return route.bulkhead;
+    return null;
+  }
+
+  public static final class Builder
+  {
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+    private final List<Route> routes = new ArrayList<>();
+
+    private Builder()
+    {
+    }
+
+    /**
+     * Adds a bulkhead, or replaces the one with the same name
+     */
+    public Builder bulkhead( Bulkhead bulkhead )
+    {
+      bulkheads.put( bulkhead.getName(), bulkhead );
+      return this;
+    }
+
+    /**
+     * Routes requests to the named bulkhead, ahead of the routes added before
+     *
+     * @param method HTTP method to match, any when {@code null}
+     * @param path   regular expression the whole request path must match, e.g.
+     *               {@code /subscriptions/[^/]+/components\.json}
+     */
+    public Builder route( HttpMethod method, String path, String bulkheadName )
+    {
+      routes.add( 0, new Route( method, Pattern.compile( path ), bulkheadName, null ) );
+      return this;
+    }
+
+    public Bulkheads build()
+    {
+      final List<Route> resolved = new ArrayList<>();
+      for( Route route : routes )
+      {
+        final Bulkhead bulkhead = bulkheads.get( route.bulkheadName );
+        if( bulkhead == null )
+          throw new IllegalArgumentException( "Unknown bulkhead '" + route.bulkheadName + "'" );
+        resolved.add( new Route( route.method, route.path, route.bulkheadName, bulkhead ) );
+      }
+      return new Bulkheads( bulkheads, resolved );
+    }
+  }
+
+  private record Route( HttpMethod method, Pattern path, String bulkheadName, Bulkhead bulkhead )
+  {
+  }
+}
@@ -0,0 +1,231 @@
+package com.chargify.resilience;
+
+import com.chargify.exceptions.CircuitBreakerOpenException;
+import lombok.Builder;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests to Chargify while it looks unavailable, so that callers fail fast with
+ * {@link CircuitBreakerOpenException} instead of holding their threads until the read timeout.
+ * <p>
+ * The outcomes of the last {@code windowSize} calls are kept. A call fails when it throws an I/O error or gets a 5xx
+ * response, and is slow when it takes longer than {@code slowCallDurationInMillis}. Once the window holds at least
+ * {@code minimumCalls} calls and the failure rate or the slow call rate reaches its threshold, the circuit opens
+ * and rejects every call for {@code openDurationInMillis}. Then it goes half-open and lets
+ * {@code halfOpenCalls} trial calls through: if their rates stay below the thresholds the circuit closes,
+ * otherwise it opens again.
+ */
+public final class CircuitBreaker implements ClientHttpRequestInterceptor
+{
+  public enum State
+  {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  @FunctionalInterface
+  public interface Listener
+  {
+    void onStateChange( State from, State to );
+  }
+
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final double slowCallRateThreshold;
+  private final long slowCallDurationInNanos;
+  private final long openDurationInNanos;
+  private final int halfOpenCalls;
+  private final LongSupplier nanoTime;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  private final byte[] outcomes;
+  private int next;
+  private int recorded;
+  private int failures;
+  private int slowCalls;
+  private State state = State.CLOSED;
+  private long openUntil;
+  private int halfOpenPermits;
+
+  /**
+   * @param windowSize               number of recent calls the rates are computed over, 100 by default
+   * @param minimumCalls             calls needed before the circuit may open, 20 by default
+   * @param failureRateThreshold     share of failed calls that opens the circuit, 0.5 by default
+   * @param slowCallRateThreshold    share of slow calls that opens the circuit, 0.8 by default
+   * @param slowCallDurationInMillis duration from which a call is slow, 3000 by default
+   * @param openDurationInMillis     how long the circuit stays open, 30000 by default
+   * @param halfOpenCalls            trial calls made in the half-open state, 5 by default
+   */
+  @Builder
+  private CircuitBreaker( Integer windowSize, Integer minimumCalls, Double failureRateThreshold,
+                          Double slowCallRateThreshold, Long slowCallDurationInMillis, Long openDurationInMillis,
+                          Integer halfOpenCalls )
+  {
+    this( windowSize == null ? 100 : windowSize,
+          minimumCalls == null ? 20 : minimumCalls,
+          failureRateThreshold == null ? 0.5 : failureRateThreshold,
+          slowCallRateThreshold == null ? 0.8 : slowCallRateThreshold,
+          slowCallDurationInMillis == null ? 3000 : slowCallDurationInMillis,
+          openDurationInMillis == null ? 30000 : openDurationInMillis,
+          halfOpenCalls == null ? 5 : halfOpenCalls,
+          System::nanoTime );
+  }
+
+  CircuitBreaker( int windowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold,
+                  long slowCallDurationInMillis, long openDurationInMillis, int halfOpenCalls, LongSupplier nanoTime )
+  {
+    if( windowSize < 1 || halfOpenCalls < 1 )
+      throw new IllegalArgumentException( "Window size and half-open calls must be positive" );
+
+    this.windowSize = windowSize;
+    this.minimumCalls = Math.min( windowSize, Math.max( 1, minimumCalls ) );
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallDurationInNanos = TimeUnit.MILLISECONDS.toNanos( slowCallDurationInMillis );
+    this.openDurationInNanos = TimeUnit.MILLISECONDS.toNanos( openDurationInMillis );
+    this.halfOpenCalls = halfOpenCalls;
+    this.nanoTime = nanoTime;
+    this.outcomes = new byte[ windowSize ];
+  }
+
+  public void addListener( Listener listener )
+  {
+    listeners.add( listener );
+  }
+
+  public synchronized State getState()
+  {
+    return state;
+  }
+
+  @Override
+  public ClientHttpResponse intercept( HttpRequest request, byte[] body, ClientHttpRequestExecution execution )
+      throws IOException
+  {
+    acquirePermission();
+
+    final long start = nanoTime.getAsLong();
+    final ClientHttpResponse response;
+    try
+    {
+      response = execution.execute( request, body );
+    }
+    catch( IOException e )
+    {
+      record( true, nanoTime.getAsLong() - start );
+      throw e;
+    }
+    catch( RuntimeException e )
+    {
+      // not sent, e.g. refused by a fail-fast rate limiter
+      releasePermission();
+      throw e;
+    }
+
+    record( response.getStatusCode().is5xxServerError(), nanoTime.getAsLong() - start );
+    return response;
+  }
+
+  private void acquirePermission()
+  {
+    final State from;
+    final State to;
+    synchronized( this )
+    {
+      from = state;
+      if( state == State.OPEN )
+      {
+        final long now = nanoTime.getAsLong();
+        if( now < openUntil )
+          throw new CircuitBreakerOpenException( Math.max( 1, TimeUnit.NANOSECONDS.toMillis( openUntil - now ) ) );
+        transitionTo( State.HALF_OPEN );
+      }
+      if( state == State.HALF_OPEN )
+      {
+        if( halfOpenPermits == 0 )
+          throw new CircuitBreakerOpenException( 1 );
+        halfOpenPermits--;
+      }
+      to = state;
+    }
+    notify( from, to );
+  }
+
+  private synchronized void releasePermission()
+  {
+    if( state == State.HALF_OPEN )
+      halfOpenPermits++;
+  }
+
+  private void record( boolean failed, long durationInNanos )
+  {
+    final State from;
+    final State to;
+    synchronized( this )
+    {
+      from = state;
+      if( state == State.OPEN )
+        return; // a call that started before the circuit opened
+
+      final int outcome = ( failed ? 1 : 0 ) | ( durationInNanos >= slowCallDurationInNanos ? 2 : 0 );
+      if( recorded == windowSize )
+      {
+        failures -= outcomes[ next ] & 1;
+        slowCalls -= outcomes[ next ] >> 1;
+      }
+      else
+      {
+        recorded++;
+      }
+      outcomes[ next ] = (byte) outcome;
+      next = ( next + 1 ) % windowSize;
+      failures += outcome & 1;
+      slowCalls += outcome >> 1;
+
+      if( state == State.HALF_OPEN )
+      {
+        if( recorded >= halfOpenCalls )
+          transitionTo( exceedsThresholds() ? State.OPEN : State.CLOSED );
+      }
+      else if( recorded >= minimumCalls && exceedsThresholds() )
+      {
+        transitionTo( State.OPEN );
+      }
+      to = state;
+    }
+    notify( from, to );
+  }
+
+  private boolean exceedsThresholds()
+  {
+    return failures >= failureRateThreshold * recorded || slowCalls >= slowCallRateThreshold * recorded;
+  }
+
+  private void transitionTo( State newState )
+  {
+    state = newState;
+    next = 0;
+    recorded = 0;
+    failures = 0;
+    slowCalls = 0;
+    if( newState == State.OPEN )
+      openUntil = nanoTime.getAsLong() + openDurationInNanos;
+    else if( newState == State.HALF_OPEN )
+      halfOpenPermits = halfOpenCalls;
+  }
+
+  private void notify( State from, State to )
+  {
+    if( from != to )
+      listeners.forEach( listener -> listener.onStateChange( from, to ) );
+  }
+}
@@ -0,0 +1,43 @@
+package com.chargify.resilience;
+
+import java.util.function.Supplier;
+
+/**
+ * Attaches an idempotency key to the Chargify requests made by the current thread, so that Chargify performs a
+ * repeated request only once. {@code ChargifyService} sends it as the {@value #HEADER} header.
+ */
+public final class IdempotencyKey
+{
+  public static final String HEADER = "Idempotency-Key";
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private IdempotencyKey()
+  {
+  }
+
+  public static <T> T with( String key, Supplier<T> call )
+  {
+    final String previous = CURRENT.get();
+    CURRENT.set( key );
+    try
+    {
+      return call.get();
+    }
+    finally
+    {
+      if( previous == null )
+        CURRENT.remove();
+      else
+        CURRENT.set( previous );
+    }
+  }
+
+  /**
+   * @return key of the current thread, {@code null} when there is none
+   */
+  public static String current()
+  {
+    return CURRENT.get();
+  }
+}
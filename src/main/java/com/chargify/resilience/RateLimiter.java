@@ -0,0 +1,136 @@
+package com.chargify.resilience;
+
+import com.chargify.exceptions.RateLimitExceededException;
+import lombok.Builder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Client side limit on the request rate to a Chargify site, with separate token buckets for reads (GET and HEAD)
+ * and writes. Share one instance between all clients of the same site.
+ * <p>
+ * When no token is available, a request either waits for one or fails right away with
+ * {@link RateLimitExceededException}, depending on {@link Mode}. When Chargify answers 429 anyway, both buckets stop
+ * issuing tokens for the {@code Retry-After} time (one second if absent) and halve their rate, which then recovers
+ * gradually as requests go through.
+ */
+public final class RateLimiter implements ClientHttpRequestInterceptor
+{
+  public enum Mode
+  {
+    /**
+     * Wait for a token
+     */
+    BLOCK,
+    /**
+     * Throw {@link RateLimitExceededException} when no token is available
+     */
+    FAIL_FAST
+  }
+
+  private static final long DEFAULT_PAUSE_IN_MILLIS = 1000;
+
+  private final TokenBucket reads;
+  private final TokenBucket writes;
+  private final Mode mode;
+
+  @Builder
+  private RateLimiter( Double readsPerSecond, Integer readBurst, Double writesPerSecond, Integer writeBurst,
+                       Mode mode )
+  {
+    this( readsPerSecond == null ? 10 : readsPerSecond,
+          readBurst == null ? 20 : readBurst,
+          writesPerSecond == null ? 5 : writesPerSecond,
+          writeBurst == null ? 10 : writeBurst,
+          mode == null ? Mode.BLOCK : mode,
+          System::nanoTime );
+  }
+
+  RateLimiter( double readsPerSecond, int readBurst, double writesPerSecond, int writeBurst, Mode mode,
+               LongSupplier nanoTime )
+  {
+    this.reads = new TokenBucket( readsPerSecond, readBurst, nanoTime );
+    this.writes = new TokenBucket( writesPerSecond, writeBurst, nanoTime );
+    this.mode = mode;
+  }
+
+  @Override
+  public ClientHttpResponse intercept( HttpRequest request, byte[] body, ClientHttpRequestExecution execution )
+      throws IOException
+  {
+    final TokenBucket bucket = isRead( request.getMethod() ) ? reads : writes;
+    acquire( bucket );
+
+    final ClientHttpResponse response = execution.execute( request, body );
+    if( response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value() )
+      onThrottled( RetryAfter.toMillis( response.getHeaders().getFirst( HttpHeaders.RETRY_AFTER ) ) );
+    else
+      bucket.recover();
+    return response;
+  }
+
+  /**
+   * Reports a 429 received outside of this limiter, e.g. by an asynchronous client of the same site.
+   */
+  public void onThrottled( long retryAfterInMillis )
+  {
+    final long pause = TimeUnit.MILLISECONDS.toNanos(
+        retryAfterInMillis > 0 ? retryAfterInMillis : DEFAULT_PAUSE_IN_MILLIS );
+    reads.throttle( pause );
+    writes.throttle( pause );
+  }
+
+  /**
+   * @return current read rate, lower than the configured one after recent 429 responses
+   */
+  public double getReadsPerSecond()
+  {
+    return reads.getPermitsPerSecond();
+  }
+
+  public double getWritesPerSecond()
+  {
+    return writes.getPermitsPerSecond();
+  }
+
+  private void acquire( TokenBucket bucket ) throws InterruptedIOException
+  {
+    if( mode == Mode.FAIL_FAST )
+    {
+      final long wait = bucket.tryAcquire();
+      if( wait > 0 )
+        throw new RateLimitExceededException( "Client side rate limit exceeded",
+                                              Math.max( 1, TimeUnit.NANOSECONDS.toMillis( wait ) ) );
+      return;
+    }
+
+    final long wait = bucket.reserve();
+    if( wait > 0 )
+    {
+      try
+      {
+        TimeUnit.NANOSECONDS.sleep( wait );
+      }
+      catch( InterruptedException e )
+      {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException( "Interrupted while waiting for the rate limiter" );
+      }
+    }
+  }
+
+  private static boolean isRead( HttpMethod method )
+  {
+    return HttpMethod.GET.equals( method ) || HttpMethod.HEAD.equals( method );
+  }
+}
@@ -0,0 +1,51 @@
+package com.chargify.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads the {@code Retry-After} header, which holds either a number of seconds or an HTTP date.
+ */
+public final class RetryAfter
+{
+  private RetryAfter()
+  {
+  }
+
+  /**
+   * @return how long to wait in milliseconds, 0 when the header is missing, malformed or already in the past
+   */
+  public static long toMillis( String headerValue )
+  {
+    return toMillis( headerValue, Clock.systemUTC() );
+  }
+
+  static long toMillis( String headerValue, Clock clock )
+  {
+    if( headerValue == null || headerValue.isBlank() )
+      return 0;
+
+    final String value = headerValue.trim();
+    try
+    {
+      return Math.max( 0, Long.parseLong( value ) * 1000 );
+    }
+    catch( NumberFormatException ignored )
+    {
+      // not delay-seconds, must be an HTTP date
+    }
+
+    try
+    {
+      final ZonedDateTime retryAt = ZonedDateTime.parse( value, DateTimeFormatter.RFC_1123_DATE_TIME );
+      return Math.max( 0, Duration.between( clock.instant(), retryAt.toInstant() ).toMillis() );
+    }
+    catch( DateTimeParseException e )
+    {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.chargify.resilience;
+
+import lombok.Builder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries requests that failed with an I/O error (timeouts included), a 5xx or a 429 response, waiting a random
+ * time between 0 and an exponentially growing backoff before each retry ("full jitter"). A 429 waits at least its
+ * {@code Retry-After}, unless that is longer than {@code maxBackoffInMillis}: then the 429 is returned right away
+ * rather than holding the caller's thread for an unbounded time.
+ * <p>
+ * Only idempotent requests are retried: those with an idempotent method, and POSTs that carry an
+ * {@value #IDEMPOTENCY_KEY} header. With {@code idempotencyKeys} on, every POST gets a generated key that stays the
+ * same across its attempts, so Chargify performs it at most once and POSTs become retryable too.
+ * <p>
+ * Retries are limited by a budget: each request adds {@code budgetRatio} of a retry to it, up to
+ * {@code budgetCapacity}, and each retry takes one. When Chargify is down, retries thus add at most
+ * {@code budgetRatio} to the traffic instead of multiplying it by the number of attempts.
+ */
+public final class RetryPolicy implements ClientHttpRequestInterceptor
+{
+  public static final String IDEMPOTENCY_KEY = IdempotencyKey.HEADER;
+
+  private final int maxAttempts;
+  private final long baseBackoffInMillis;
+  private final long maxBackoffInMillis;
+  private final double budgetRatio;
+  private final double budgetCapacity;
+  private final boolean idempotencyKeys;
+  private final Set<HttpMethod> idempotentMethods;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder exhausted = new LongAdder();
+  private final LongAdder budgetRejections = new LongAdder();
+  private final LongAdder nonIdempotentFailures = new LongAdder();
+  private final LongAdder retryAfterRejections = new LongAdder();
+  private double budget;
+
+  /**
+   * @param maxAttempts          attempts per request including the first one, 3 by default
+   * @param baseBackoffInMillis  backoff before the first retry, doubled for every next one, 100 by default
+   * @param maxBackoffInMillis   cap of the backoff and of an obeyed {@code Retry-After}, 5000 by default
+   * @param budgetRatio          retries allowed per request on average, 0.2 by default
+   * @param budgetCapacity       retries allowed in a burst, 10 by default
+   * @param idempotencyKeys      add an idempotency key to POSTs, off by default
+   * @param idempotentMethods    methods safe to repeat, GET, HEAD, PUT and DELETE by default
+   */
+  @Builder
+  private RetryPolicy( Integer maxAttempts, Long baseBackoffInMillis, Long maxBackoffInMillis, Double budgetRatio,
+                       Integer budgetCapacity, boolean idempotencyKeys, Set<HttpMethod> idempotentMethods )
+  {
+    this.maxAttempts = maxAttempts == null ? 3 : maxAttempts;
+    this.baseBackoffInMillis = baseBackoffInMillis == null ? 100 : baseBackoffInMillis;
+    this.maxBackoffInMillis = maxBackoffInMillis == null ? 5000 : maxBackoffInMillis;
+    this.budgetRatio = budgetRatio == null ? 0.2 : budgetRatio;
+    this.budgetCapacity = budgetCapacity == null ? 10 : budgetCapacity;
+    this.idempotencyKeys = idempotencyKeys;
+    this.idempotentMethods = idempotentMethods == null
+                             ? Set.of( HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT, HttpMethod.DELETE )
+                             : Set.copyOf( idempotentMethods );
+    this.budget = this.budgetCapacity;
+
+    if( this.maxAttempts < 1 )
+      throw new IllegalArgumentException( "Max attempts must be positive" );
+  }
+
+  @Override
+  public ClientHttpResponse intercept( HttpRequest request, byte[] body, ClientHttpRequestExecution execution )
+      throws IOException
+  {
+    requests.increment();
+    deposit();
+    if( idempotencyKeys && HttpMethod.POST.equals( request.getMethod() )
+        && !request.getHeaders().containsHeader( IDEMPOTENCY_KEY ) )
+      request.getHeaders().set( IDEMPOTENCY_KEY, UUID.randomUUID().toString() );
+
+    for( int attempt = 1; ; attempt++ )
+    {
+      final ClientHttpResponse response;
+      try
+      {
+        response = execution.execute( request, body );
+      }
+      catch( IOException e )
+      {
+        if( !shouldRetry( request, attempt ) )
+          throw e;
+        backOff( attempt, 0 );
+        continue;
+      }
+
+      final int status = response.getStatusCode().value();
+      final boolean tooManyRequests = status == HttpStatus.TOO_MANY_REQUESTS.value();
+      if( !( tooManyRequests || response.getStatusCode().is5xxServerError() ) )
+        return response;
+
+      final long retryAfter = tooManyRequests
+                              ? RetryAfter.toMillis( response.getHeaders().getFirst( HttpHeaders.RETRY_AFTER ) )
+                              : 0;
+      if( retryAfter > maxBackoffInMillis )
+      {
+        retryAfterRejections.increment();
+        return response;
+      }
+      if( !shouldRetry( request, attempt ) )
+        return response;
+
+      response.close();
+      backOff( attempt, retryAfter );
+    }
+  }
+
+  public RetryStats stats()
+  {
+    return new RetryStats( requests.sum(), retries.sum(), exhausted.sum(), budgetRejections.sum(),
+                           nonIdempotentFailures.sum(), retryAfterRejections.sum() );
+  }
+
+  private boolean shouldRetry( HttpRequest request, int attempt )
+  {
+    if( !isIdempotent( request ) )
+    {
+      nonIdempotentFailures.increment();
+      return false;
+    }
+    if( attempt >= maxAttempts )
+    {
+      exhausted.increment();
+      return false;
+    }
+    if( !withdraw() )
+    {
+      budgetRejections.increment();
+      return false;
+    }
+
+    retries.increment();
+    return true;
+  }
+
+  private boolean isIdempotent( HttpRequest request )
+  {
+    return idempotentMethods.contains( request.getMethod() )
+           || HttpMethod.POST.equals( request.getMethod() ) && request.getHeaders().containsHeader( IDEMPOTENCY_KEY );
+  }
+
+  private synchronized void deposit()
+  {
+    budget = Math.min( budgetCapacity, budget + budgetRatio );
+  }
+
+  private synchronized boolean withdraw()
+  {
+    if( budget < 1 )
+      return false;
+
+    budget -= 1;
+    return true;
+  }
+
+  private void backOff( int attempt, long retryAfterInMillis ) throws InterruptedIOException
+  {
+    final long ceiling = Math.min( maxBackoffInMillis, baseBackoffInMillis << Math.min( attempt - 1, 30 ) );
+    final long backoff = Math.max( retryAfterInMillis, ThreadLocalRandom.current().nextLong( ceiling + 1 ) );
+    try
+    {
+      TimeUnit.MILLISECONDS.sleep( backoff );
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while backing off before a retry" );
+    }
+  }
+}
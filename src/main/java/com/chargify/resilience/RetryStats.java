@@ -0,0 +1,30 @@
+package com.chargify.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public final class RetryStats
+{
+  private final long requests;
+  private final long retries;
+  /**
+   * Requests that failed on their last allowed attempt
+   */
+  private final long exhausted;
+  /**
+   * Retries not made because the retry budget was spent
+   */
+  private final long budgetRejections;
+  /**
+   * Failed requests not retried because they aren't idempotent
+   */
+  private final long nonIdempotentFailures;
+  /**
+   * 429 responses not retried because their {@code Retry-After} exceeded the maximum backoff
+   */
+  private final long retryAfterRejections;
+}
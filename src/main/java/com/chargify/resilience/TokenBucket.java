@@ -0,0 +1,102 @@
+package com.chargify.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled continuously at a rate that halves whenever the server throttles and then creeps back up to
+ * the configured one, one percent per allowed request.
+ */
+final class TokenBucket
+{
+  private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+  private final double maxPermitsPerSecond;
+  private final double minPermitsPerSecond;
+  private final double burst;
+  private final LongSupplier nanoTime;
+  private double permitsPerSecond;
+  private double tokens;
+  private long refilledAt;
+
+  TokenBucket( double permitsPerSecond, int burst, LongSupplier nanoTime )
+  {
+    if( permitsPerSecond <= 0 )
+      throw new IllegalArgumentException( "Permits per second must be positive" );
+    if( burst < 1 )
+      throw new IllegalArgumentException( "Burst must be positive" );
+
+    this.maxPermitsPerSecond = permitsPerSecond;
+    this.minPermitsPerSecond = permitsPerSecond / 16;
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst;
+    this.tokens = burst;
+    this.nanoTime = nanoTime;
+    this.refilledAt = nanoTime.getAsLong();
+  }
+
+  /**
+   * Takes a token, going into debt if there is none.
+   *
+   * @return nanoseconds the caller has to wait before using the token
+   */
+  synchronized long reserve()
+  {
+    final long now = nanoTime.getAsLong();
+    final long wait = waitFor( now );
+    tokens -= 1;
+    return wait;
+  }
+
+  /**
+   * Takes a token only if it can be used right away.
+   *
+   * @return 0 when the token was taken, otherwise nanoseconds until one is available
+   */
+  synchronized long tryAcquire()
+  {
+    final long now = nanoTime.getAsLong();
+    final long wait = waitFor( now );
+    if( wait == 0 )
+      tokens -= 1;
+    return wait;
+  }
+
+  /**
+   * The server rejected a request: stop issuing tokens for the given time and halve the rate.
+   */
+  synchronized void throttle( long pauseInNanos )
+  {
+    final long now = nanoTime.getAsLong();
+    refill( now );
+    tokens = Math.min( tokens, 0 );
+    refilledAt = Math.max( refilledAt, now + pauseInNanos );
+    permitsPerSecond = Math.max( minPermitsPerSecond, permitsPerSecond / 2 );
+  }
+
+  synchronized void recover()
+  {
+    if( permitsPerSecond < maxPermitsPerSecond )
+      permitsPerSecond = Math.min( maxPermitsPerSecond, permitsPerSecond + maxPermitsPerSecond / 100 );
+  }
+
+  synchronized double getPermitsPerSecond()
+  {
+    return permitsPerSecond;
+  }
+
+  private long waitFor( long now )
+  {
+    refill( now );
+    final long paused = Math.max( 0, refilledAt - now );
+    return tokens >= 1 ? paused : paused + (long) ( ( 1 - tokens ) / permitsPerSecond * NANOS_PER_SECOND );
+  }
+
+  private void refill( long now )
+  {
+    if( now > refilledAt )
+    {
+      tokens = Math.min( burst, tokens + ( now - refilledAt ) * permitsPerSecond / NANOS_PER_SECOND );
+      refilledAt = now;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.chargify.sync;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps checkpoints in memory and appends every change to a file as a {@code key=transactionId} line, so a save
+ * costs one small write however many subscriptions are tracked. The file is compacted to one line per key when the
+ * store is opened. A last line left without its newline by a crash is ignored.
+ */
+public final class FileTransactionCheckpointStore implements TransactionCheckpointStore, AutoCloseable
+{
+  private final Map<String, Integer> checkpoints = new ConcurrentHashMap<>();
+  private final boolean sync;
+  private final FileChannel channel;
+
+  /**
+   * @param sync whether every save is forced to disk before it returns
+   */
+  public FileTransactionCheckpointStore( Path file, boolean sync )
+  {
+    this.sync = sync;
+    try
+    {
+      if( Files.exists( file ) )
+      {
+        final String content = Files.readString( file, StandardCharsets.UTF_8 );
+        for( String line : content.substring( 0, content.lastIndexOf( '\n' ) + 1 ).split( "\n" ) )
+        {
+          final int separator = line.lastIndexOf( '=' );
+          if( separator > 0 )
+            checkpoints.merge( line.substring( 0, separator ), Integer.valueOf( line.substring( separator + 1 ) ),
+                               Math::max );
+        }
+      }
+
+      final Path compacted = file.resolveSibling( file.getFileName() + ".tmp" );
+      final StringBuilder lines = new StringBuilder();
+      checkpoints.forEach( ( key, transactionId ) ->
+                               lines.append( key ).append( '=' ).append( transactionId ).append( '\n' ) );
+      try( FileChannel compactedChannel = FileChannel.open( compacted, StandardOpenOption.CREATE,
+                                                            StandardOpenOption.TRUNCATE_EXISTING,
+                                                            StandardOpenOption.WRITE ) )
+      {
+        write( compactedChannel, lines.toString() );
+        compactedChannel.force( false );
+      }
+      Files.move( compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+
+      this.channel = FileChannel.open( file, StandardOpenOption.WRITE, StandardOpenOption.APPEND );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  @Override
+  public Integer load( String key )
+  {
+    return checkpoints.get( key );
+  }
+
+  @Override
+  public synchronized void save( String key, int transactionId )
+  {
+    checkpoints.merge( key, transactionId, Math::max );
+    try
+    {
+      write( channel, key + "=" + transactionId + "\n" );
+      if( sync )
+        channel.force( false );
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  @Override
+  public synchronized void close()
+  {
+    try
+    {
+      channel.close();
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private static void write( FileChannel channel, String text ) throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.wrap( text.getBytes( StandardCharsets.UTF_8 ) );
+    while( buffer.hasRemaining() )
+      channel.write( buffer );
+  }
+}
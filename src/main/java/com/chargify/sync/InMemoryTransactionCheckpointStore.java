@@ -0,0 +1,21 @@
+package com.chargify.sync;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class InMemoryTransactionCheckpointStore implements TransactionCheckpointStore
+{
+  private final Map<String, Integer> checkpoints = new ConcurrentHashMap<>();
+
+  @Override
+  public Integer load( String key )
+  {
+    return checkpoints.get( key );
+  }
+
+  @Override
+  public void save( String key, int transactionId )
+  {
+    checkpoints.merge( key, transactionId, Math::max );
+  }
+}
@@ -0,0 +1,17 @@
+package com.chargify.sync;
+
+/**
+ * Remembers the highest transaction id already processed by each tailer of a subscription.
+ * <p>
+ * Keys are built by {@link TransactionTailer}: the subscription id, followed by the transaction kinds it pulls when
+ * it pulls only some of them, so that tailers with different filters keep their own position.
+ */
+public interface TransactionCheckpointStore
+{
+  /**
+   * @return the last processed transaction id or {@code null} when nothing was processed yet
+   */
+  Integer load( String key );
+
+  void save( String key, int transactionId );
+}
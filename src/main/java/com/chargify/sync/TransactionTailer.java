@@ -0,0 +1,88 @@
+package com.chargify.sync;
+
+import com.chargify.Chargify;
+import com.chargify.SortDirection;
+import com.chargify.SubscriptionTransactionsSearchOptions;
+import com.chargify.model.Transaction;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Pulls only the transactions a subscription got since the last poll.
+ * <p>
+ * Instead of offset paging, every request asks for the oldest transactions after the last id seen
+ * ({@code since_id}), so rows created during a poll can't shift pages and nothing is read twice. The checkpoint is
+ * saved after every page has been handed to the consumer, so a crash repeats at most one page. Tailers pulling
+ * different kinds of transactions keep separate checkpoints, even in a shared store.
+ */
+public final class TransactionTailer
+{
+  private static final int MAX_PAGE_SIZE = 200;
+
+  private final Chargify chargify;
+  private final TransactionCheckpointStore checkpointStore;
+  private final List<String> kinds;
+  private final String checkpointSuffix;
+
+  public TransactionTailer( Chargify chargify, TransactionCheckpointStore checkpointStore )
+  {
+    this( chargify, checkpointStore, null );
+  }
+
+  /**
+   * @param kinds transaction types to pull, see {@link com.chargify.model.TransactionsKinds}, all of them when
+   *              {@code null}
+   */
+  public TransactionTailer( Chargify chargify, TransactionCheckpointStore checkpointStore, List<String> kinds )
+  {
+    this.chargify = chargify;
+    this.checkpointStore = checkpointStore;
+    this.kinds = kinds;
+    this.checkpointSuffix = kinds == null || kinds.isEmpty() ? "" : "#" + String.join( ",", new TreeSet<>( kinds ) );
+  }
+
+  /**
+   * Hands every new transaction of the subscription to the consumer, oldest first.
+   *
+   * @return number of new transactions
+   */
+  public int poll( String subscriptionId, Consumer<Transaction> consumer )
+  {
+    final String checkpointKey = subscriptionId + checkpointSuffix;
+    Integer checkpoint = checkpointStore.load( checkpointKey );
+    int count = 0;
+    while( true )
+    {
+      final List<Transaction> page = chargify.findSubscriptionTransactions(
+          subscriptionId, SubscriptionTransactionsSearchOptions.builder()
+              .direction( SortDirection.ASC )
+              .pageSize( MAX_PAGE_SIZE )
+              .sinceId( checkpoint == null ? null : checkpoint + 1 )
+              .kinds( kinds )
+              .build() );
+
+      Integer highestId = null;
+      for( Transaction transaction : page )
+      {
+        if( checkpoint != null && transaction.getId() <= checkpoint )
+          continue;
+
+        consumer.accept( transaction );
+        if( highestId == null || transaction.getId() > highestId )
+          highestId = transaction.getId();
+        count++;
+      }
+
+      if( highestId == null )
+        return count;
+
+      checkpoint = highestId;
+      checkpointStore.save( checkpointKey, checkpoint );
+
+      if( page.size() < MAX_PAGE_SIZE )
+        return count;
+    }
+  }
+}
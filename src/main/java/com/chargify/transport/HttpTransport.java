@@ -0,0 +1,28 @@
+package com.chargify.transport;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Supplies the HTTP client used by {@link com.chargify.ChargifyService} to talk to Chargify.
+ * A transport may be shared by several services (e.g. one service per site) so that they share its connections.
+ */
+public interface HttpTransport
+{
+  ClientHttpRequestFactory createRequestFactory( int connectTimeoutInMillis, int readTimeoutInMillis );
+
+  /**
+   * Transport backed by {@link java.net.HttpURLConnection}, the behaviour the SDK always had.
+   */
+  static HttpTransport simple()
+  {
+    return SimpleHttpTransport.INSTANCE;
+  }
+
+  /**
+   * Transport backed by a bounded pool of keep-alive connections, see {@link PooledHttpTransport}.
+   */
+  static PooledHttpTransport.PooledHttpTransportBuilder pooled()
+  {
+    return PooledHttpTransport.builder();
+  }
+}
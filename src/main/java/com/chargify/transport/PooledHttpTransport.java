@@ -0,0 +1,80 @@
+package com.chargify.transport;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Keep-alive transport on top of a Reactor Netty connection pool (requires {@code reactor-netty} on the classpath).
+ * <p>
+ * Connections are pooled per route (remote host), so every site gets up to {@code maxConnectionsPerRoute}
+ * connections and callers beyond that wait in a queue of {@code pendingAcquireMaxCount}. Idle and too old
+ * connections are evicted in the background. Requests reuse pooled connections, so the TCP and TLS handshakes are
+ * only paid when the pool grows or an evicted connection is replaced.
+ * <p>
+ * There is no limit on the total number of connections: Reactor Netty keeps an independent pool per remote address
+ * and has no cap across them. A service talks to a single site, so a transport shared by several services holds up
+ * to {@code maxConnectionsPerRoute} times the number of sites; size the per-route limit with that in mind.
+ * <p>
+ * The pool lives as long as the transport: share one instance between services and {@link #close()} it on shutdown.
+ */
+@Getter
+public final class PooledHttpTransport implements HttpTransport, AutoCloseable
+{
+  private final int maxConnectionsPerRoute;
+  private final int pendingAcquireMaxCount;
+  private final int pendingAcquireTimeoutInMillis;
+  private final int maxIdleTimeInMillis;
+  private final int maxLifeTimeInMillis;
+  private final int evictionIntervalInMillis;
+
+  @Getter( AccessLevel.NONE )
+  private final ConnectionProvider connectionProvider;
+
+  @Builder
+  private PooledHttpTransport( String name, Integer maxConnectionsPerRoute, Integer pendingAcquireMaxCount,
+                               Integer pendingAcquireTimeoutInMillis, Integer maxIdleTimeInMillis,
+                               Integer maxLifeTimeInMillis, Integer evictionIntervalInMillis )
+  {
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute == null ? 50 : maxConnectionsPerRoute;
+    this.pendingAcquireMaxCount = pendingAcquireMaxCount == null ? 2 * this.maxConnectionsPerRoute : pendingAcquireMaxCount;
+    this.pendingAcquireTimeoutInMillis = pendingAcquireTimeoutInMillis == null ? 10_000 : pendingAcquireTimeoutInMillis;
+    this.maxIdleTimeInMillis = maxIdleTimeInMillis == null ? 30_000 : maxIdleTimeInMillis;
+    this.maxLifeTimeInMillis = maxLifeTimeInMillis == null ? 300_000 : maxLifeTimeInMillis;
+    this.evictionIntervalInMillis = evictionIntervalInMillis == null ? 10_000 : evictionIntervalInMillis;
+
+    if( this.maxConnectionsPerRoute < 1 )
+      throw new IllegalArgumentException( "Max connections per route must be positive" );
+
+    this.connectionProvider = ConnectionProvider.builder( name == null ? "chargify" : name )
+        .maxConnections( this.maxConnectionsPerRoute )
+        .pendingAcquireMaxCount( this.pendingAcquireMaxCount )
+        .pendingAcquireTimeout( Duration.ofMillis( this.pendingAcquireTimeoutInMillis ) )
+        .maxIdleTime( Duration.ofMillis( this.maxIdleTimeInMillis ) )
+        .maxLifeTime( Duration.ofMillis( this.maxLifeTimeInMillis ) )
+        .evictInBackground( Duration.ofMillis( this.evictionIntervalInMillis ) )
+        .build();
+  }
+
+  @Override
+  public ClientHttpRequestFactory createRequestFactory( int connectTimeoutInMillis, int readTimeoutInMillis )
+  {
+    ReactorClientHttpRequestFactory requestFactory =
+        new ReactorClientHttpRequestFactory( HttpClient.create( connectionProvider ).keepAlive( true ) );
+    requestFactory.setConnectTimeout( Duration.ofMillis( connectTimeoutInMillis ) );
+    requestFactory.setReadTimeout( Duration.ofMillis( readTimeoutInMillis ) );
+    return requestFactory;
+  }
+
+  @Override
+  public void close()
+  {
+    connectionProvider.dispose();
+  }
+}
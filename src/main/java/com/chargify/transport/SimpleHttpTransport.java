@@ -0,0 +1,24 @@
+package com.chargify.transport;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.time.Duration;
+
+final class SimpleHttpTransport implements HttpTransport
+{
+  static final SimpleHttpTransport INSTANCE = new SimpleHttpTransport();
+
+  private SimpleHttpTransport()
+  {
+  }
+
+  @Override
+  public ClientHttpRequestFactory createRequestFactory( int connectTimeoutInMillis, int readTimeoutInMillis )
+  {
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout( Duration.ofMillis( connectTimeoutInMillis ) );
+    requestFactory.setReadTimeout( Duration.ofMillis( readTimeoutInMillis ) );
+    return requestFactory;
+  }
+}
@@ -0,0 +1,235 @@
+package com.chargify.usage;
+
+import com.chargify.Chargify;
+import com.chargify.model.Usage;
+import lombok.Builder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers metered component usage and reports it to Chargify as one usage per subscription, component and price
+ * point with the summed quantity, instead of one {@link Chargify#reportSubscriptionComponentUsage} call per event.
+ * <p>
+ * The buffer is flushed when it holds {@code maxPendingEvents} events, every {@code flushIntervalInMillis}, on
+ * {@link #flush()} and on {@link #close()}. At most {@code maxConcurrentRequests} usages are sent at once. A usage
+ * that fails to be sent is kept and sent with the next flush, so no units are lost.
+ * <p>
+ * With a {@code writeAheadLog} file, every recorded event is written to it before {@link #record} returns, so it
+ * survives a crash of the process, and pending usage is recovered from it on start. The file is compacted while
+ * running, so it stays about as large as the pending usage. Delivery is then at least once: a crash between sending a usage and
+ * logging it as sent reports it again after the restart.
+ */
+public final class UsageAggregator implements AutoCloseable
+{
+  private final Chargify chargify;
+  private final int maxPendingEvents;
+  private final UsageWriteAheadLog writeAheadLog;
+  private final ExecutorService senders;
+  private final ScheduledExecutorService scheduler;
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private final Map<UsageKey, Long> pending = new HashMap<>();
+  private final LongAdder recordedEvents = new LongAdder();
+  private final LongAdder flushedUnits = new LongAdder();
+  private final LongAdder flushedRequests = new LongAdder();
+  private final LongAdder failedRequests = new LongAdder();
+  private int pendingEvents;
+  private long pendingUnits;
+  private volatile boolean closed;
+
+  /**
+   * @param maxPendingEvents      events that trigger a flush, 10000 by default
+   * @param flushIntervalInMillis time between flushes, 60000 by default
+   * @param maxConcurrentRequests usages sent at once, 4 by default
+   * @param writeAheadLog         file to log the events in, none by default
+   * @param syncWriteAheadLog     whether to force every event to disk before {@link #record} returns, so that it
+   *                              survives a crash of the machine too
+   */
+  @Builder
+  private UsageAggregator( Chargify chargify, Integer maxPendingEvents, Long flushIntervalInMillis,
+                           Integer maxConcurrentRequests, Path writeAheadLog, boolean syncWriteAheadLog )
+  {
+    this.chargify = Objects.requireNonNull( chargify, "chargify" );
+    this.maxPendingEvents = maxPendingEvents == null ? 10000 : maxPendingEvents;
+    this.writeAheadLog = writeAheadLog == null ? null : new UsageWriteAheadLog( writeAheadLog, syncWriteAheadLog );
+    this.senders = Executors.newFixedThreadPool( maxConcurrentRequests == null ? 4 : maxConcurrentRequests,
+                                                 daemon( "chargify-usage-sender" ) );
+    this.scheduler = Executors.newSingleThreadScheduledExecutor( daemon( "chargify-usage-flush" ) );
+
+    if( this.writeAheadLog != null )
+      this.writeAheadLog.recovered().forEach( this::add );
+
+    final long interval = flushIntervalInMillis == null ? 60000 : flushIntervalInMillis;
+    scheduler.scheduleWithFixedDelay( this::flushInBackground, interval, interval, TimeUnit.MILLISECONDS );
+  }
+
+  public void record( String subscriptionId, int componentId, Usage usage )
+  {
+    record( subscriptionId, componentId, usage.getPricePointId(), usage.getQuantity() );
+  }
+
+  /**
+   * @param pricePointId price point to report the usage for, the component's default one when {@code null}
+   */
+  public void record( String subscriptionId, int componentId, Integer pricePointId, int quantity )
+  {
+    if( closed )
+      throw new IllegalStateException( "Usage aggregator is closed" );
+
+    final UsageKey key = new UsageKey( subscriptionId, componentId, pricePointId );
+    final boolean full;
+    synchronized( this )
+    {
+      if( writeAheadLog != null )
+        writeAheadLog.recorded( key, quantity );
+      add( key, (long) quantity );
+      recordedEvents.increment();
+      full = ++pendingEvents >= maxPendingEvents;
+    }
+
+    if( full && flushRequested.compareAndSet( false, true ) )
+      scheduler.execute( this::flushInBackground );
+  }
+
+  /**
+   * Sends all the usage recorded so far and waits until it is sent. Usages that fail stay pending.
+   */
+  public void flush()
+  {
+    flushLock.lock();
+    try
+    {
+      flushRequested.set( false );
+      final Map<UsageKey, Long> batch;
+      synchronized( this )
+      {
+        batch = new HashMap<>( pending );
+        pending.clear();
+        pendingEvents = 0;
+      }
+
+      final List<Future<?>> sends = new ArrayList<>();
+      batch.forEach( ( key, quantity ) -> {
+        if( quantity != 0 )
+          sends.add( senders.submit( () -> send( key, quantity ) ) );
+      } );
+      for( Future<?> send : sends )
+        send.get();
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch( ExecutionException e )
+    {
+      throw new IllegalStateException( e.getCause() );
+    }
+    finally
+    {
+      flushLock.unlock();
+    }
+  }
+
+  public synchronized UsageAggregatorStats stats()
+  {
+    return new UsageAggregatorStats( recordedEvents.sum(), flushedUnits.sum(), flushedRequests.sum(),
+                                     failedRequests.sum(), pendingUnits );
+  }
+
+  /**
+   * Stops accepting usage and sends what is pending
+   */
+  @Override
+  public void close()
+  {
+    closed = true;
+    scheduler.shutdownNow();
+    try
+    {
+      flush();
+    }
+    finally
+    {
+      senders.shutdownNow();
+      if( writeAheadLog != null )
+        writeAheadLog.close();
+    }
+  }
+
+  private void send( UsageKey key, long quantity )
+  {
+    long remaining = quantity;
+    while( remaining != 0 )
+    {
+      final int chunk = (int) Math.max( Integer.MIN_VALUE, Math.min( Integer.MAX_VALUE, remaining ) );
+      final Usage usage = new Usage();
+      usage.setQuantity( chunk );
+      usage.setPricePointId( key.pricePointId() );
+      try
+      {
+        chargify.reportSubscriptionComponentUsage( key.subscriptionId(), key.componentId(), usage );
+      }
+      catch( RuntimeException e )
+      {
+        failedRequests.increment();
+        synchronized( this )
+        {
+          pending.merge( key, remaining, Long::sum );
+        }
+        return;
+      }
+
+      flushedRequests.increment();
+      flushedUnits.add( chunk );
+      remaining -= chunk;
+      synchronized( this )
+      {
+        pendingUnits -= chunk;
+        if( writeAheadLog != null )
+          writeAheadLog.reported( key, chunk );
+      }
+    }
+  }
+
+  private synchronized void add( UsageKey key, Long quantity )
+  {
+    pending.merge( key, quantity, Long::sum );
+    pendingUnits += quantity;
+  }
+
+  private void flushInBackground()
+  {
+    try
+    {
+      flush();
+    }
+    catch( RuntimeException ignored )
+    {
+      // failures are counted in the stats, the usage stays pending
+    }
+  }
+
+  private static ThreadFactory daemon( String name )
+  {
+    return runnable -> {
+      final Thread thread = new Thread( runnable, name );
+      thread.setDaemon( true );
+      return thread;
+    };
+  }
+}
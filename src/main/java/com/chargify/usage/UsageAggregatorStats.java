@@ -0,0 +1,29 @@
+package com.chargify.usage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public final class UsageAggregatorStats
+{
+  private final long recordedEvents;
+  /**
+   * Units reported to Chargify
+   */
+  private final long flushedUnits;
+  /**
+   * Usage POSTs that succeeded
+   */
+  private final long flushedRequests;
+  /**
+   * Usage POSTs that failed; their units are kept for the next flush
+   */
+  private final long failedRequests;
+  /**
+   * Units recorded but not reported yet
+   */
+  private final long pendingUnits;
+}
@@ -0,0 +1,5 @@
+package com.chargify.usage;
+
+record UsageKey( String subscriptionId, int componentId, Integer pricePointId )
+{
+}
@@ -0,0 +1,168 @@
+package com.chargify.usage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only log of recorded ({@code +}) and reported ({@code -}) quantities, one
+ * {@code sign subscriptionId componentId pricePointId quantity} line each, tab separated. Replaying it gives the
+ * quantities not reported yet; a last line without its newline was torn by a crash and is ignored.
+ * <p>
+ * Every line is written to the file before the call returns, so it survives a crash of the process; with
+ * {@code sync} it is also forced to disk, so it survives a crash of the machine. The log is compacted to one line per
+ * key when opened, and again whenever {@code compactAfterBytes} were appended since the last compaction.
+ */
+final class UsageWriteAheadLog implements AutoCloseable
+{
+  private static final String NO_PRICE_POINT = "-";
+  private static final long COMPACT_AFTER_BYTES = 4 * 1024 * 1024;
+
+  private final Path file;
+  private final boolean sync;
+  private final long compactAfterBytes;
+  private final Map<UsageKey, Long> recovered;
+  /**
+   * Quantities not reported yet, what a compaction writes
+   */
+  private final Map<UsageKey, Long> unreported;
+  private FileChannel channel;
+  private long appendedBytes;
+
+  UsageWriteAheadLog( Path file, boolean sync )
+  {
+    this( file, sync, COMPACT_AFTER_BYTES );
+  }
+
+  UsageWriteAheadLog( Path file, boolean sync, long compactAfterBytes )
+  {
+    this.file = file;
+    this.sync = sync;
+    this.compactAfterBytes = compactAfterBytes;
+    final Map<UsageKey, Long> pending = new HashMap<>();
+    try
+    {
+      if( Files.exists( file ) )
+      {
+        // only lines ended by a newline were written completely, a crash may have torn the last one
+        final String content = Files.readString( file, StandardCharsets.UTF_8 );
+        for( String line : content.substring( 0, content.lastIndexOf( '\n' ) + 1 ).split( "\n" ) )
+        {
+          final String[] fields = line.split( "\t" );
+          if( fields.length != 5 )
+            continue;
+
+          final UsageKey key = new UsageKey( fields[ 1 ], Integer.parseInt( fields[ 2 ] ),
+                                             NO_PRICE_POINT.equals( fields[ 3 ] ) ? null : Integer.valueOf( fields[ 3 ] ) );
+          final long quantity = Long.parseLong( fields[ 4 ] );
+          pending.merge( key, "-".equals( fields[ 0 ] ) ? -quantity : quantity, Long::sum );
+        }
+        pending.values().removeIf( quantity -> quantity == 0 );
+      }
+
+      this.recovered = Map.copyOf( pending );
+      this.unreported = pending;
+      compact();
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  /**
+   * @return quantities recorded but not reported before the log was opened
+   */
+  Map<UsageKey, Long> recovered()
+  {
+    return recovered;
+  }
+
+  synchronized void recorded( UsageKey key, long quantity )
+  {
+    append( "+", key, quantity );
+  }
+
+  synchronized void reported( UsageKey key, long quantity )
+  {
+    append( "-", key, quantity );
+  }
+
+  @Override
+  public synchronized void close()
+  {
+    try
+    {
+      channel.close();
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  private void append( String sign, UsageKey key, long quantity )
+  {
+    if( unreported.merge( key, "-".equals( sign ) ? -quantity : quantity, Long::sum ) == 0 )
+      unreported.remove( key );
+    try
+    {
+      appendedBytes += write( channel, line( sign, key, quantity ) + '\n' );
+      if( sync )
+        channel.force( false );
+      if( appendedBytes >= compactAfterBytes )
+        compact();
+    }
+    catch( IOException e )
+    {
+      throw new UncheckedIOException( e );
+    }
+  }
+
+  /**
+   * Replaces the log with one line per unreported key, written and forced to a temporary file first so that a crash
+   * leaves either the old or the new log
+   */
+  private void compact() throws IOException
+  {
+    final StringBuilder lines = new StringBuilder();
+    unreported.forEach( ( key, quantity ) -> lines.append( line( "+", key, quantity ) ).append( '\n' ) );
+
+    final Path compacted = file.resolveSibling( file.getFileName() + ".tmp" );
+    try( FileChannel compactedChannel = FileChannel.open( compacted, StandardOpenOption.CREATE,
+                                                          StandardOpenOption.TRUNCATE_EXISTING,
+                                                          StandardOpenOption.WRITE ) )
+    {
+      write( compactedChannel, lines.toString() );
+      compactedChannel.force( false );
+    }
+    if( channel != null )
+      channel.close();
+    Files.move( compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+
+    channel = FileChannel.open( file, StandardOpenOption.WRITE, StandardOpenOption.APPEND );
+    appendedBytes = 0;
+  }
+
+  private static int write( FileChannel channel, String text ) throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.wrap( text.getBytes( StandardCharsets.UTF_8 ) );
+    while( buffer.hasRemaining() )
+      channel.write( buffer );
+    return buffer.capacity();
+  }
+
+  private static String line( String sign, UsageKey key, long quantity )
+  {
+    return sign + "\t" + key.subscriptionId() + "\t" + key.componentId() + "\t"
+           + ( key.pricePointId() == null ? NO_PRICE_POINT : key.pricePointId() ) + "\t" + quantity;
+  }
+}
@@ -0,0 +1,101 @@
+package com.chargify;
+
+import com.chargify.resilience.AdaptiveConcurrencyLimit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares goodput (calls that succeed within the read timeout) of a client that floods an overloaded Chargify
+ * with one that adapts its concurrency. The stub serves 8 requests at a time in 15-25 ms each and keeps working on
+ * requests the client already gave up on, like a real server.
+ * <p>
+ * Takes several seconds and depends on the machine, so it isn't part of the test suite. Run {@link #main} from the
+ * test classpath, e.g. {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chargify.AdaptiveConcurrencyLimitLoad}; the adaptive goodput should be well above the other.
+ */
+public class AdaptiveConcurrencyLimitLoad
+{
+  private static final int CALLERS = 64;
+  private static final int SERVER_CAPACITY = 8;
+  private static final int READ_TIMEOUT_IN_MILLIS = 100;
+  private static final long DURATION_IN_MILLIS = 3000;
+
+  public static void main( String[] args ) throws Exception
+  {
+    final Semaphore workers = new Semaphore( SERVER_CAPACITY, true );
+    try( StubChargifyServer server = new StubChargifyServer( exchange -> {
+      workers.acquireUninterruptibly();
+      try
+      {
+        Thread.sleep( ThreadLocalRandom.current().nextInt( 15, 26 ) );
+      }
+      catch( InterruptedException e )
+      {
+        Thread.currentThread().interrupt();
+      }
+      finally
+      {
+        workers.release();
+      }
+      return "{\"subscription\":{\"id\":\"1\",\"state\":\"active\"}}";
+    } ) )
+    {
+      final double unlimited = goodput( server, ChargifyServiceOptions.builder()
+          .readTimeoutInMillis( READ_TIMEOUT_IN_MILLIS ).build() );
+      final AdaptiveConcurrencyLimit concurrencyLimit = AdaptiveConcurrencyLimit.builder()
+          .maxQueuedCalls( CALLERS ).maxWaitInMillis( 10_000L ).build();
+      final double adaptive = goodput( server, ChargifyServiceOptions.builder()
+          .readTimeoutInMillis( READ_TIMEOUT_IN_MILLIS )
+          .concurrencyLimit( concurrencyLimit ).build() );
+
+      System.out.printf( "%d callers against a stub serving %d at a time: goodput without limit %.0f/s, " +
+                             "with adaptive limit %.0f/s (limit settled at %d)%n",
+                         CALLERS, SERVER_CAPACITY, unlimited, adaptive, concurrencyLimit.getLimit() );
+    }
+  }
+
+  private static double goodput( StubChargifyServer server, ChargifyServiceOptions options ) throws Exception
+  {
+    final Chargify chargify = ChargifyService.forBaseUrl( server.baseUrl(), "key", options );
+    final AtomicInteger successes = new AtomicInteger();
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( DURATION_IN_MILLIS );
+
+    final ExecutorService executor = Executors.newFixedThreadPool( CALLERS );
+    try
+    {
+      final List<Future<?>> futures = new ArrayList<>();
+      for( int i = 0; i < CALLERS; i++ )
+        futures.add( executor.submit( () -> {
+          while( System.nanoTime() < deadline )
+          {
+            try
+            {
+              chargify.findSubscriptionById( "1" );
+              successes.incrementAndGet();
+            }
+            catch( RuntimeException timedOut )
+            {
+              // counts as lost work
+            }
+          }
+        } ) );
+      for( Future<?> future : futures )
+        future.get();
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+
+    // let the stub drain requests abandoned by the previous run
+    Thread.sleep( 1000 );
+    return successes.get() * 1000d / DURATION_IN_MILLIS;
+  }
+}
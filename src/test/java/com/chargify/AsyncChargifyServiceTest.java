@@ -0,0 +1,107 @@
+package com.chargify;
+
+import com.chargify.exceptions.ChargifyException;
+import com.chargify.model.Component;
+import com.chargify.model.Customer;
+import com.chargify.model.Subscription;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncChargifyServiceTest
+{
+  private static StubChargifyServer server;
+  private static ExecutorService executor;
+  private static AsyncChargify chargify;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      final String path = exchange.getRequestURI().getPath();
+      if( path.equals( "/subscriptions/1.json" ) )
+        return "{\"subscription\":{\"id\":\"1\",\"state\":\"active\"}}";
+      if( path.equals( "/subscriptions.json" ) )
+        return "[{\"subscription\":{\"id\":\"1\"}},{\"subscription\":{\"id\":\"2\"}}]";
+      if( path.equals( "/customers.json" ) )
+        return StubChargifyServer.respondWith( exchange, 422, "{\"errors\":[\"Name: cannot be blank.\"]}" );
+      return StubChargifyServer.respondWith( exchange, 404, "" );
+    } );
+    executor = Executors.newFixedThreadPool( 2 );
+    chargify = AsyncChargifyService.forBaseUrl( server.baseUrl(), "key", executor );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+    executor.shutdown();
+  }
+
+  @Test
+  public void completesWithDeserializedResponse()
+  {
+    final Subscription subscription = chargify.findSubscriptionById( "1" ).join();
+    assertEquals( "active", subscription.getState() );
+
+    final List<Subscription> subscriptions = chargify.findAllSubscriptions().join();
+    assertEquals( 2, subscriptions.size() );
+  }
+
+  @Test
+  public void completesWithNullWhenNotFound()
+  {
+    assertNull( chargify.findSubscriptionById( "2" ).join() );
+  }
+
+  @Test
+  public void completesExceptionallyWithMappedError()
+  {
+    try
+    {
+      chargify.createCustomer( new Customer() ).join();
+      fail();
+    }
+    catch( CompletionException e )
+    {
+      assertTrue( e.getCause() instanceof ChargifyException );
+      assertEquals( "Name: cannot be blank.", e.getCause().getMessage() );
+    }
+  }
+
+  @Test
+  public void failsTheFutureForInvalidArguments()
+  {
+    final int requests = server.requestCount();
+    final List<CompletableFuture<?>> results = List.of(
+        chargify.createComponent( "f1", new Component() ),
+        chargify.findSubscriptionStatements( "1", 1, 201, null, null ),
+        chargify.findSubscriptionTransactions( "1", SubscriptionTransactionsSearchOptions.builder()
+            .pageSize( 201 ).build() ) );
+
+    for( CompletableFuture<?> result : results )
+    {
+      try
+      {
+        result.join();
+        fail();
+      }
+      catch( CompletionException e )
+      {
+        assertTrue( e.getCause() instanceof IllegalArgumentException );
+      }
+    }
+    assertEquals( requests, server.requestCount() );
+  }
+}
@@ -0,0 +1,169 @@
+package com.chargify;
+
+import com.chargify.model.SubscriptionComponent;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChargifyFanOutTest
+{
+  private static StubChargifyServer server;
+
+  private ExecutorService executor;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      final String subscriptionId = exchange.getRequestURI().getPath().split( "/" )[ 2 ];
+      return "[{\"component\":{\"component_id\":1,\"subscription_id\":\"" + subscriptionId + "\"}}]";
+    } );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void createExecutor()
+  {
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void shutdownExecutor()
+  {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void neverRunsMoreCallsThanTheCap()
+  {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+
+    final Map<Integer, Integer> results = ChargifyFanOut.onExecutor( chargify(), executor, 4 ).fanOut(
+        IntStream.range( 0, 60 ).boxed().toList(), key -> {
+          maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+          sleep( 5 );
+          running.decrementAndGet();
+          return key * 2;
+        } );
+
+    assertEquals( 60, results.size() );
+    assertEquals( 4, maxRunning.get() );
+  }
+
+  @Test
+  public void keysResultsInTheOrderOfTheKeys()
+  {
+    final List<String> subscriptionIds = new ArrayList<>();
+    for( int i = 0; i < 40; i++ )
+      subscriptionIds.add( "s" + i );
+    Collections.shuffle( subscriptionIds, new Random( 7 ) );
+    server.setLatencyInMillis( 2 );
+
+    try( ChargifyFanOut fanOut = ChargifyFanOut.onPlatformThreads( chargify(), 8 ) )
+    {
+      final Map<String, List<SubscriptionComponent>> components = fanOut.findSubscriptionComponents( subscriptionIds );
+
+      assertEquals( subscriptionIds, new ArrayList<>( components.keySet() ) );
+      components.forEach( ( subscriptionId, subscriptionComponents ) ->
+                              assertEquals( subscriptionId, subscriptionComponents.get( 0 ).getSubscriptionId() ) );
+    }
+    finally
+    {
+      server.setLatencyInMillis( 0 );
+    }
+  }
+
+  @Test
+  public void stopsAtTheFirstFailure()
+  {
+    final AtomicInteger started = new AtomicInteger();
+    final CountDownLatch allStarted = new CountDownLatch( 4 );
+    final AtomicInteger cancelled = new AtomicInteger();
+
+    try
+    {
+      ChargifyFanOut.onExecutor( chargify(), executor, 4 ).fanOut( IntStream.range( 0, 100 ).boxed().toList(), key -> {
+        started.incrementAndGet();
+        allStarted.countDown();
+        try
+        {
+          // the first key fails late, the third one fails first, once the calls up to the cap are all running
+          if( key == 2 )
+          {
+            allStarted.await();
+            throw new IllegalArgumentException( "first to fail" );
+          }
+          TimeUnit.MILLISECONDS.sleep( key == 0 ? 2000 : 1000 );
+          if( key == 0 )
+            throw new IllegalArgumentException( "first key" );
+          return key;
+        }
+        catch( InterruptedException e )
+        {
+          cancelled.incrementAndGet();
+          throw new IllegalStateException( e );
+        }
+      } );
+      fail();
+    }
+    catch( IllegalArgumentException e )
+    {
+      assertEquals( "first to fail", e.getMessage() );
+    }
+
+    assertEquals( 4, started.get() );
+    waitFor( () -> cancelled.get() == 3 );
+  }
+
+  private static Chargify chargify()
+  {
+    return ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() );
+  }
+
+  private static void sleep( long millis )
+  {
+    try
+    {
+      TimeUnit.MILLISECONDS.sleep( millis );
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitFor( BooleanSupplier condition )
+  {
+    final long deadline = System.currentTimeMillis() + 5000;
+    while( !condition.getAsBoolean() )
+    {
+      assertTrue( "Timed out", System.currentTimeMillis() < deadline );
+      sleep( 5 );
+    }
+  }
+}
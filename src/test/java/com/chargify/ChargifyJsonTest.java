@@ -0,0 +1,67 @@
+package com.chargify;
+
+import com.chargify.model.Adjustment;
+import com.chargify.model.wrappers.AdjustmentWrapper;
+import com.chargify.model.wrappers.SubscriptionWrapper;
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ChargifyJsonTest
+{
+  @Test
+  public void writesDatesAsText() throws Exception
+  {
+    final Adjustment adjustment = new Adjustment();
+    adjustment.setCreatedAt( ZonedDateTime.of( 2024, 3, 1, 12, 0, 0, 0, ZoneOffset.UTC ) );
+
+    final String json = ChargifyJson.writer( AdjustmentWrapper.class )
+        .writeValueAsString( new AdjustmentWrapper( adjustment ) );
+
+    assertTrue( json, json.contains( "\"created_at\":\"2024-03-01T12:00:00Z\"" ) );
+  }
+
+  @Test
+  public void ignoresUnknownProperties() throws Exception
+  {
+    final AdjustmentWrapper wrapper = ChargifyJson.reader( AdjustmentWrapper.class )
+        .readValue( "{\"adjustment\":{\"id\":5,\"not_in_the_model\":true}}" );
+
+    assertEquals( "5", wrapper.getAdjustment().getId() );
+  }
+
+  @Test
+  public void reusesReadersAndWriters()
+  {
+    assertSame( ChargifyJson.reader( SubscriptionWrapper[].class ), ChargifyJson.reader( SubscriptionWrapper[].class ) );
+    assertSame( ChargifyJson.writer( SubscriptionWrapper.class ), ChargifyJson.writer( SubscriptionWrapper.class ) );
+    assertSame( ChargifyJson.objectMapper(), ChargifyJson.messageConverter().getObjectMapper() );
+  }
+
+  @Test
+  public void usesReflectionUnlessTurnedOn()
+  {
+    assertFalse( ChargifyJson.usesGeneratedAccessors() );
+  }
+
+  @Test
+  public void generatedAccessorsReadTheSameModelAsReflection() throws Exception
+  {
+    final byte[] page = ModelDeserializationBenchmark.subscriptions( 3 );
+    final SubscriptionWrapper[] reflection = ChargifyJson.newObjectMapper( false )
+        .readValue( page, SubscriptionWrapper[].class );
+    final SubscriptionWrapper[] generatedAccessors = ChargifyJson.newObjectMapper( true )
+        .readValue( page, SubscriptionWrapper[].class );
+
+    for( int i = 0; i < reflection.length; i++ )
+      assertEquals( reflection[ i ].getSubscription(), generatedAccessors[ i ].getSubscription() );
+    assertEquals( "1002", generatedAccessors[ 2 ].getSubscription().getId() );
+    assertEquals( "ada1002@example.com", generatedAccessors[ 2 ].getSubscription().getCustomer().getEmail() );
+  }
+}
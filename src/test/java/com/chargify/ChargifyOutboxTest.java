@@ -0,0 +1,233 @@
+package com.chargify;
+
+import com.chargify.exceptions.ChargifyException;
+import com.chargify.model.Adjustment;
+import com.chargify.outbox.ChargifyOutbox;
+import com.chargify.outbox.FsyncPolicy;
+import com.chargify.outbox.OutboxStats;
+import com.chargify.resilience.IdempotencyKey;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChargifyOutboxTest
+{
+  private static final Map<String, Integer> deliveriesByKey = new ConcurrentHashMap<>();
+  private static final List<String> attemptedKeys = new CopyOnWriteArrayList<>();
+  private static volatile int status = 200;
+  private static volatile String unavailableSubscriptionId;
+
+  private static StubChargifyServer server;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      final String key = exchange.getRequestHeaders().getFirst( IdempotencyKey.HEADER );
+      attemptedKeys.add( key );
+      if( exchange.getRequestURI().getPath().startsWith( "/subscriptions/" + unavailableSubscriptionId + "/" ) )
+        return StubChargifyServer.respondWith( exchange, 503, "Service Unavailable" );
+      if( status != 200 )
+        return StubChargifyServer.respondWith( exchange, status, "{\"errors\":[\"Amount must be positive\"]}" );
+
+      deliveriesByKey.merge( key, 1, Integer::sum );
+      return "{\"adjustment\":{\"id\":\"" + key + "\",\"success\":true}}";
+    } );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    server.reset();
+    deliveriesByKey.clear();
+    attemptedKeys.clear();
+    status = 200;
+    unavailableSubscriptionId = null;
+  }
+
+  @Test
+  public void deliversMutationsWithIdempotencyKeys() throws Exception
+  {
+    final Path directory = folder.getRoot().toPath();
+    try( ChargifyOutbox outbox = outbox( directory, 1024 ) )
+    {
+      final List<CompletableFuture<Adjustment>> results = new ArrayList<>();
+      for( int i = 0; i < 50; i++ )
+        results.add( outbox.adjust( "s" + i % 3, adjustment( 100 + i ) ) );
+
+      for( CompletableFuture<Adjustment> result : results )
+        assertNotNull( result.get( 5, TimeUnit.SECONDS ).getId() );
+
+      final OutboxStats stats = outbox.stats();
+      assertEquals( 50, stats.getAppended() );
+      assertEquals( 50, stats.getDelivered() );
+      assertEquals( 0, stats.getPending() );
+    }
+
+    assertEquals( 50, deliveriesByKey.size() );
+    // delivered segments are deleted, only the last one stays
+    assertEquals( 1, segments( directory ).length );
+  }
+
+  @Test
+  public void replaysUndeliveredEntriesWithTheirKeys() throws Exception
+  {
+    final Path directory = folder.getRoot().toPath();
+    status = 503;
+    try( ChargifyOutbox outbox = outbox( directory, 1024 * 1024 ) )
+    {
+      outbox.adjust( "s1", adjustment( 1 ) );
+      outbox.adjust( "s2", adjustment( 2 ) );
+      while( attemptedKeys.size() < 4 )
+        Thread.sleep( 5 );
+      assertEquals( 2, outbox.stats().getPending() );
+    }
+    final HashSet<String> keysBeforeRestart = new HashSet<>( attemptedKeys );
+    assertEquals( 2, keysBeforeRestart.size() );
+
+    status = 200;
+    try( ChargifyOutbox restarted = outbox( directory, 1024 * 1024 ) )
+    {
+      assertEquals( 2, restarted.stats().getRecovered() );
+      while( restarted.stats().getPending() > 0 )
+        Thread.sleep( 5 );
+    }
+
+    assertEquals( keysBeforeRestart, deliveriesByKey.keySet() );
+
+    try( ChargifyOutbox afterDelivery = outbox( directory, 1024 * 1024 ) )
+    {
+      assertEquals( 0, afterDelivery.stats().getRecovered() );
+    }
+  }
+
+  @Test
+  public void ignoresATornAcknowledgement() throws Exception
+  {
+    final Path directory = folder.getRoot().toPath();
+    status = 503;
+    try( ChargifyOutbox outbox = outbox( directory, 1024 * 1024 ) )
+    {
+      outbox.adjust( "s1", adjustment( 1 ) );
+      while( attemptedKeys.isEmpty() )
+        Thread.sleep( 5 );
+    }
+    // a crash cut the acknowledgement of entry 12 after its first digit
+    final File[] segments = segments( directory );
+    Arrays.sort( segments );
+    Files.writeString( segments[ segments.length - 1 ].toPath(), "A1", StandardOpenOption.APPEND );
+
+    status = 200;
+    try( ChargifyOutbox restarted = outbox( directory, 1024 * 1024 ) )
+    {
+      assertEquals( 1, restarted.stats().getRecovered() );
+      while( restarted.stats().getPending() > 0 )
+        Thread.sleep( 5 );
+    }
+    assertEquals( 1, deliveriesByKey.size() );
+  }
+
+  @Test
+  public void retriesDoNotHoldUpOtherSubscriptions() throws Exception
+  {
+    unavailableSubscriptionId = "s1";
+    try( ChargifyOutbox outbox = outbox( folder.getRoot().toPath(), 1024 * 1024, 1 ) )
+    {
+      final CompletableFuture<Adjustment> stuck = outbox.adjust( "s1", adjustment( 1 ) );
+      final CompletableFuture<Adjustment> queued = outbox.adjust( "s1", adjustment( 2 ) );
+      while( attemptedKeys.size() < 3 )
+        Thread.sleep( 5 );
+
+      // the only worker thread isn't taken by the retries of s1
+      assertNotNull( outbox.adjust( "s2", adjustment( 3 ) ).get( 5, TimeUnit.SECONDS ) );
+      assertTrue( outbox.stats().getRetries() >= 3 );
+
+      // the entries of s1 stay in order behind the first one
+      unavailableSubscriptionId = null;
+      assertNotNull( queued.get( 5, TimeUnit.SECONDS ) );
+      assertTrue( stuck.isDone() );
+    }
+  }
+
+  @Test
+  public void dropsRejectedMutations() throws Exception
+  {
+    status = 422;
+    try( ChargifyOutbox outbox = outbox( folder.getRoot().toPath(), 1024 * 1024 ) )
+    {
+      try
+      {
+        outbox.adjust( "s1", adjustment( -1 ) ).get( 5, TimeUnit.SECONDS );
+        fail();
+      }
+      catch( ExecutionException e )
+      {
+        assertTrue( e.getCause() instanceof ChargifyException );
+      }
+      assertEquals( 1, outbox.stats().getFailed() );
+      assertEquals( 0, outbox.stats().getPending() );
+    }
+  }
+
+  private static ChargifyOutbox outbox( Path directory, long maxSegmentBytes )
+  {
+    return outbox( directory, maxSegmentBytes, 4 );
+  }
+
+  private static ChargifyOutbox outbox( Path directory, long maxSegmentBytes, int workers )
+  {
+    return ChargifyOutbox.builder()
+        .chargify( ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() ) )
+        .directory( directory )
+        .fsyncPolicy( FsyncPolicy.NEVER )
+        .maxSegmentBytes( maxSegmentBytes )
+        .maxBackoffInMillis( 20L )
+        .workers( workers )
+        .build();
+  }
+
+  private static Adjustment adjustment( long amountInCents )
+  {
+    final Adjustment adjustment = new Adjustment();
+    adjustment.setAmountInCents( amountInCents );
+    adjustment.setMemo( "outbox" );
+    return adjustment;
+  }
+
+  private static File[] segments( Path directory )
+  {
+    return directory.toFile().listFiles( ( dir, name ) -> name.startsWith( "outbox-" ) );
+  }
+}
@@ -0,0 +1,36 @@
+package com.chargify;
+
+import com.chargify.model.CompactSubscription;
+import com.chargify.model.Subscription;
+import com.chargify.model.wrappers.SubscriptionWrapper;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prints the heap footprint of a page of subscriptions as {@link Subscription} and as {@link CompactSubscription},
+ * followed by the object breakdown of one compact subscription.
+ * Run {@link #main} from the test classpath, e.g. {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.chargify.CompactSubscriptionFootprint}.
+ */
+public class CompactSubscriptionFootprint
+{
+  private static final int SUBSCRIPTIONS = 2000;
+
+  public static void main( String[] args ) throws Exception
+  {
+    final SubscriptionWrapper[] page = ChargifyJson.reader( SubscriptionWrapper[].class )
+        .readValue( ModelDeserializationBenchmark.subscriptions( SUBSCRIPTIONS ) );
+    final List<Subscription> subscriptions = Arrays.stream( page ).map( SubscriptionWrapper::getSubscription ).toList();
+    final List<CompactSubscription> compact = subscriptions.stream().map( CompactSubscription::of ).toList();
+
+    final long subscriptionsSize = GraphLayout.parseInstance( subscriptions ).totalSize();
+    final long compactSize = GraphLayout.parseInstance( compact ).totalSize();
+    System.out.printf( "%d subscriptions: %d bytes as Subscription (%d per subscription), " +
+                           "%d bytes as CompactSubscription (%d per subscription)%n",
+                       SUBSCRIPTIONS, subscriptionsSize, subscriptionsSize / SUBSCRIPTIONS,
+                       compactSize, compactSize / SUBSCRIPTIONS );
+    System.out.println( GraphLayout.parseInstance( compact.get( 0 ) ).toFootprint() );
+  }
+}
@@ -0,0 +1,83 @@
+package com.chargify;
+
+import com.chargify.model.CompactSubscription;
+import com.chargify.model.Subscription;
+import com.chargify.model.wrappers.SubscriptionWrapper;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompactSubscriptionTest
+{
+  private static final int SUBSCRIPTIONS = 2000;
+
+  @Test
+  public void keepsTheScalarAttributes() throws Exception
+  {
+    final Subscription subscription = subscriptions( 1 ).get( 0 );
+    subscription.setMetafields( Map.of( "seats", "5" ) );
+
+    final CompactSubscription compact = CompactSubscription.of( subscription );
+
+    assertEquals( 1000, compact.getId() );
+    assertEquals( "active", compact.getState() );
+    assertEquals( "active", compact.getPreviousState() );
+    assertEquals( Long.valueOf( 0 ), compact.getBalanceInCents() );
+    assertEquals( Integer.valueOf( 4900 ), compact.getProductPriceInCents() );
+    assertTrue( ZonedDateTime.parse( "2024-03-12T10:15:30-05:00" ).isEqual( compact.getCurrentPeriodEndsAt() ) );
+    assertNull( compact.getCanceledAt() );
+    assertEquals( "1000", compact.getCustomerId() );
+    assertEquals( "pro", compact.getProductHandle() );
+    assertFalse( compact.isCancelAtEndOfPeriod() );
+    assertEquals( Map.of( "seats", "5" ), compact.getMetafields() );
+    assertEquals( Map.of(), CompactSubscription.of( subscriptions( 1 ).get( 0 ) ).getMetafields() );
+  }
+
+  @Test
+  public void sharesRepeatedStrings() throws Exception
+  {
+    final List<Subscription> subscriptions = subscriptions( 2 );
+
+    assertSame( CompactSubscription.of( subscriptions.get( 0 ) ).getProductHandle(),
+                CompactSubscription.of( subscriptions.get( 1 ) ).getProductHandle() );
+  }
+
+  @Test
+  public void keepsStatesTheSdkDoesNotKnow() throws Exception
+  {
+    final Subscription subscription = subscriptions( 1 ).get( 0 );
+    subscription.setState( "awaiting_signup" );
+
+    assertEquals( "awaiting_signup", CompactSubscription.of( subscription ).getState() );
+  }
+
+  @Test
+  public void takesAFractionOfTheMemory() throws Exception
+  {
+    final List<Subscription> subscriptions = subscriptions( SUBSCRIPTIONS );
+    final List<CompactSubscription> compact = subscriptions.stream().map( CompactSubscription::of ).toList();
+
+    final long subscriptionsSize = GraphLayout.parseInstance( subscriptions ).totalSize();
+    final long compactSize = GraphLayout.parseInstance( compact ).totalSize();
+
+    // the numbers and the breakdown of the footprint are printed by CompactSubscriptionFootprint
+    assertTrue( compactSize * 3 < subscriptionsSize );
+  }
+
+  private static List<Subscription> subscriptions( int count ) throws Exception
+  {
+    final SubscriptionWrapper[] page = ChargifyJson.reader( SubscriptionWrapper[].class )
+        .readValue( ModelDeserializationBenchmark.subscriptions( count ) );
+    return Arrays.stream( page ).map( SubscriptionWrapper::getSubscription ).toList();
+  }
+}
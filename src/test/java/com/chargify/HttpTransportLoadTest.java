@@ -0,0 +1,95 @@
+package com.chargify;
+
+import com.chargify.transport.HttpTransport;
+import com.chargify.transport.PooledHttpTransport;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpTransportLoadTest
+{
+  private static final int THREADS = 16;
+  private static final int REQUESTS = 2000;
+
+  private static StubChargifyServer server;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> "{\"subscription\":{\"id\":\"1\",\"state\":\"active\"}}" );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Test
+  public void pooledTransportReusesConnections() throws Exception
+  {
+    final int reconnectingConnections = run( reconnecting() );
+    // connections are told apart by client port, which the OS may hand out again
+    assertTrue( reconnectingConnections > REQUESTS * 9 / 10 );
+
+    try( PooledHttpTransport pooled = HttpTransport.pooled().maxConnectionsPerRoute( THREADS ).build() )
+    {
+      final int pooledConnections = run( pooled );
+
+      assertTrue( pooledConnections <= THREADS );
+      assertTrue( pooledConnections * 100 < reconnectingConnections );
+    }
+  }
+
+  /**
+   * The simple transport with keep-alive off, opening a connection per request
+   */
+  private static HttpTransport reconnecting()
+  {
+    return ( connectTimeoutInMillis, readTimeoutInMillis ) -> new SimpleClientHttpRequestFactory()
+    {
+      @Override
+      protected void prepareConnection( HttpURLConnection connection, String httpMethod ) throws IOException
+      {
+        super.prepareConnection( connection, httpMethod );
+        connection.setRequestProperty( "Connection", "close" );
+      }
+    };
+  }
+
+  private int run( HttpTransport transport ) throws Exception
+  {
+    server.reset();
+    final Chargify chargify = ChargifyService.forBaseUrl(
+        server.baseUrl(), "key", ChargifyServiceOptions.builder().transport( transport ).build() );
+
+    final ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+    try
+    {
+      final List<Future<?>> futures = new ArrayList<>();
+      for( int i = 0; i < REQUESTS; i++ )
+        futures.add( executor.submit( () -> assertEquals( "1", chargify.findSubscriptionById( "1" ).getId() ) ) );
+      for( Future<?> future : futures )
+        future.get();
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+
+    assertEquals( REQUESTS, server.requestCount() );
+    return server.connectionCount();
+  }
+}
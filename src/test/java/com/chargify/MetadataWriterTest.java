@@ -0,0 +1,219 @@
+package com.chargify;
+
+import com.chargify.metadata.MetadataWriter;
+import com.chargify.metadata.MetadataWriterStats;
+import com.chargify.model.Metadata;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetadataWriterTest
+{
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Queue<String> calls = new ConcurrentLinkedQueue<>();
+  private static final Map<String, String> stored = new ConcurrentHashMap<>();
+  private static final AtomicBoolean failing = new AtomicBoolean();
+
+  private static StubChargifyServer server;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      if( failing.get() )
+        return StubChargifyServer.respondWith( exchange, 500, "Internal Server Error" );
+
+      try
+      {
+        final JsonNode metadata = objectMapper.readTree( exchange.getRequestBody() ).get( "metadata" );
+        final String path = exchange.getRequestURI().getPath();
+        calls.add( exchange.getRequestMethod() + " " + path + " " + metadata.size() );
+        metadata.forEach( field -> stored.put( path + "#" + field.get( "name" ).asText(),
+                                               field.get( "value" ).asText() ) );
+        return metadata.toString();
+      }
+      catch( IOException e )
+      {
+        throw new UncheckedIOException( e );
+      }
+    } );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    server.reset();
+    calls.clear();
+    stored.clear();
+    failing.set( false );
+  }
+
+  @Test
+  public void mergesWritesIntoOneCallPerSubscription() throws Exception
+  {
+    final List<CompletableFuture<Metadata>> results = new ArrayList<>();
+    try( MetadataWriter writer = writer( 60_000 ) )
+    {
+      for( int i = 0; i < 60; i++ )
+        results.add( writer.create( "s" + i % 3, "field" + i % 5, String.valueOf( i ) ) );
+      writer.flush();
+
+      final MetadataWriterStats stats = writer.stats();
+      assertEquals( 60, stats.getWrites() );
+      assertEquals( 45, stats.getMergedWrites() );
+      assertEquals( 3, stats.getRequests() );
+      assertEquals( 0, stats.getPendingWrites() );
+    }
+
+    assertEquals( 3, server.requestCount() );
+    assertTrue( calls.contains( "POST /subscriptions/s0/metadata.json 5" ) );
+    // the last of i = 0, 15, 30, 45 wins
+    assertEquals( "45", stored.get( "/subscriptions/s0/metadata.json#field0" ) );
+    assertEquals( "59", stored.get( "/subscriptions/s2/metadata.json#field4" ) );
+    assertEquals( "45", results.get( 0 ).get().getValue() );
+    assertEquals( "45", results.get( 45 ).get().getValue() );
+  }
+
+  @Test
+  public void sendsUpdatesSeparatelyAndKeepsPendingCreates() throws Exception
+  {
+    try( MetadataWriter writer = writer( 60_000 ) )
+    {
+      writer.create( "s", "plan", "basic" );
+      writer.update( "s", metadata( "plan", "pro" ) );
+      writer.update( "s", metadata( "seats", "5" ) );
+      writer.flush();
+    }
+
+    assertEquals( List.of( "POST /subscriptions/s/metadata.json 1", "PUT /subscriptions/s/metadata.json 1" ),
+                  new ArrayList<>( calls ) );
+    assertEquals( "pro", stored.get( "/subscriptions/s/metadata.json#plan" ) );
+  }
+
+  @Test
+  public void sendsWhenTheWindowEnds() throws Exception
+  {
+    try( MetadataWriter writer = writer( 20 ) )
+    {
+      final CompletableFuture<Metadata> first = writer.create( "s", "a", "1" );
+      final CompletableFuture<Metadata> second = writer.create( "s", "b", "2" );
+
+      assertEquals( "1", first.get( 5, TimeUnit.SECONDS ).getValue() );
+      assertEquals( "2", second.get( 5, TimeUnit.SECONDS ).getValue() );
+      assertEquals( 1, server.requestCount() );
+    }
+  }
+
+  @Test
+  public void failsTheWritesOfAFailedCall() throws Exception
+  {
+    failing.set( true );
+    try( MetadataWriter writer = writer( 60_000 ) )
+    {
+      final CompletableFuture<Metadata> result = writer.create( "s", "a", "1" );
+      writer.flush();
+
+      try
+      {
+        result.get();
+        fail( "Expected the write to fail" );
+      }
+      catch( ExecutionException e )
+      {
+        assertTrue( e.getCause() instanceof RuntimeException );
+      }
+      assertEquals( 1, writer.stats().getFailedRequests() );
+    }
+  }
+
+  @Test
+  public void failsTheWritesOfACallThatThrowsAnError() throws Exception
+  {
+    final Chargify chargify = (Chargify) Proxy.newProxyInstance(
+        Chargify.class.getClassLoader(), new Class<?>[]{ Chargify.class }, ( proxy, method, args ) -> {
+          throw new StackOverflowError();
+        } );
+    try( MetadataWriter writer = MetadataWriter.builder().chargify( chargify ).windowInMillis( 60_000L ).build() )
+    {
+      final CompletableFuture<Metadata> create = writer.create( "s", "a", "1" );
+      final CompletableFuture<Metadata> update = writer.update( "s", metadata( "b", "2" ) );
+      writer.flush();
+
+      for( CompletableFuture<Metadata> result : List.of( create, update ) )
+      {
+        try
+        {
+          result.get( 5, TimeUnit.SECONDS );
+          fail( "Expected the write to fail" );
+        }
+        catch( ExecutionException e )
+        {
+          assertTrue( e.getCause() instanceof StackOverflowError );
+        }
+      }
+      assertEquals( 1, writer.stats().getFailedRequests() );
+    }
+  }
+
+  @Test
+  public void failsWritesAfterClose() throws Exception
+  {
+    final MetadataWriter writer = writer( 60_000 );
+    writer.close();
+
+    final CompletableFuture<Metadata> result = writer.create( "s", "a", "1" );
+    try
+    {
+      result.get( 5, TimeUnit.SECONDS );
+      fail( "Expected the write to fail" );
+    }
+    catch( ExecutionException e )
+    {
+      assertTrue( e.getCause() instanceof IllegalStateException );
+    }
+    assertEquals( 0, server.requestCount() );
+  }
+
+  private static Metadata metadata( String name, String value )
+  {
+    final Metadata metadata = new Metadata();
+    metadata.setName( name );
+    metadata.setValue( value );
+    return metadata;
+  }
+
+  private static MetadataWriter writer( long windowInMillis )
+  {
+    return MetadataWriter.builder()
+        .chargify( ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() ) )
+        .windowInMillis( windowInMillis )
+        .build();
+  }
+}
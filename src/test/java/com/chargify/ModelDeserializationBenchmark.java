@@ -0,0 +1,132 @@
+package com.chargify;
+
+import com.chargify.model.wrappers.SubscriptionWrapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a page of subscriptions as Chargify lists them: with reflection, with Blackbird's generated accessors and
+ * with a {@link Projection} of the few fields bulk scans usually need.
+ * Run {@link #main} from the test classpath, e.g. {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.chargify.ModelDeserializationBenchmark}.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ModelDeserializationBenchmark
+{
+  private static final String SUBSCRIPTION = """
+      {"subscription":{"id":$ID,"state":"active","trial_started_at":null,"trial_ended_at":null,
+      "activated_at":"2023-01-12T10:15:30-05:00","created_at":"2023-01-12T10:15:29-05:00",
+      "updated_at":"2024-02-12T10:16:02-05:00","expires_at":null,"balance_in_cents":0,
+      "current_period_ends_at":"2024-03-12T10:15:30-05:00","next_assessment_at":"2024-03-12T10:15:30-05:00",
+      "canceled_at":null,"cancellation_message":null,"next_product_id":null,"next_product_handle":null,
+      "cancel_at_end_of_period":false,"payment_collection_method":"automatic","snap_day":null,
+      "cancellation_method":null,"current_period_started_at":"2024-02-12T10:15:30-05:00","previous_state":"active",
+      "signup_payment_id":$ID,"signup_revenue":"49.00","delayed_cancel_at":null,"coupon_code":null,
+      "total_revenue_in_cents":63700,"product_price_in_cents":4900,"product_version_number":3,
+      "payment_type":"credit_card","referral_code":"x7k2qp","coupon_use_count":null,"coupon_uses_allowed":null,
+      "reason_code":null,"automatically_resume_at":null,"coupon_codes":[],"offer_id":null,"payer_id":$ID,
+      "receives_invoice_emails":null,"product_price_point_id":1041,"next_product_price_point_id":null,
+      "credit_balance_in_cents":0,"prepayment_balance_in_cents":0,"prepaid_dunning":false,"net_terms":null,
+      "stored_credential_transaction_id":null,"reference":"acct-$ID","on_hold_at":null,"locale":null,
+      "currency":"USD","scheduled_cancellation_at":null,"dunning_communication_delay_enabled":false,
+      "dunning_communication_delay_time_zone":null,"group":null,"customer":{"id":$ID,"first_name":"Ada",
+      "last_name":"Lovelace","organization":"Analytical Engines Ltd","email":"ada$ID@example.com",
+      "created_at":"2023-01-12T10:15:29-05:00","updated_at":"2023-06-01T08:00:00-04:00","reference":"cust-$ID",
+      "address":"12 St James's Square","address_2":null,"city":"London","state":"LND","zip":"SW1Y 4JH",
+      "country":"GB","phone":"+44 20 7946 0000","portal_invite_last_sent_at":null,
+      "portal_invite_last_accepted_at":null,"verified":true,"portal_customer_created_at":null,
+      "cc_emails":"billing@example.com","tax_exempt":false,"vat_number":null,"parent_id":null,"locale":null},
+      "product":{"id":88,"name":"Pro","handle":"pro","description":"Pro plan","accounting_code":"PRO",
+      "request_credit_card":true,"expiration_interval":null,"expiration_interval_unit":"never",
+      "created_at":"2022-05-01T00:00:00-04:00","updated_at":"2023-05-01T00:00:00-04:00","price_in_cents":4900,
+      "interval":1,"interval_unit":"month","initial_charge_in_cents":null,"trial_price_in_cents":null,
+      "trial_interval":null,"trial_interval_unit":"month","archived_at":null,"require_credit_card":true,
+      "return_params":"","taxable":false,"update_return_url":"","tax_code":"","initial_charge_after_trial":false,
+      "version_number":3,"update_return_params":"","default_product_price_point_id":1041,
+      "request_billing_address":false,"require_billing_address":false,"require_shipping_address":false,
+      "product_price_point_id":1041,"product_price_point_name":"Default","product_price_point_handle":"default",
+      "product_family":{"id":7,"name":"Backend","description":"","handle":"backend","accounting_code":null}},
+      "credit_card":{"id":$ID,"first_name":"Ada","last_name":"Lovelace","masked_card_number":"XXXX-XXXX-XXXX-1111",
+      "card_type":"visa","expiration_month":12,"expiration_year":2027,"customer_id":$ID,
+      "current_vault":"bogus","vault_token":"1","billing_address":"12 St James's Square","billing_city":"London",
+      "billing_state":"LND","billing_zip":"SW1Y 4JH","billing_country":"GB","customer_vault_token":null,
+      "billing_address_2":null,"payment_type":"credit_card","disabled":false,"site_gateway_setting_id":null,
+      "gateway_handle":null}}}
+      """;
+
+  @Param( { "200" } )
+  private int pageSize;
+
+  private byte[] page;
+  private ObjectReader reflection;
+  private ObjectReader generatedAccessors;
+  private WrappedArrayReader<ProjectedRecord> projection;
+
+  @Setup
+  public void setup()
+  {
+    page = subscriptions( pageSize );
+    reflection = ChargifyJson.newObjectMapper( false ).readerFor( SubscriptionWrapper[].class );
+    generatedAccessors = ChargifyJson.newObjectMapper( true ).readerFor( SubscriptionWrapper[].class );
+    projection = new WrappedArrayReader<>(
+        "subscription", Projection.of( "id", "state", "current_period_ends_at", "product.handle" )::read );
+  }
+
+  @Benchmark
+  public SubscriptionWrapper[] reflection() throws IOException
+  {
+    return reflection.readValue( page );
+  }
+
+  @Benchmark
+  public SubscriptionWrapper[] generatedAccessors() throws IOException
+  {
+    return generatedAccessors.readValue( page );
+  }
+
+  @Benchmark
+  public void projection( Blackhole blackhole ) throws IOException
+  {
+    projection.read( new ByteArrayInputStream( page ), blackhole::consume );
+  }
+
+  public static void main( String[] args ) throws Exception
+  {
+    new Runner( new OptionsBuilder().include( ModelDeserializationBenchmark.class.getSimpleName() ).build() ).run();
+  }
+
+  /**
+   * A listing page shaped like Chargify's, including the attributes the model doesn't map
+   */
+  static byte[] subscriptions( int count )
+  {
+    final StringJoiner page = new StringJoiner( ",", "[", "]" );
+    for( int i = 0; i < count; i++ )
+      page.add( SUBSCRIPTION.replace( "$ID", String.valueOf( 1000 + i ) ) );
+    return page.toString().getBytes( StandardCharsets.UTF_8 );
+  }
+}
@@ -0,0 +1,59 @@
+package com.chargify;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PageIteratorTest
+{
+  private static List<Integer> page( int pageNumber, int pageSize, int total )
+  {
+    return IntStream.range( ( pageNumber - 1 ) * pageSize, Math.min( pageNumber * pageSize, total ) )
+        .boxed()
+        .collect( Collectors.toList() );
+  }
+
+  @Test
+  public void stopsOnShortPage()
+  {
+    final List<Integer> requestedPages = new ArrayList<>();
+    final List<Integer> items = PageIterator.stream( pageNumber -> {
+      requestedPages.add( pageNumber );
+      return page( pageNumber, 10, 25 );
+    }, 1, 10 ).collect( Collectors.toList() );
+
+    assertEquals( 25, items.size() );
+    assertEquals( List.of( 1, 2, 3 ), requestedPages );
+  }
+
+  @Test
+  public void stopsOnEmptyPageWhenTotalIsMultipleOfPageSize()
+  {
+    final List<Integer> requestedPages = new ArrayList<>();
+    final long count = PageIterator.stream( pageNumber -> {
+      requestedPages.add( pageNumber );
+      return page( pageNumber, 10, 20 );
+    }, 1, 10 ).count();
+
+    assertEquals( 20, count );
+    assertEquals( List.of( 1, 2, 3 ), requestedPages );
+  }
+
+  @Test
+  public void loadsPagesOnlyAsTheyAreConsumed()
+  {
+    final List<Integer> requestedPages = new ArrayList<>();
+    final List<Integer> firstItems = PageIterator.stream( pageNumber -> {
+      requestedPages.add( pageNumber );
+      return page( pageNumber, 10, 1000 );
+    }, 1, 10 ).limit( 15 ).collect( Collectors.toList() );
+
+    assertEquals( 15, firstItems.size() );
+    assertEquals( List.of( 1, 2 ), requestedPages );
+  }
+}
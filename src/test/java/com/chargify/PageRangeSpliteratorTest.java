@@ -0,0 +1,49 @@
+package com.chargify;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PageRangeSpliteratorTest
+{
+  private static IntFunction<List<Integer>> listing( int total, int pageSize, Map<Integer, AtomicInteger> loads )
+  {
+    return pageNumber -> {
+      loads.computeIfAbsent( pageNumber, ignored -> new AtomicInteger() ).incrementAndGet();
+      return IntStream.range( ( pageNumber - 1 ) * pageSize, Math.min( pageNumber * pageSize, total ) )
+          .boxed()
+          .collect( Collectors.toList() );
+    };
+  }
+
+  @Test
+  public void probesTotalPages()
+  {
+    for( int total : new int[]{ 0, 1, 9, 10, 11, 99, 100, 101, 1234 } )
+    {
+      final int expected = ( total + 9 ) / 10;
+      assertEquals( "total " + total, expected,
+                    PageRangeSpliterator.probeTotalPages( listing( total, 10, new ConcurrentHashMap<>() ), 10 ) );
+    }
+  }
+
+  @Test
+  public void parallelStreamFetchesEveryPageOnceInOrder()
+  {
+    final Map<Integer, AtomicInteger> loads = new ConcurrentHashMap<>();
+    final List<Integer> items = PageRangeSpliterator.parallelStream( listing( 1005, 10, loads ), 10, 101 )
+        .collect( Collectors.toList() );
+
+    assertEquals( IntStream.range( 0, 1005 ).boxed().collect( Collectors.toList() ), items );
+    assertEquals( 101, loads.size() );
+    loads.values().forEach( count -> assertEquals( 1, count.get() ) );
+  }
+}
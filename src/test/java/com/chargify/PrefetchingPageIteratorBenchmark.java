@@ -0,0 +1,105 @@
+package com.chargify;
+
+import com.chargify.model.Subscription;
+import com.sun.net.httpserver.HttpExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Streams {@link #TOTAL} subscriptions from a local server answering each page after {@code latencyInMillis}, one
+ * page at a time and with pages prefetched.
+ * Run {@link #main} from the test classpath, e.g. {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.chargify.PrefetchingPageIteratorBenchmark}.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class PrefetchingPageIteratorBenchmark
+{
+  static final int TOTAL = 1000;
+
+  @Param( { "50" } )
+  private int pageSize;
+
+  @Param( { "20" } )
+  private int latencyInMillis;
+
+  @Param( { "4" } )
+  private int prefetchPages;
+
+  private StubChargifyServer server;
+  private Chargify chargify;
+
+  @Setup
+  public void setup() throws IOException
+  {
+    server = new StubChargifyServer( PrefetchingPageIteratorBenchmark::subscriptions );
+    server.setLatencyInMillis( latencyInMillis );
+    chargify = ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() );
+  }
+
+  @TearDown
+  public void cleanup()
+  {
+    server.close();
+  }
+
+  @Benchmark
+  public long serial()
+  {
+    return chargify.streamSubscriptions( pageSize ).count();
+  }
+
+  @Benchmark
+  public long prefetch()
+  {
+    try( Stream<Subscription> subscriptions = chargify.streamSubscriptions( pageSize, prefetchPages ) )
+    {
+      return subscriptions.count();
+    }
+  }
+
+  public static void main( String[] args ) throws Exception
+  {
+    new Runner( new OptionsBuilder().include( PrefetchingPageIteratorBenchmark.class.getSimpleName() ).build() )
+        .run();
+  }
+
+  /**
+   * The requested page of subscriptions 0 to {@link #TOTAL}, as Chargify lists them
+   */
+  static String subscriptions( HttpExchange exchange )
+  {
+    final Map<String, Integer> query = Stream.of( exchange.getRequestURI().getQuery().split( "&" ) )
+        .map( param -> param.split( "=" ) )
+        .collect( Collectors.toMap( param -> param[ 0 ], param -> Integer.valueOf( param[ 1 ] ) ) );
+    final int from = ( query.get( "page" ) - 1 ) * query.get( "per_page" );
+    final int to = Math.min( from + query.get( "per_page" ), TOTAL );
+    return IntStream.range( from, Math.max( from, to ) )
+        .mapToObj( id -> "{\"subscription\":{\"id\":\"" + id + "\",\"state\":\"active\"," +
+            "\"total_revenue_in_cents\":" + id + "}}" )
+        .collect( Collectors.joining( ",", "[", "]" ) );
+  }
+}
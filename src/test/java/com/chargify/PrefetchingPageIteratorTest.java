@@ -0,0 +1,94 @@
+package com.chargify;
+
+import com.chargify.model.Subscription;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Throughput of prefetching is measured by {@link PrefetchingPageIteratorBenchmark}
+ */
+public class PrefetchingPageIteratorTest
+{
+  private static final int PAGE_SIZE = 50;
+  private static final int LATENCY_IN_MILLIS = 20;
+  private static final AtomicInteger inFlight = new AtomicInteger();
+  private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+  private static StubChargifyServer server;
+  private static Chargify chargify;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      maxInFlight.accumulateAndGet( inFlight.incrementAndGet(), Math::max );
+      try
+      {
+        Thread.sleep( LATENCY_IN_MILLIS );
+        return PrefetchingPageIteratorBenchmark.subscriptions( exchange );
+      }
+      catch( InterruptedException e )
+      {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException( e );
+      }
+      finally
+      {
+        inFlight.decrementAndGet();
+      }
+    } );
+    chargify = ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    maxInFlight.set( 0 );
+  }
+
+  @Test
+  public void prefetchingKeepsOrderAndOverlapsRequests()
+  {
+    final List<String> serialIds = chargify.streamSubscriptions( PAGE_SIZE )
+        .map( Subscription::getId )
+        .collect( Collectors.toList() );
+    assertEquals( 1, maxInFlight.get() );
+
+    final List<String> prefetchedIds;
+    try( Stream<Subscription> subscriptions = chargify.streamSubscriptions( PAGE_SIZE, 4 ) )
+    {
+      prefetchedIds = subscriptions.map( Subscription::getId ).collect( Collectors.toList() );
+    }
+
+    assertEquals( PrefetchingPageIteratorBenchmark.TOTAL, prefetchedIds.size() );
+    assertEquals( serialIds, prefetchedIds );
+    assertTrue( maxInFlight.get() > 1 );
+    assertTrue( maxInFlight.get() <= 4 );
+  }
+
+  @Test
+  public void stopsRequestingAfterShortPage()
+  {
+    final List<Integer> items = PrefetchingPageIterator.stream( page -> page < 3 ? List.of( page, page ) : List.of( page ),
+                                                                1, 2, 3 )
+        .collect( Collectors.toList() );
+
+    assertEquals( List.of( 1, 1, 2, 2, 3 ), items );
+  }
+}
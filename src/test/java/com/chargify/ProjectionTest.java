@@ -0,0 +1,77 @@
+package com.chargify;
+
+import com.chargify.model.Subscription;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ProjectionTest
+{
+  private static final Projection SUMMARY =
+      Projection.of( "id", "state", "current_period_ends_at", "product.handle", "customer.email", "canceled_at" );
+
+  private static StubChargifyServer server;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer(
+        exchange -> new String( ModelDeserializationBenchmark.subscriptions( 3 ), StandardCharsets.UTF_8 ) );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Test
+  public void readsOnlyTheProjectedFields()
+  {
+    final List<ProjectedRecord> subscriptions = chargify().findSubscriptionsByState( "active", 1, 200, SUMMARY );
+
+    assertEquals( 3, subscriptions.size() );
+    final ProjectedRecord subscription = subscriptions.get( 1 );
+    assertEquals( Long.valueOf( 1001 ), subscription.getLong( "id" ) );
+    assertEquals( "active", subscription.get( "state" ) );
+    assertEquals( ZonedDateTime.parse( "2024-03-12T10:15:30-05:00" ),
+                  subscription.getZonedDateTime( "current_period_ends_at" ) );
+    assertEquals( "pro", subscription.get( "product.handle" ) );
+    assertEquals( "ada1001@example.com", subscription.get( "customer.email" ) );
+    assertNull( subscription.get( "canceled_at" ) );
+  }
+
+  @Test
+  public void projectsFullObjectsTheSameWay()
+  {
+    final Chargify chargify = chargify();
+    final Projection projection = Projection.of( "id", "state", "product.handle", "customer.email" );
+    final List<Subscription> subscriptions = chargify.findSubscriptions( 1, 200 );
+
+    assertEquals( chargify.findSubscriptions( 1, 200, projection ), projection.project( subscriptions ) );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void rejectsFieldsThatAreNotProjected()
+  {
+    chargify().findSubscriptions( 1, 200, SUMMARY ).get( 0 ).get( "balance_in_cents" );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void rejectsFieldsInsideProjectedFields()
+  {
+    Projection.of( "customer", "customer.email" );
+  }
+
+  private static Chargify chargify()
+  {
+    return ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() );
+  }
+}
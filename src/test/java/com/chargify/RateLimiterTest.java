@@ -0,0 +1,140 @@
+package com.chargify;
+
+import com.chargify.exceptions.RateLimitExceededException;
+import com.chargify.resilience.CircuitBreaker;
+import com.chargify.resilience.RateLimiter;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimiterTest
+{
+  private static final AtomicBoolean throttled = new AtomicBoolean();
+
+  private static StubChargifyServer server;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      if( throttled.get() )
+      {
+        exchange.getResponseHeaders().add( "Retry-After", "1" );
+        return StubChargifyServer.respondWith( exchange, 429, "" );
+      }
+      return "{\"subscription\":{\"id\":\"1\",\"state\":\"active\"}}";
+    } );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    server.reset();
+    throttled.set( false );
+  }
+
+  @Test
+  public void blockingLimiterPacesRequests()
+  {
+    final Chargify chargify = chargify( RateLimiter.builder().readsPerSecond( 20d ).readBurst( 5 ).build() );
+
+    final long start = System.nanoTime();
+    for( int i = 0; i < 15; i++ )
+      chargify.findSubscriptionById( "1" );
+    final long elapsedInMillis = ( System.nanoTime() - start ) / 1_000_000;
+
+    // 5 requests of burst, then 10 more at 20 per second
+    assertTrue( "took " + elapsedInMillis + " ms", elapsedInMillis >= 450 );
+    assertEquals( 15, server.requestCount() );
+  }
+
+  @Test
+  public void failFastLimiterRejectsWithoutSending()
+  {
+    final Chargify chargify = chargify( RateLimiter.builder()
+                                            .readsPerSecond( 1d ).readBurst( 2 )
+                                            .mode( RateLimiter.Mode.FAIL_FAST )
+                                            .build() );
+    chargify.findSubscriptionById( "1" );
+    chargify.findSubscriptionById( "1" );
+    try
+    {
+      chargify.findSubscriptionById( "1" );
+      fail();
+    }
+    catch( RateLimitExceededException e )
+    {
+      assertTrue( e.getRetryAfterInMillis() > 0 );
+    }
+    assertEquals( 2, server.requestCount() );
+  }
+
+  @Test
+  public void tooManyRequestsSlowsTheLimiterDown()
+  {
+    final RateLimiter rateLimiter = RateLimiter.builder()
+        .readsPerSecond( 100d ).mode( RateLimiter.Mode.FAIL_FAST ).build();
+    final Chargify chargify = chargify( rateLimiter );
+    throttled.set( true );
+
+    try
+    {
+      chargify.findSubscriptionById( "1" );
+      fail();
+    }
+    catch( RateLimitExceededException e )
+    {
+      assertEquals( 1000, e.getRetryAfterInMillis() );
+    }
+    assertEquals( 50, rateLimiter.getReadsPerSecond(), 0 );
+
+    try
+    {
+      chargify.findSubscriptionById( "1" );
+      fail();
+    }
+    catch( RateLimitExceededException e )
+    {
+      assertEquals( 1, server.requestCount() );
+    }
+  }
+
+  @Test
+  public void waitingForTheLimiterIsNoSlowCall()
+  {
+    final CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+        .minimumCalls( 5 ).slowCallRateThreshold( 0.5 ).slowCallDurationInMillis( 20L ).build();
+    final Chargify chargify = ChargifyService.forBaseUrl(
+        server.baseUrl(), "key",
+        ChargifyServiceOptions.builder()
+            .rateLimiter( RateLimiter.builder().readsPerSecond( 20d ).readBurst( 1 ).build() )
+            .circuitBreaker( circuitBreaker )
+            .build() );
+
+    // every call but the first waits 50 ms for a token
+    for( int i = 0; i < 10; i++ )
+      chargify.findSubscriptionById( "1" );
+
+    assertEquals( CircuitBreaker.State.CLOSED, circuitBreaker.getState() );
+    assertEquals( 10, server.requestCount() );
+  }
+
+  private static Chargify chargify( RateLimiter rateLimiter )
+  {
+    return ChargifyService.forBaseUrl( server.baseUrl(), "key",
+                                       ChargifyServiceOptions.builder().rateLimiter( rateLimiter ).build() );
+  }
+}
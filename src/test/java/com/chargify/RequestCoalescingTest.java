@@ -0,0 +1,182 @@
+package com.chargify;
+
+import com.chargify.model.Customer;
+import com.chargify.model.Subscription;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescingTest
+{
+  private static final int CALLERS = 32;
+
+  private static StubChargifyServer server;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      if( exchange.getRequestURI().getPath().endsWith( "/subscriptions.json" ) )
+        return "[{\"subscription\":{\"id\":\"1\"}},{\"subscription\":{\"id\":\"2\"}}]";
+      return exchange.getRequestURI().getQuery().contains( "missing" )
+             ? StubChargifyServer.respondWith( exchange, 404, "{\"errors\":[\"Not found\"]}" )
+             : "{\"customer\":{\"id\":\"1\",\"reference\":\"ref\"}}";
+    } );
+    server.setLatencyInMillis( 200 );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    server.reset();
+  }
+
+  @Test
+  public void identicalConcurrentGetsShareOneRequest() throws Exception
+  {
+    final ChargifyService chargify = ChargifyService.forBaseUrl(
+        server.baseUrl(), "key", ChargifyServiceOptions.builder().coalesceGets( true ).build() );
+
+    final List<Customer> customers = callConcurrently( () -> chargify.findCustomerByReference( "ref" ) );
+
+    customers.forEach( customer -> assertSame( customers.get( 0 ), customer ) );
+    assertEquals( "1", customers.get( 0 ).getId() );
+    assertTrue( server.requestCount() < CALLERS / 2 );
+    assertEquals( CALLERS, chargify.getCoalescingStats().getGets() );
+    assertEquals( CALLERS - server.requestCount(), chargify.getCoalescingStats().getCoalescedGets() );
+  }
+
+  @Test
+  public void coalescedCallersShareNotFound() throws Exception
+  {
+    final ChargifyService chargify = ChargifyService.forBaseUrl(
+        server.baseUrl(), "key", ChargifyServiceOptions.builder().coalesceGets( true ).build() );
+
+    callConcurrently( () -> chargify.findCustomerByReference( "missing" ) ).forEach( Assert::assertNull );
+    assertTrue( server.requestCount() < CALLERS / 2 );
+  }
+
+  @Test
+  public void identicalConcurrentListingsShareOneRequest() throws Exception
+  {
+    final ChargifyService chargify = ChargifyService.forBaseUrl(
+        server.baseUrl(), "key", ChargifyServiceOptions.builder().coalesceGets( true ).build() );
+
+    final List<List<Subscription>> subscriptions =
+        callConcurrently( () -> chargify.findSubscriptionsByCustomerId( "1", 1, 20 ) );
+
+    subscriptions.forEach( listing -> assertSame( subscriptions.get( 0 ), listing ) );
+    assertEquals( 2, subscriptions.get( 0 ).size() );
+    assertTrue( server.requestCount() < CALLERS / 2 );
+    assertEquals( CALLERS - server.requestCount(), chargify.getCoalescingStats().getCoalescedGets() );
+
+    // another page is another request
+    server.reset();
+    chargify.findSubscriptionsByCustomerId( "1", 2, 20 );
+    assertEquals( 1, server.requestCount() );
+  }
+
+  @Test
+  public void coalescedCallersShareErrors() throws Exception
+  {
+    final CoalescingRestTemplate restTemplate = new CoalescingRestTemplate( List.of( ChargifyJson.messageConverter() ) );
+    final URI uri = URI.create( server.baseUrl() + "/subscriptions.json" );
+    final CountDownLatch sending = new CountDownLatch( 1 );
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final Future<Object> leader = executor.submit( () -> restTemplate.coalesce( uri, "listing", () -> {
+        sending.countDown();
+        while( restTemplate.stats().getCoalescedGets() == 0 )
+          Thread.onSpinWait();
+        throw new OutOfMemoryError( "Java heap space" );
+      } ) );
+      sending.await();
+
+      try
+      {
+        restTemplate.coalesce( uri, "listing", () -> "not sent" );
+        fail();
+      }
+      catch( OutOfMemoryError expected )
+      {
+      }
+      try
+      {
+        leader.get();
+        fail();
+      }
+      catch( ExecutionException e )
+      {
+        assertTrue( e.getCause() instanceof OutOfMemoryError );
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+
+    assertEquals( "sent", restTemplate.coalesce( uri, "listing", () -> "sent" ) );
+  }
+
+  @Test
+  public void getsAreNotCoalescedByDefault() throws Exception
+  {
+    final ChargifyService chargify = ChargifyService.forBaseUrl(
+        server.baseUrl(), "key", ChargifyServiceOptions.builder().build() );
+
+    callConcurrently( () -> chargify.findCustomerByReference( "ref" ) );
+
+    assertEquals( CALLERS, server.requestCount() );
+    assertEquals( 0, chargify.getCoalescingStats().getCoalescedGets() );
+  }
+
+  private static <T> List<T> callConcurrently( Callable<T> call ) throws Exception
+  {
+    final ExecutorService executor = Executors.newFixedThreadPool( CALLERS );
+    final CountDownLatch start = new CountDownLatch( 1 );
+    try
+    {
+      final List<Future<T>> futures = new ArrayList<>();
+      for( int i = 0; i < CALLERS; i++ )
+        futures.add( executor.submit( () -> {
+          start.await();
+          return call.call();
+        } ) );
+      start.countDown();
+
+      final List<T> results = new ArrayList<>();
+      for( Future<T> future : futures )
+        results.add( future.get() );
+      return results;
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+}
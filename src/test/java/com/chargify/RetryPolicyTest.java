@@ -0,0 +1,196 @@
+package com.chargify;
+
+import com.chargify.exceptions.HttpServerErrorException;
+import com.chargify.exceptions.RateLimitExceededException;
+import com.chargify.model.SubscriptionCharge;
+import com.chargify.resilience.RetryPolicy;
+import com.chargify.resilience.RetryStats;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest
+{
+  private static final AtomicInteger failuresLeft = new AtomicInteger();
+  private static final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+  private static volatile String retryAfter;
+
+  private static StubChargifyServer server;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      idempotencyKeys.add( String.valueOf( exchange.getRequestHeaders().getFirst( RetryPolicy.IDEMPOTENCY_KEY ) ) );
+      if( failuresLeft.getAndDecrement() > 0 )
+      {
+        if( retryAfter == null )
+          return StubChargifyServer.respondWith( exchange, 502, "Bad Gateway" );
+        exchange.getResponseHeaders().set( "Retry-After", retryAfter );
+        return StubChargifyServer.respondWith( exchange, 429, "" );
+      }
+      if( exchange.getRequestMethod().equals( "POST" ) )
+        return "{\"charge\":{\"id\":7,\"success\":true}}";
+      return "{\"subscription\":{\"id\":\"1\",\"state\":\"active\"}}";
+    } );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    server.reset();
+    idempotencyKeys.clear();
+    retryAfter = null;
+  }
+
+  @Test
+  public void retriesGetsOnServerErrors()
+  {
+    final RetryPolicy retryPolicy = RetryPolicy.builder().baseBackoffInMillis( 1L ).build();
+    failuresLeft.set( 2 );
+
+    assertEquals( "1", chargify( retryPolicy ).findSubscriptionById( "1" ).getId() );
+
+    final RetryStats stats = retryPolicy.stats();
+    assertEquals( 3, server.requestCount() );
+    assertEquals( 1, stats.getRequests() );
+    assertEquals( 2, stats.getRetries() );
+  }
+
+  @Test
+  public void givesUpAfterMaxAttempts()
+  {
+    final RetryPolicy retryPolicy = RetryPolicy.builder().maxAttempts( 2 ).baseBackoffInMillis( 1L ).build();
+    failuresLeft.set( 5 );
+
+    try
+    {
+      chargify( retryPolicy ).findSubscriptionById( "1" );
+      fail();
+    }
+    catch( HttpServerErrorException e )
+    {
+      assertEquals( 502, e.getStatusCode() );
+    }
+    assertEquals( 2, server.requestCount() );
+    assertEquals( 1, retryPolicy.stats().getExhausted() );
+  }
+
+  @Test
+  public void doesNotRetryPostsWithoutIdempotencyKey()
+  {
+    final RetryPolicy retryPolicy = RetryPolicy.builder().baseBackoffInMillis( 1L ).build();
+    failuresLeft.set( 1 );
+
+    try
+    {
+      chargify( retryPolicy ).createSubscriptionCharge( "1", new SubscriptionCharge( 100L, "charge" ) );
+      fail();
+    }
+    catch( HttpServerErrorException e )
+    {
+      assertEquals( 1, server.requestCount() );
+      assertEquals( 1, retryPolicy.stats().getNonIdempotentFailures() );
+    }
+  }
+
+  @Test
+  public void retriesPostsWithTheSameIdempotencyKey()
+  {
+    final RetryPolicy retryPolicy = RetryPolicy.builder().baseBackoffInMillis( 1L ).idempotencyKeys( true ).build();
+    failuresLeft.set( 1 );
+
+    assertNotNull( chargify( retryPolicy ).createSubscriptionCharge( "1", new SubscriptionCharge( 100L, "charge" ) ) );
+
+    assertEquals( 2, idempotencyKeys.size() );
+    assertEquals( idempotencyKeys.get( 0 ), idempotencyKeys.get( 1 ) );
+  }
+
+  @Test
+  public void retryBudgetLimitsRetries()
+  {
+    final RetryPolicy retryPolicy = RetryPolicy.builder()
+        .baseBackoffInMillis( 1L ).budgetCapacity( 2 ).budgetRatio( 0.25 ).build();
+    final Chargify chargify = chargify( retryPolicy );
+    failuresLeft.set( Integer.MAX_VALUE );
+
+    for( int i = 0; i < 10; i++ )
+    {
+      try
+      {
+        chargify.findSubscriptionById( "1" );
+        fail();
+      }
+      catch( HttpServerErrorException ignored )
+      {
+      }
+    }
+
+    // the first request spends the initial budget, the next ones earn a retry every 4 requests
+    assertEquals( 4, retryPolicy.stats().getRetries() );
+    assertEquals( 14, server.requestCount() );
+    assertEquals( 9, retryPolicy.stats().getBudgetRejections() );
+    failuresLeft.set( 0 );
+  }
+
+  @Test
+  public void waitsForRetryAfterUpToTheMaxBackoff()
+  {
+    final RetryPolicy retryPolicy = RetryPolicy.builder().maxBackoffInMillis( 1500L ).build();
+    failuresLeft.set( 1 );
+    retryAfter = "1";
+
+    final long start = System.nanoTime();
+    assertEquals( "1", chargify( retryPolicy ).findSubscriptionById( "1" ).getId() );
+
+    assertTrue( System.nanoTime() - start >= TimeUnit.SECONDS.toNanos( 1 ) );
+    assertEquals( 2, server.requestCount() );
+  }
+
+  @Test
+  public void givesUpWhenRetryAfterExceedsTheMaxBackoff()
+  {
+    final RetryPolicy retryPolicy = RetryPolicy.builder().maxBackoffInMillis( 1500L ).build();
+    failuresLeft.set( 1 );
+    retryAfter = "3600";
+
+    final long start = System.nanoTime();
+    try
+    {
+      chargify( retryPolicy ).findSubscriptionById( "1" );
+      fail();
+    }
+    catch( RateLimitExceededException e )
+    {
+      assertEquals( 3_600_000, e.getRetryAfterInMillis() );
+    }
+
+    assertTrue( System.nanoTime() - start < TimeUnit.SECONDS.toNanos( 1 ) );
+    assertEquals( 1, server.requestCount() );
+    assertEquals( 0, retryPolicy.stats().getRetries() );
+    assertEquals( 1, retryPolicy.stats().getRetryAfterRejections() );
+  }
+
+  private static Chargify chargify( RetryPolicy retryPolicy )
+  {
+    return ChargifyService.forBaseUrl( server.baseUrl(), "key",
+                                       ChargifyServiceOptions.builder().retryPolicy( retryPolicy ).build() );
+  }
+}
@@ -0,0 +1,106 @@
+package com.chargify;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Local HTTP server standing in for a Chargify site. Counts requests and distinct client connections.
+ */
+final class StubChargifyServer implements AutoCloseable
+{
+  private static final ThreadLocal<Integer> STATUS = new ThreadLocal<>();
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Set<String> connections = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger requests = new AtomicInteger();
+  private volatile int latencyInMillis;
+
+  StubChargifyServer( Function<HttpExchange, String> responder ) throws IOException
+  {
+    server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+    executor = Executors.newFixedThreadPool( 64 );
+    server.setExecutor( executor );
+    server.createContext( "/", exchange -> respond( exchange, responder ) );
+    server.start();
+  }
+
+  private void respond( HttpExchange exchange, Function<HttpExchange, String> responder ) throws IOException
+  {
+    requests.incrementAndGet();
+    connections.add( exchange.getRemoteAddress().toString() );
+    try
+    {
+      if( latencyInMillis > 0 )
+        Thread.sleep( latencyInMillis );
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+    }
+
+    byte[] body = responder.apply( exchange ).getBytes( StandardCharsets.UTF_8 );
+    Integer status = STATUS.get();
+    STATUS.remove();
+    exchange.getResponseHeaders().add( "Content-Type", "application/json" );
+    exchange.sendResponseHeaders( status == null ? 200 : status, body.length );
+    try( OutputStream out = exchange.getResponseBody() )
+    {
+      out.write( body );
+    }
+  }
+
+  /**
+   * Lets a responder answer with something other than 200 OK. Exchange attributes are shared by the whole context,
+   * so the status travels on the handling thread.
+   */
+  static String respondWith( HttpExchange exchange, int status, String body )
+  {
+    STATUS.set( status );
+    return body;
+  }
+
+  String baseUrl()
+  {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  void setLatencyInMillis( int latencyInMillis )
+  {
+    this.latencyInMillis = latencyInMillis;
+  }
+
+  int requestCount()
+  {
+    return requests.get();
+  }
+
+  int connectionCount()
+  {
+    return connections.size();
+  }
+
+  void reset()
+  {
+    requests.set( 0 );
+    connections.clear();
+  }
+
+  @Override
+  public void close()
+  {
+    server.stop( 0 );
+    executor.shutdownNow();
+  }
+}
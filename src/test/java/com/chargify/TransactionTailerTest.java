@@ -0,0 +1,159 @@
+package com.chargify;
+
+import com.chargify.model.Transaction;
+import com.chargify.model.TransactionKind;
+import com.chargify.sync.FileTransactionCheckpointStore;
+import com.chargify.sync.InMemoryTransactionCheckpointStore;
+import com.chargify.sync.TransactionCheckpointStore;
+import com.chargify.sync.TransactionTailer;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TransactionTailerTest
+{
+  private static final List<String> sinceIds = new CopyOnWriteArrayList<>();
+  private static volatile int transactions;
+
+  private static StubChargifyServer server;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( TransactionTailerTest::transactions );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    sinceIds.clear();
+    transactions = 450;
+  }
+
+  @Test
+  public void pagesBySinceId()
+  {
+    final List<Integer> ids = new ArrayList<>();
+    final TransactionTailer tailer = new TransactionTailer( chargify(), new InMemoryTransactionCheckpointStore() );
+
+    assertEquals( 450, tailer.poll( "s1", transaction -> ids.add( transaction.getId() ) ) );
+    assertEquals( IntStream.rangeClosed( 1, 450 ).boxed().toList(), ids );
+    // two full pages, then a short one ends the poll
+    assertEquals( List.of( "", "201", "401" ), sinceIds );
+
+    sinceIds.clear();
+    assertEquals( 0, tailer.poll( "s1", transaction -> ids.add( transaction.getId() ) ) );
+    assertEquals( List.of( "451" ), sinceIds );
+
+    transactions = 455;
+    assertEquals( 5, tailer.poll( "s1", transaction -> ids.add( transaction.getId() ) ) );
+    assertEquals( 455, (int) ids.get( ids.size() - 1 ) );
+  }
+
+  @Test
+  public void resumesFromTheSavedCheckpoint() throws Exception
+  {
+    final Path file = folder.getRoot().toPath().resolve( "checkpoints" );
+    try( FileTransactionCheckpointStore store = new FileTransactionCheckpointStore( file, true ) )
+    {
+      new TransactionTailer( chargify(), store ).poll( "s1", transaction -> {} );
+      new TransactionTailer( chargify(), store ).poll( "s2", transaction -> {} );
+    }
+    // one line per page, then a crash tearing the last line
+    assertEquals( List.of( "s1=200", "s1=400", "s1=450", "s2=200", "s2=400", "s2=450" ),
+                  Files.readAllLines( file ) );
+    Files.writeString( file, "s3=4", StandardOpenOption.APPEND );
+
+    transactions = 460;
+    try( FileTransactionCheckpointStore store = new FileTransactionCheckpointStore( file, true ) )
+    {
+      assertEquals( Integer.valueOf( 450 ), store.load( "s1" ) );
+      assertNull( store.load( "s3" ) );
+      assertEquals( List.of( "s1=450", "s2=450" ), Files.readAllLines( file ).stream().sorted().toList() );
+
+      final List<Integer> ids = new ArrayList<>();
+      final TransactionTailer tailer = new TransactionTailer( chargify(), store );
+      assertEquals( 10, tailer.poll( "s1", transaction -> ids.add( transaction.getId() ) ) );
+      assertEquals( 451, (int) ids.get( 0 ) );
+    }
+  }
+
+  @Test
+  public void keepsACheckpointPerKindsFilter()
+  {
+    final TransactionCheckpointStore store = new InMemoryTransactionCheckpointStore();
+    final List<Transaction> payments = new ArrayList<>();
+
+    assertEquals( 225, new TransactionTailer( chargify(), store, List.of( "payment" ) ).poll( "s1", payments::add ) );
+    payments.forEach( payment -> assertSame( TransactionKind.PAYMENT, payment.getTypedTransactionType() ) );
+
+    // the unfiltered tailer doesn't start after the payments
+    assertEquals( 450, new TransactionTailer( chargify(), store ).poll( "s1", transaction -> {} ) );
+    assertEquals( 0, new TransactionTailer( chargify(), store, List.of( "payment" ) ).poll( "s1", payments::add ) );
+    assertEquals( Integer.valueOf( 450 ), store.load( "s1#payment" ) );
+  }
+
+  /**
+   * Transactions 1 to {@link #transactions} of every subscription, baseline charges and payments alternating
+   */
+  private static String transactions( HttpExchange exchange )
+  {
+    int sinceId = 1;
+    int perPage = 20;
+    final List<String> kinds = new ArrayList<>();
+    for( String parameter : exchange.getRequestURI().getRawQuery().split( "&" ) )
+    {
+      final String[] nameAndValue = URLDecoder.decode( parameter, StandardCharsets.UTF_8 ).split( "=" );
+      switch( nameAndValue[ 0 ] )
+      {
+        case "since_id" -> sinceId = Integer.parseInt( nameAndValue[ 1 ] );
+        case "per_page" -> perPage = Integer.parseInt( nameAndValue[ 1 ] );
+        case "kinds[]" -> kinds.add( nameAndValue[ 1 ] );
+        default -> {}
+      }
+    }
+    sinceIds.add( exchange.getRequestURI().getRawQuery().contains( "since_id" ) ? String.valueOf( sinceId ) : "" );
+
+    return IntStream.rangeClosed( sinceId, transactions )
+        .mapToObj( id -> id % 2 == 0 ? new String[]{ String.valueOf( id ), "payment", "null" }
+                                     : new String[]{ String.valueOf( id ), "charge", "\"baseline\"" } )
+        .filter( transaction -> kinds.isEmpty() || kinds.contains( transaction[ 1 ] ) )
+        .limit( perPage )
+        .map( transaction -> "{\"transaction\":{\"id\":" + transaction[ 0 ] + ",\"transaction_type\":\""
+                             + transaction[ 1 ] + "\",\"kind\":" + transaction[ 2 ] + "}}" )
+        .collect( Collectors.joining( ",", "[", "]" ) );
+  }
+
+  private static Chargify chargify()
+  {
+    return ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() );
+  }
+}
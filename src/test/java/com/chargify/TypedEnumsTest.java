@@ -0,0 +1,116 @@
+package com.chargify;
+
+import com.chargify.model.CompactSubscription;
+import com.chargify.model.Subscription;
+import com.chargify.model.SubscriptionState;
+import com.chargify.model.SubscriptionStates;
+import com.chargify.model.Transaction;
+import com.chargify.model.TransactionKind;
+import com.chargify.model.TransactionsKinds;
+import com.chargify.model.wrappers.SubscriptionWrapper;
+import com.chargify.model.wrappers.TransactionWrapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypedEnumsTest
+{
+  @Test
+  public void readsStatesAsSharedStrings() throws Exception
+  {
+    final Subscription subscription = subscriptions( 1 ).get( 0 );
+
+    assertSame( SubscriptionStates.ACTIVE, subscription.getState() );
+    assertSame( SubscriptionState.ACTIVE, subscription.getTypedState() );
+    assertSame( SubscriptionState.ACTIVE, subscription.getTypedPreviousState() );
+  }
+
+  @Test
+  public void fallsBackToUnknown() throws Exception
+  {
+    final Subscription subscription = ChargifyJson.reader( SubscriptionWrapper.class )
+        .<SubscriptionWrapper>readValue( "{\"subscription\":{\"id\":\"1\",\"state\":\"awaiting_signup\"}}" )
+        .getSubscription();
+
+    assertEquals( "awaiting_signup", subscription.getState() );
+    assertSame( SubscriptionState.UNKNOWN, subscription.getTypedState() );
+    assertNull( subscription.getTypedPreviousState() );
+    assertSame( SubscriptionState.UNKNOWN, CompactSubscription.of( subscription ).getTypedState() );
+  }
+
+  @Test
+  public void readsTransactionTypes() throws Exception
+  {
+    final Transaction charge = transaction(
+        "{\"transaction\":{\"id\":1,\"transaction_type\":\"charge\",\"kind\":\"baseline\","
+        + "\"type\":\"Charge\",\"amount_in_cents\":4900,\"memo\":\"Basic Plan (10/18/2026 - 11/18/2026)\"}}" );
+    final Transaction proration = transaction(
+        "{\"transaction\":{\"id\":2,\"transaction_type\":\"charge\",\"kind\":\"component_proration\","
+        + "\"type\":\"Charge\",\"amount_in_cents\":1250,\"component_id\":\"77\"}}" );
+    final Transaction payment = transaction(
+        "{\"transaction\":{\"id\":3,\"transaction_type\":\"payment\",\"kind\":null,"
+        + "\"type\":\"Payment\",\"amount_in_cents\":6150,\"success\":true}}" );
+
+    assertSame( TransactionsKinds.CHARGE, charge.getTransactionType() );
+    assertSame( TransactionKind.CHARGE, charge.getTypedTransactionType() );
+    assertEquals( "baseline", charge.getKind() );
+    assertSame( TransactionKind.CHARGE, proration.getTypedTransactionType() );
+    assertEquals( "component_proration", proration.getKind() );
+    assertSame( TransactionKind.PAYMENT, payment.getTypedTransactionType() );
+    assertNull( payment.getKind() );
+    assertSame( TransactionKind.INFO_TRANSACTION, TransactionKind.of( "info_transaction" ) );
+    assertSame( TransactionKind.UNKNOWN, TransactionKind.of( "chargeback" ) );
+  }
+
+  @Test
+  public void writesTheChargifyValues() throws Exception
+  {
+    final Subscription subscription = new Subscription();
+    subscription.setState( SubscriptionState.TRIALING.getValue() );
+
+    final String json = ChargifyJson.objectMapper().writeValueAsString( subscription );
+    assertTrue( json.contains( "\"state\":\"trialing\"" ) );
+    assertFalse( json.contains( "typed" ) );
+    assertEquals( "\"past_due\"", ChargifyJson.objectMapper().writeValueAsString( SubscriptionState.PAST_DUE ) );
+  }
+
+  @Test
+  public void aggregatesByState() throws Exception
+  {
+    final List<Subscription> subscriptions = subscriptions( 3 );
+    subscriptions.get( 2 ).setState( SubscriptionStates.PAST_DUE );
+
+    final Map<SubscriptionState, Long> counts = subscriptions.stream().collect(
+        Collectors.groupingBy( Subscription::getTypedState, () -> new EnumMap<>( SubscriptionState.class ),
+                               Collectors.counting() ) );
+
+    assertEquals( Map.of( SubscriptionState.ACTIVE, 2L, SubscriptionState.PAST_DUE, 1L ), counts );
+    assertEquals( 2, subscriptions.stream()
+        .filter( subscription -> EnumSet.of( SubscriptionState.ACTIVE, SubscriptionState.TRIALING )
+            .contains( subscription.getTypedState() ) )
+        .count() );
+  }
+
+  private static Transaction transaction( String json ) throws Exception
+  {
+    return ChargifyJson.reader( TransactionWrapper.class ).<TransactionWrapper>readValue( json ).getTransaction();
+  }
+
+  private static List<Subscription> subscriptions( int count ) throws Exception
+  {
+    final SubscriptionWrapper[] page = ChargifyJson.reader( SubscriptionWrapper[].class )
+        .readValue( ModelDeserializationBenchmark.subscriptions( count ) );
+    return Arrays.stream( page ).map( SubscriptionWrapper::getSubscription ).toList();
+  }
+}
@@ -0,0 +1,166 @@
+package com.chargify;
+
+import com.chargify.usage.UsageAggregator;
+import com.chargify.usage.UsageAggregatorStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class UsageAggregatorTest
+{
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final Map<String, Long> reported = new ConcurrentHashMap<>();
+  private static final AtomicInteger failuresLeft = new AtomicInteger();
+
+  private static StubChargifyServer server;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> {
+      if( failuresLeft.getAndDecrement() > 0 )
+        return StubChargifyServer.respondWith( exchange, 500, "Internal Server Error" );
+
+      try
+      {
+        final JsonNode usage = objectMapper.readTree( exchange.getRequestBody() ).get( "usage" );
+        final String key = exchange.getRequestURI().getPath() + "@" + usage.path( "price_point_id" ).asText( "" );
+        reported.merge( key, usage.get( "quantity" ).asLong(), Long::sum );
+        return "{\"usage\":" + usage + "}";
+      }
+      catch( IOException e )
+      {
+        throw new UncheckedIOException( e );
+      }
+    } );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Before
+  public void reset()
+  {
+    server.reset();
+    reported.clear();
+    failuresLeft.set( 0 );
+  }
+
+  @Test
+  public void sumsEventsIntoOneRequestPerKey()
+  {
+    try( UsageAggregator aggregator = aggregator( null ) )
+    {
+      for( int i = 0; i < 10_000; i++ )
+        aggregator.record( "s" + i % 5, 7, i % 2 == 0 ? null : 3, 2 );
+      aggregator.flush();
+
+      final UsageAggregatorStats stats = aggregator.stats();
+      assertEquals( 10_000, stats.getRecordedEvents() );
+      assertEquals( 20_000, stats.getFlushedUnits() );
+      assertEquals( 10, stats.getFlushedRequests() );
+      assertEquals( 0, stats.getPendingUnits() );
+    }
+
+    assertEquals( 10, server.requestCount() );
+    assertEquals( 2000, (long) reported.get( "/subscriptions/s0/components/7/usages.json@" ) );
+    assertEquals( 2000, (long) reported.get( "/subscriptions/s0/components/7/usages.json@3" ) );
+  }
+
+  @Test
+  public void flushesWhenFull() throws Exception
+  {
+    try( UsageAggregator aggregator = UsageAggregator.builder()
+        .chargify( chargify() ).maxPendingEvents( 100 ).build() )
+    {
+      for( int i = 0; i < 100; i++ )
+        aggregator.record( "s", 1, null, 1 );
+
+      while( aggregator.stats().getPendingUnits() > 0 )
+        Thread.sleep( 5 );
+      assertEquals( 1, server.requestCount() );
+    }
+  }
+
+  @Test
+  public void keepsUnitsOfFailedRequests()
+  {
+    failuresLeft.set( 1 );
+    try( UsageAggregator aggregator = aggregator( null ) )
+    {
+      aggregator.record( "s", 1, null, 5 );
+      aggregator.flush();
+      assertEquals( 1, aggregator.stats().getFailedRequests() );
+      assertEquals( 5, aggregator.stats().getPendingUnits() );
+
+      aggregator.record( "s", 1, null, 2 );
+    }
+
+    assertEquals( 7, (long) reported.get( "/subscriptions/s/components/1/usages.json@" ) );
+  }
+
+  @Test
+  public void recoversPendingUsageFromWriteAheadLog() throws Exception
+  {
+    final Path log = folder.getRoot().toPath().resolve( "usage.log" );
+    failuresLeft.set( Integer.MAX_VALUE );
+
+    final UsageAggregator crashed = aggregator( log );
+    crashed.record( "s", 1, 4, 3 );
+    crashed.record( "s", 1, 4, 4 );
+    crashed.record( "t", 2, null, 1 );
+    crashed.close(); // can't send anything
+    // a crash tore a line recording 12 units after the first digit of the quantity
+    Files.writeString( log, "+\ts\t1\t4\t1", StandardOpenOption.APPEND );
+
+    failuresLeft.set( 0 );
+    try( UsageAggregator restarted = aggregator( log ) )
+    {
+      assertEquals( 8, restarted.stats().getPendingUnits() );
+    }
+
+    assertEquals( 7, (long) reported.get( "/subscriptions/s/components/1/usages.json@4" ) );
+    assertEquals( 1, (long) reported.get( "/subscriptions/t/components/2/usages.json@" ) );
+
+    try( UsageAggregator afterDelivery = aggregator( log ) )
+    {
+      assertEquals( 0, afterDelivery.stats().getPendingUnits() );
+    }
+  }
+
+  private static UsageAggregator aggregator( Path writeAheadLog )
+  {
+    return UsageAggregator.builder()
+        .chargify( chargify() )
+        .writeAheadLog( writeAheadLog )
+        .syncWriteAheadLog( true )
+        .build();
+  }
+
+  private static Chargify chargify()
+  {
+    return ChargifyService.forBaseUrl( server.baseUrl(), "key", ChargifyServiceOptions.builder().build() );
+  }
+}
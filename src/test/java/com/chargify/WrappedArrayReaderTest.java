@@ -0,0 +1,93 @@
+package com.chargify;
+
+import com.chargify.model.Customer;
+import com.chargify.model.Subscription;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class WrappedArrayReaderTest
+{
+  private static StubChargifyServer server;
+
+  @BeforeClass
+  public static void setup() throws Exception
+  {
+    server = new StubChargifyServer( exchange -> exchange.getRequestURI().getPath().startsWith( "/customers" )
+        ? "[{\"customer\":{\"id\":\"c1\",\"email\":\"a@example.com\"}},{\"customer\":{\"id\":\"c2\"}}]"
+        : new String( ModelDeserializationBenchmark.subscriptions( 3 ), StandardCharsets.UTF_8 ) );
+  }
+
+  @AfterClass
+  public static void cleanup()
+  {
+    server.close();
+  }
+
+  @Test
+  public void unwrapsElementsAsTheyArrive() throws Exception
+  {
+    final List<String> ids = new ArrayList<>();
+    final int count = new WrappedArrayReader<>( "subscription", Subscription.class ).read(
+        json( "[{\"subscription\":{\"id\":\"1\",\"state\":\"active\"},\"ignored\":{\"nested\":[1,2]}}," +
+                  "{\"ignored\":[],\"subscription\":{\"id\":\"2\"}}]" ),
+        subscription -> ids.add( subscription.getId() ) );
+
+    assertEquals( 2, count );
+    assertEquals( List.of( "1", "2" ), ids );
+  }
+
+  @Test
+  public void readsElementsWithoutTheWrapperAsNull() throws Exception
+  {
+    final List<Subscription> subscriptions = new ArrayList<>();
+    new WrappedArrayReader<>( "subscription", Subscription.class ).read( json( "[{}]" ), subscriptions::add );
+
+    assertEquals( 1, subscriptions.size() );
+    assertNull( subscriptions.get( 0 ) );
+  }
+
+  @Test
+  public void readsAnEmptyBodyAsNoElements() throws Exception
+  {
+    assertEquals( 0, new WrappedArrayReader<>( "customer", Customer.class ).read( json( "" ), customer -> {} ) );
+    assertEquals( 0, new WrappedArrayReader<>( "customer", Customer.class ).read( json( "[]" ), customer -> {} ) );
+  }
+
+  @Test( expected = MismatchedInputException.class )
+  public void rejectsAnythingButAnArray() throws Exception
+  {
+    new WrappedArrayReader<>( "customer", Customer.class ).read( json( "{\"customer\":{}}" ), customer -> {} );
+  }
+
+  @Test
+  public void streamsListingsOfChargifyService()
+  {
+    final Chargify chargify = ChargifyService.forBaseUrl( server.baseUrl(), "key",
+                                                          ChargifyServiceOptions.builder().build() );
+
+    final List<Subscription> subscriptions = new ArrayList<>();
+    assertEquals( 3, chargify.forEachSubscriptionByState( "active", 1, 200, subscriptions::add ) );
+    assertEquals( "1002", subscriptions.get( 2 ).getId() );
+    assertEquals( "ada1002@example.com", subscriptions.get( 2 ).getCustomer().getEmail() );
+
+    final List<Customer> customers = chargify.findCustomers( 1, 50 );
+    assertEquals( 2, customers.size() );
+    assertEquals( "a@example.com", customers.get( 0 ).getEmail() );
+  }
+
+  private static InputStream json( String json )
+  {
+    return new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) );
+  }
+}
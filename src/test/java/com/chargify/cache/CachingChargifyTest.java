@@ -0,0 +1,240 @@
+package com.chargify.cache;
+
+import com.chargify.model.PricePointIntervalUnit;
+import com.chargify.model.product.Product;
+import com.chargify.model.product.ProductFamily;
+import com.chargify.model.product.ProductPricePoint;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class CachingChargifyTest
+{
+  private static final Duration TTL = Duration.ofMinutes( 10 );
+
+  private final ManualClock clock = new ManualClock();
+  private RecordingChargify recording;
+  private CachingChargify chargify;
+
+  @Before
+  public void setup()
+  {
+    recording = new RecordingChargify()
+        .answer( "findProductById", args -> product( (String) args[ 0 ], "handle-" + args[ 0 ] ) )
+        .answer( "findProductByApiHandle", args -> product( "id-" + args[ 0 ], (String) args[ 0 ] ) )
+        .answer( "findAllProducts", args -> List.of( product( "1", "basic" ), product( "2", "pro" ) ) )
+        .answer( "findProductPricePointsByProductId", args -> Set.of( new ProductPricePoint() ) )
+        .answer( "createProduct", args -> product( "9", "new" ) )
+        .answer( "archiveProductById", args -> product( (String) args[ 0 ], null ) )
+        .answer( "findProductFamilyById", args -> productFamily( (String) args[ 0 ] ) )
+        .answer( "findAllProductFamilies", args -> List.of( productFamily( "f1" ) ) )
+        .answer( "createProductFamily", args -> productFamily( "f9" ) )
+        .answer( "archiveProductFamilyById", args -> productFamily( (String) args[ 0 ] ) );
+    chargify = new CachingChargify( recording.chargify(), 100, TTL, clock );
+  }
+
+  @Test
+  public void servesProductsFromTheCacheUntilTheyExpire()
+  {
+    final Product product = chargify.findProductById( "1" );
+
+    assertSame( product, chargify.findProductById( "1" ) );
+    assertSame( product, chargify.findProductByApiHandle( "handle-1" ) );
+    assertEquals( 1, recording.calls( "findProductById" ) );
+    assertEquals( 0, recording.calls( "findProductByApiHandle" ) );
+
+    clock.millis = TTL.toMillis() - 1;
+    chargify.findProductById( "1" );
+    assertEquals( 1, recording.calls( "findProductById" ) );
+
+    clock.millis = TTL.toMillis();
+    chargify.findProductByApiHandle( "handle-1" );
+    assertEquals( 1, recording.calls( "findProductByApiHandle" ) );
+    // reloading by handle renewed the entry by id
+    chargify.findProductById( "id-handle-1" );
+    assertEquals( 1, recording.calls( "findProductById" ) );
+    chargify.findProductById( "1" );
+    assertEquals( 2, recording.calls( "findProductById" ) );
+  }
+
+  @Test
+  public void loadsAProductOnceForConcurrentMisses() throws Exception
+  {
+    final CountDownLatch release = new CountDownLatch( 1 );
+    recording.answer( "findProductByApiHandle", args -> {
+      await( release );
+      return product( "1", (String) args[ 0 ] );
+    } );
+
+    final ExecutorService executor = Executors.newFixedThreadPool( 8 );
+    try
+    {
+      final List<Future<Product>> products = new ArrayList<>();
+      for( int i = 0; i < 8; i++ )
+        products.add( executor.submit( () -> chargify.findProductByApiHandle( "pro" ) ) );
+      while( chargify.stats().get( "productsByHandle" ).getCollapsedLoads() < 7 )
+        Thread.sleep( 5 );
+      release.countDown();
+
+      for( Future<Product> product : products )
+        assertEquals( "1", product.get( 5, TimeUnit.SECONDS ).getId() );
+      assertEquals( 1, recording.calls( "findProductByApiHandle" ) );
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void writesCreatedProductsThrough()
+  {
+    assertEquals( 2, chargify.findAllProducts().size() );
+
+    final Product created = chargify.createProduct( "f1", product( null, "new" ) );
+
+    assertSame( created, chargify.findProductById( "9" ) );
+    assertSame( created, chargify.findProductByApiHandle( "new" ) );
+    assertEquals( 0, recording.calls( "findProductById" ) );
+    assertEquals( 0, recording.calls( "findProductByApiHandle" ) );
+
+    chargify.findAllProducts();
+    assertEquals( 2, recording.calls( "findAllProducts" ) );
+  }
+
+  @Test
+  public void listingsFillTheProductCaches()
+  {
+    chargify.findAllProducts();
+    chargify.findAllProducts();
+
+    assertEquals( "2", chargify.findProductByApiHandle( "pro" ).getId() );
+    assertEquals( "basic", chargify.findProductById( "1" ).getHandle() );
+    assertEquals( 1, recording.calls( "findAllProducts" ) );
+    assertEquals( 0, recording.calls( "findProductById" ) );
+    assertEquals( 0, recording.calls( "findProductByApiHandle" ) );
+  }
+
+  @Test
+  public void archivingAProductInvalidatesIt()
+  {
+    chargify.findProductById( "1" );
+    chargify.findProductPricePointsByProductId( "1" );
+    chargify.findAllProducts();
+
+    chargify.archiveProductById( "1" );
+
+    chargify.findProductById( "1" );
+    chargify.findProductByApiHandle( "basic" );
+    chargify.findProductPricePointsByProductId( "1" );
+    chargify.findAllProducts();
+    assertEquals( 2, recording.calls( "findProductById" ) );
+    assertEquals( 1, recording.calls( "findProductByApiHandle" ) );
+    assertEquals( 2, recording.calls( "findProductPricePointsByProductId" ) );
+    assertEquals( 2, recording.calls( "findAllProducts" ) );
+  }
+
+  @Test
+  public void archivingDuringALoadIsNotUndoneByTheOtherCaches()
+  {
+    // archived by another thread while Chargify answers
+    recording.answer( "findProductById", args -> {
+      chargify.archiveProductById( "1" );
+      return product( "1", "basic" );
+    } );
+    recording.answer( "findAllProducts", args -> {
+      chargify.archiveProductById( "2" );
+      return List.of( product( "1", "basic" ), product( "2", "pro" ) );
+    } );
+
+    chargify.findProductById( "1" );
+    chargify.findProductByApiHandle( "basic" );
+    assertEquals( 1, recording.calls( "findProductByApiHandle" ) );
+
+    chargify.findAllProducts();
+    chargify.findProductById( "2" );
+    chargify.findProductByApiHandle( "pro" );
+    assertEquals( 2, recording.calls( "findProductById" ) );
+    assertEquals( 2, recording.calls( "findProductByApiHandle" ) );
+  }
+
+  @Test
+  public void failedArchivingInvalidatesTheProductToo()
+  {
+    chargify.findProductById( "1" );
+    recording.answer( "archiveProductById", args -> {
+      throw new IllegalStateException( "timeout" );
+    } );
+
+    try
+    {
+      chargify.archiveProductById( "1" );
+      fail();
+    }
+    catch( IllegalStateException expected )
+    {
+    }
+
+    chargify.findProductById( "1" );
+    assertEquals( 2, recording.calls( "findProductById" ) );
+  }
+
+  @Test
+  public void cachesProductFamiliesById()
+  {
+    chargify.findAllProductFamilies();
+    chargify.findProductFamilyById( "f1" );
+    assertEquals( 0, recording.calls( "findProductFamilyById" ) );
+
+    final ProductFamily created = chargify.createProductFamily( new ProductFamily() );
+    assertSame( created, chargify.findProductFamilyById( "f9" ) );
+    chargify.findAllProductFamilies();
+    assertEquals( 2, recording.calls( "findAllProductFamilies" ) );
+
+    chargify.archiveProductFamilyById( "f1" );
+    chargify.findProductFamilyById( "f1" );
+    chargify.findAllProductFamilies();
+    assertEquals( 1, recording.calls( "findProductFamilyById" ) );
+    assertEquals( 3, recording.calls( "findAllProductFamilies" ) );
+  }
+
+  private static Product product( String id, String handle )
+  {
+    final Product product = new Product( "Plan " + id, 4900, 1, PricePointIntervalUnit.month );
+    product.setId( id );
+    product.setHandle( handle );
+    return product;
+  }
+
+  private static ProductFamily productFamily( String id )
+  {
+    final ProductFamily productFamily = new ProductFamily();
+    productFamily.setId( id );
+    return productFamily;
+  }
+
+  private static void await( CountDownLatch latch )
+  {
+    try
+    {
+      latch.await( 5, TimeUnit.SECONDS );
+    }
+    catch( InterruptedException e )
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
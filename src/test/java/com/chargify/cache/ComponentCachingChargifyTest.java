@@ -0,0 +1,143 @@
+package com.chargify.cache;
+
+import com.chargify.model.Component;
+import com.chargify.model.ComponentWithPricePoints;
+import com.chargify.model.PricePoint;
+import com.chargify.model.PricePointUpdate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ComponentCachingChargifyTest
+{
+  private static final Duration TTL = Duration.ofMinutes( 10 );
+
+  private final ManualClock clock = new ManualClock();
+  private RecordingChargify recording;
+  private ComponentCachingChargify chargify;
+
+  @Before
+  public void setup()
+  {
+    recording = new RecordingChargify()
+        .answer( "findComponentByIdAndProductFamily", args -> component( (Integer) args[ 0 ] ) )
+        .answer( "findComponentPricePoints", args -> Set.of( pricePoint( 1 ), pricePoint( 2 ) ) )
+        .answer( "findComponentsByProductFamily", args -> List.of( component( 1 ), component( 2 ) ) )
+        .answer( "updatePricePoint", args -> pricePoint( (Integer) args[ 1 ] ) )
+        .answer( "createComponent", args -> component( 9 ) );
+    chargify = new ComponentCachingChargify( recording.chargify(), 100, TTL, null, null, clock );
+  }
+
+  @Test
+  public void servesComponentsWithPricePointsFromTheCacheUntilTheyExpire()
+  {
+    final ComponentWithPricePoints first = chargify.findComponentWithPricePointsByIdAndProductFamily( 1, "f1" );
+    final ComponentWithPricePoints second = chargify.findComponentWithPricePointsByIdAndProductFamily( 1, "f1" );
+
+    assertSame( first.getComponent(), second.getComponent() );
+    assertSame( first.getPricePoints(), second.getPricePoints() );
+    assertSame( first.getComponent(), chargify.findComponentByIdAndProductFamily( 1, "f1" ) );
+    assertEquals( 1, recording.calls( "findComponentByIdAndProductFamily" ) );
+    assertEquals( 1, recording.calls( "findComponentPricePoints" ) );
+
+    // components are cached per product family
+    chargify.findComponentByIdAndProductFamily( 1, "f2" );
+    assertEquals( 2, recording.calls( "findComponentByIdAndProductFamily" ) );
+
+    clock.millis = TTL.toMillis() - 1;
+    chargify.findComponentWithPricePointsByIdAndProductFamily( 1, "f1" );
+    assertEquals( 2, recording.calls( "findComponentByIdAndProductFamily" ) );
+    assertEquals( 1, recording.calls( "findComponentPricePoints" ) );
+
+    clock.millis = TTL.toMillis();
+    chargify.findComponentWithPricePointsByIdAndProductFamily( 1, "f1" );
+    assertEquals( 3, recording.calls( "findComponentByIdAndProductFamily" ) );
+    assertEquals( 2, recording.calls( "findComponentPricePoints" ) );
+  }
+
+  @Test
+  public void listingsFillTheComponentCache()
+  {
+    chargify.findComponentsByProductFamily( "f1" );
+    chargify.findComponentsByProductFamily( "f1" );
+
+    assertEquals( Integer.valueOf( 2 ), chargify.findComponentByIdAndProductFamily( 2, "f1" ).getId() );
+    assertEquals( 1, recording.calls( "findComponentsByProductFamily" ) );
+    assertEquals( 0, recording.calls( "findComponentByIdAndProductFamily" ) );
+  }
+
+  @Test
+  public void updatingAPricePointInvalidatesItsComponent()
+  {
+    chargify.findComponentWithPricePointsByIdAndProductFamily( 1, "f1" );
+    chargify.findComponentWithPricePointsByIdAndProductFamily( 2, "f1" );
+    chargify.findComponentsByProductFamily( "f1" );
+
+    chargify.updatePricePoint( 1, 2, new PricePointUpdate() );
+
+    chargify.findComponentWithPricePointsByIdAndProductFamily( 1, "f1" );
+    chargify.findComponentsByProductFamily( "f1" );
+    assertEquals( 3, recording.calls( "findComponentByIdAndProductFamily" ) );
+    assertEquals( 3, recording.calls( "findComponentPricePoints" ) );
+    assertEquals( 2, recording.calls( "findComponentsByProductFamily" ) );
+
+    // the other component stays cached
+    chargify.findComponentPricePoints( 2 );
+    assertEquals( 3, recording.calls( "findComponentPricePoints" ) );
+  }
+
+  @Test
+  public void failedUpdatesInvalidateThePricePointsToo()
+  {
+    chargify.findComponentPricePoints( 1 );
+    recording.answer( "updatePricePoint", args -> {
+      throw new IllegalStateException( "timeout" );
+    } );
+
+    try
+    {
+      chargify.updatePricePoint( 1, 2, new PricePointUpdate() );
+      fail();
+    }
+    catch( IllegalStateException expected )
+    {
+    }
+
+    chargify.findComponentPricePoints( 1 );
+    assertEquals( 2, recording.calls( "findComponentPricePoints" ) );
+  }
+
+  @Test
+  public void writesCreatedComponentsThrough()
+  {
+    chargify.findComponentsByProductFamily( "f1" );
+
+    final Component created = chargify.createComponent( "f1", new Component() );
+
+    assertSame( created, chargify.findComponentByIdAndProductFamily( 9, "f1" ) );
+    assertEquals( 0, recording.calls( "findComponentByIdAndProductFamily" ) );
+    chargify.findComponentsByProductFamily( "f1" );
+    assertEquals( 2, recording.calls( "findComponentsByProductFamily" ) );
+  }
+
+  private static Component component( int id )
+  {
+    final Component component = new Component();
+    component.setId( id );
+    return component;
+  }
+
+  private static PricePoint pricePoint( int id )
+  {
+    final PricePoint pricePoint = new PricePoint();
+    pricePoint.setId( id );
+    return pricePoint;
+  }
+}
@@ -0,0 +1,32 @@
+package com.chargify.cache;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock that only moves when a test sets {@link #millis}.
+ */
+final class ManualClock extends Clock
+{
+  long millis;
+
+  @Override
+  public ZoneId getZone()
+  {
+    return ZoneOffset.UTC;
+  }
+
+  @Override
+  public Clock withZone( ZoneId zone )
+  {
+    return this;
+  }
+
+  @Override
+  public Instant instant()
+  {
+    return Instant.ofEpochMilli( millis );
+  }
+}
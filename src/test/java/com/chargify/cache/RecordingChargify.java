@@ -0,0 +1,41 @@
+package com.chargify.cache;
+
+import com.chargify.Chargify;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Fake {@link Chargify} answering the calls a test sets up and counting every call by method name.
+ */
+final class RecordingChargify
+{
+  private final Map<String, Function<Object[], Object>> answers = new ConcurrentHashMap<>();
+  private final Map<String, Integer> calls = new ConcurrentHashMap<>();
+  private final Chargify chargify = (Chargify) Proxy.newProxyInstance(
+      Chargify.class.getClassLoader(), new Class<?>[]{ Chargify.class }, ( proxy, method, args ) -> {
+        calls.merge( method.getName(), 1, Integer::sum );
+        final Function<Object[], Object> answer = answers.get( method.getName() );
+        if( answer == null )
+          throw new UnsupportedOperationException( method.getName() );
+        return answer.apply( args );
+      } );
+
+  RecordingChargify answer( String methodName, Function<Object[], Object> answer )
+  {
+    answers.put( methodName, answer );
+    return this;
+  }
+
+  Chargify chargify()
+  {
+    return chargify;
+  }
+
+  int calls( String methodName )
+  {
+    return calls.getOrDefault( methodName, 0 );
+  }
+}
@@ -0,0 +1,183 @@
+package com.chargify.cache;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TtlCacheTest
+{
+  @Test
+  public void expiresEntriesAfterTtl()
+  {
+    final ManualClock clock = new ManualClock();
+    final TtlCache<String, String> cache = new TtlCache<>( 10, Duration.ofSeconds( 5 ), clock );
+    cache.put( "a", "1" );
+
+    clock.millis = 4999;
+    assertEquals( "1", cache.get( "a" ) );
+    clock.millis = 5000;
+    assertNull( cache.get( "a" ) );
+
+    final CacheStats stats = cache.stats();
+    assertEquals( 1, stats.getHits() );
+    assertEquals( 1, stats.getMisses() );
+    assertEquals( 0, stats.getSize() );
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedWhenFull()
+  {
+    final TtlCache<String, String> cache = new TtlCache<>( 2, Duration.ofMinutes( 1 ), new ManualClock() );
+    cache.put( "a", "1" );
+    cache.put( "b", "2" );
+    cache.get( "a" );
+    cache.put( "c", "3" );
+
+    assertEquals( "1", cache.get( "a" ) );
+    assertNull( cache.get( "b" ) );
+    assertEquals( 1, cache.stats().getEvictions() );
+  }
+
+  @Test
+  public void loadsOnMissOnly()
+  {
+    final TtlCache<String, String> cache = new TtlCache<>( 2, Duration.ofMinutes( 1 ), new ManualClock() );
+    final int[] loads = { 0 };
+
+    cache.get( "a", key -> key + ++loads[ 0 ] );
+    assertEquals( "a1", cache.get( "a", key -> key + ++loads[ 0 ] ) );
+    assertEquals( 1, loads[ 0 ] );
+  }
+
+  @Test
+  public void collapsesConcurrentLoadsOfTheSameKey() throws Exception
+  {
+    final TtlCache<String, String> cache = new TtlCache<>( 10, Duration.ofMinutes( 1 ), new ManualClock() );
+    final AtomicInteger loads = new AtomicInteger();
+    final CountDownLatch loading = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final ExecutorService executor = Executors.newFixedThreadPool( 8 );
+    try
+    {
+      final List<Future<String>> results = new ArrayList<>();
+      results.add( executor.submit( () -> cache.get( "a", key -> {
+        loads.incrementAndGet();
+        loading.countDown();
+        await( release );
+        return "1";
+      } ) ) );
+      loading.await();
+      for( int i = 0; i < 7; i++ )
+        results.add( executor.submit( () -> cache.get( "a", key -> "" + loads.incrementAndGet() ) ) );
+
+      while( cache.stats().getCollapsedLoads() < 7 )
+        Thread.sleep( 1 );
+      release.countDown();
+
+      for( Future<String> result : results )
+        assertEquals( "1", result.get( 5, TimeUnit.SECONDS ) );
+      assertEquals( 1, loads.get() );
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void waitingCallersGetTheErrorsOfTheLoad() throws Exception
+  {
+    final TtlCache<String, String> cache = new TtlCache<>( 10, Duration.ofMinutes( 1 ), new ManualClock() );
+    final CountDownLatch loading = new CountDownLatch( 1 );
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final Future<String> leader = executor.submit( () -> cache.get( "a", key -> {
+        loading.countDown();
+        while( cache.stats().getCollapsedLoads() == 0 )
+          Thread.onSpinWait();
+        throw new StackOverflowError();
+      } ) );
+      loading.await();
+
+      try
+      {
+        cache.get( "a", key -> "follower" );
+        fail();
+      }
+      catch( StackOverflowError expected )
+      {
+      }
+      try
+      {
+        leader.get( 5, TimeUnit.SECONDS );
+        fail();
+      }
+      catch( ExecutionException e )
+      {
+        assertTrue( e.getCause() instanceof StackOverflowError );
+      }
+      assertEquals( "2", cache.get( "a", key -> "2" ) );
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void putsWithAGenerationDontResurrectInvalidatedEntries()
+  {
+    final TtlCache<String, String> cache = new TtlCache<>( 10, Duration.ofMinutes( 1 ), new ManualClock() );
+    final long generation = cache.generation();
+    cache.put( "a", "1", generation );
+    assertEquals( "1", cache.get( "a" ) );
+
+    cache.invalidate( "a" );
+    cache.put( "a", "2", generation );
+    assertNull( cache.get( "a" ) );
+  }
+
+  @Test
+  public void refreshesReadEntriesBeforeTheyExpire()
+  {
+    final ManualClock clock = new ManualClock();
+    final TtlCache<String, String> cache =
+        new TtlCache<>( 10, Duration.ofSeconds( 10 ), Duration.ofSeconds( 8 ), Runnable::run, clock );
+    final int[] loads = { 0 };
+
+    cache.get( "a", key -> key + ++loads[ 0 ] );
+    clock.millis = 8000;
+    assertEquals( "a1", cache.get( "a", key -> key + ++loads[ 0 ] ) );
+    clock.millis = 12000;
+    assertEquals( "a2", cache.get( "a", key -> key + ++loads[ 0 ] ) );
+    assertEquals( 2, loads[ 0 ] );
+    assertEquals( 1, cache.stats().getRefreshes() );
+  }
+
+  private static void await( CountDownLatch latch )
+  {
+    try
+    {
+      latch.await();
+    }
+    catch( InterruptedException e )
+    {
+      throw new IllegalStateException( e );
+    }
+  }
+}
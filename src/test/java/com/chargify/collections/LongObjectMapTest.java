@@ -0,0 +1,136 @@
+package com.chargify.collections;
+
+import com.chargify.model.Customer;
+import com.chargify.model.Subscription;
+import com.chargify.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LongObjectMapTest
+{
+  @Test
+  public void putsGetsAndRemoves()
+  {
+    final LongObjectMap<String> map = new LongObjectMap<>();
+
+    assertNull( map.put( 0, "zero" ) );
+    assertNull( map.put( -7, "minus seven" ) );
+    assertEquals( "zero", map.put( 0, "nothing" ) );
+
+    assertEquals( 2, map.size() );
+    assertEquals( "nothing", map.get( 0 ) );
+    assertEquals( "minus seven", map.get( -7 ) );
+    assertNull( map.get( 7 ) );
+    assertEquals( "default", map.getOrDefault( 7, "default" ) );
+    assertTrue( map.containsKey( -7 ) );
+
+    assertEquals( "minus seven", map.remove( -7 ) );
+    assertNull( map.remove( -7 ) );
+    assertFalse( map.containsKey( -7 ) );
+    assertEquals( 1, map.size() );
+
+    map.clear();
+    assertTrue( map.isEmpty() );
+    assertNull( map.get( 0 ) );
+  }
+
+  @Test
+  public void behavesLikeAHashMap()
+  {
+    final LongObjectMap<Long> map = new LongObjectMap<>();
+    final Map<Long, Long> expected = new HashMap<>();
+    final Random random = new Random( 42 );
+
+    for( int i = 0; i < 200_000; i++ )
+    {
+      // few distinct keys so puts, replacements and removes mix, some sequential like Chargify ids
+      final long key = random.nextBoolean() ? random.nextInt( 5_000 ) : random.nextLong() % 1_000;
+      if( random.nextInt( 3 ) == 0 )
+        assertEquals( expected.remove( key ), map.remove( key ) );
+      else
+        assertEquals( expected.put( key, (long) i ), map.put( key, (long) i ) );
+    }
+
+    assertEquals( expected.size(), map.size() );
+    expected.forEach( ( key, value ) -> assertEquals( value, map.get( key ) ) );
+    map.forEach( ( key, value ) -> assertEquals( expected.get( key ), value ) );
+
+    final long[] keys = map.keys();
+    Arrays.sort( keys );
+    assertArrayEquals( expected.keySet().stream().mapToLong( Long::longValue ).sorted().toArray(), keys );
+  }
+
+  @Test
+  public void computesMissingValuesOnce()
+  {
+    final LongObjectMap<String> map = new LongObjectMap<>( 0 );
+
+    assertEquals( "1", map.computeIfAbsent( 1, Long::toString ) );
+    assertEquals( "1", map.computeIfAbsent( 1, key -> "again" ) );
+    assertNull( map.computeIfAbsent( 2, key -> null ) );
+    assertFalse( map.containsKey( 2 ) );
+  }
+
+  @Test( expected = NullPointerException.class )
+  public void rejectsNullValues()
+  {
+    new LongObjectMap<String>().put( 1, null );
+  }
+
+  @Test
+  public void indexesSubscriptionsAndTransactionsById()
+  {
+    final List<Subscription> subscriptions = List.of( subscription( "1001", "7" ), subscription( "1002", "8" ) );
+    final LongObjectMap<Subscription> subscriptionsById =
+        LongObjectMap.index( subscriptions, Subscription::getIdAsLong );
+
+    assertSame( subscriptions.get( 1 ), subscriptionsById.get( 1002 ) );
+    assertEquals( 8, subscriptionsById.get( 1002 ).getCustomerIdAsLong() );
+
+    final Transaction transaction = new Transaction();
+    transaction.setId( 55 );
+    transaction.setSubscriptionId( "1001" );
+    final LongObjectMap<Transaction> transactionsById =
+        LongObjectMap.index( List.of( transaction ), Transaction::getIdAsLong );
+
+    assertSame( subscriptionsById.get( transactionsById.get( 55 ).getSubscriptionIdAsLong() ),
+                subscriptions.get( 0 ) );
+  }
+
+  @Test
+  public void keepsLongIdsOutOfTheJson() throws Exception
+  {
+    final String json = new ObjectMapper().writeValueAsString( subscription( "1001", "7" ) );
+
+    assertFalse( json.contains( "AsLong" ) );
+  }
+
+  @Test( expected = IllegalStateException.class )
+  public void rejectsMissingIds()
+  {
+    new Subscription().getIdAsLong();
+  }
+
+  private static Subscription subscription( String id, String customerId )
+  {
+    final Customer customer = new Customer();
+    customer.setId( customerId );
+    final Subscription subscription = new Subscription();
+    subscription.setId( id );
+    subscription.setCustomer( customer );
+    return subscription;
+  }
+}
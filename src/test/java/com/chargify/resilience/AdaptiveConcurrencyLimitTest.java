@@ -0,0 +1,138 @@
+package com.chargify.resilience;
+
+import com.chargify.exceptions.CircuitBreakerOpenException;
+import com.chargify.exceptions.ConcurrencyLimitExceededException;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AdaptiveConcurrencyLimitTest
+{
+  private final MockClientHttpRequest request = new MockClientHttpRequest( HttpMethod.GET, URI.create( "/x" ) );
+  private long now;
+
+  private final AdaptiveConcurrencyLimit concurrencyLimit =
+      new AdaptiveConcurrencyLimit( 10, 2, 20, 0.5, 2, 100, 0, 0, () -> now );
+
+  @Test
+  public void decreasesOnSlowCallsAtMostOncePerRoundTrip() throws IOException
+  {
+    call( 10, HttpStatus.OK );
+    now += TimeUnit.MILLISECONDS.toNanos( 10 );
+    // two slow calls completing together
+    nest( 1, () -> call( 200, HttpStatus.OK ) );
+    assertEquals( 5, concurrencyLimit.getLimit() );
+
+    call( 200, HttpStatus.OK );
+    assertEquals( 2, concurrencyLimit.getLimit() );
+  }
+
+  @Test
+  public void decreasesOnErrors() throws IOException
+  {
+    call( 10, HttpStatus.OK );
+    now += TimeUnit.MILLISECONDS.toNanos( 10 );
+    call( 10, HttpStatus.TOO_MANY_REQUESTS );
+    assertEquals( 5, concurrencyLimit.getLimit() );
+
+    now += TimeUnit.MILLISECONDS.toNanos( 10 );
+    try
+    {
+      concurrencyLimit.intercept( request, new byte[ 0 ], ( request, body ) -> {
+        throw new SocketTimeoutException( "Read timed out" );
+      } );
+      fail();
+    }
+    catch( SocketTimeoutException expected )
+    {
+    }
+    assertEquals( 2, concurrencyLimit.getLimit() );
+  }
+
+  @Test
+  public void ignoresCallsRejectedByTheCircuitBreaker() throws IOException
+  {
+    call( 10, HttpStatus.OK );
+    now += TimeUnit.MILLISECONDS.toNanos( 10 );
+    try
+    {
+      concurrencyLimit.intercept( request, new byte[ 0 ], ( request, body ) -> {
+        throw new CircuitBreakerOpenException( 1000 );
+      } );
+      fail();
+    }
+    catch( CircuitBreakerOpenException expected )
+    {
+    }
+    assertEquals( 10, concurrencyLimit.getLimit() );
+    assertEquals( 0, concurrencyLimit.getInFlightCalls() );
+  }
+
+  @Test
+  public void increasesWhileTheLimitIsUsed() throws IOException
+  {
+    // 5 calls stay in flight, so each call sees 6 of them and the limit grows until it's over twice that
+    nest( 5, () -> {
+      for( int i = 0; i < 100; i++ )
+        call( 10, HttpStatus.OK );
+      assertEquals( 13, concurrencyLimit.getLimit() );
+    } );
+  }
+
+  @Test
+  public void rejectsCallsOverTheLimit() throws IOException
+  {
+    nest( 10, () -> {
+      try
+      {
+        call( 10, HttpStatus.OK );
+        fail();
+      }
+      catch( ConcurrencyLimitExceededException e )
+      {
+        assertEquals( 1, concurrencyLimit.getRejectedCalls() );
+      }
+    } );
+    assertEquals( 0, concurrencyLimit.getInFlightCalls() );
+  }
+
+  private void call( long rttInMillis, HttpStatus status ) throws IOException
+  {
+    concurrencyLimit.intercept( request, new byte[ 0 ], ( request, body ) -> {
+      now += TimeUnit.MILLISECONDS.toNanos( rttInMillis );
+      return new MockClientHttpResponse( new byte[ 0 ], status );
+    } );
+  }
+
+  private interface Calls
+  {
+    void run() throws IOException;
+  }
+
+  /**
+   * Runs the calls while {@code depth} other calls are in flight
+   */
+  private void nest( int depth, Calls calls ) throws IOException
+  {
+    if( depth == 0 )
+    {
+      calls.run();
+      return;
+    }
+
+    concurrencyLimit.intercept( request, new byte[ 0 ], ( request, body ) -> {
+      nest( depth - 1, calls );
+      return new MockClientHttpResponse( new byte[ 0 ], HttpStatus.OK );
+    } );
+  }
+}
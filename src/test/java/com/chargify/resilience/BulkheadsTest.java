@@ -0,0 +1,155 @@
+package com.chargify.resilience;
+
+import com.chargify.exceptions.BulkheadFullException;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class BulkheadsTest
+{
+  @Test
+  public void routesChargifyEndpointsToStandardBulkheads()
+  {
+    final Bulkheads bulkheads = Bulkheads.chargifyDefaults().build();
+
+    assertRoute( bulkheads, Bulkheads.REPORTING, HttpMethod.GET, "/subscriptions/1/statements.json" );
+    assertRoute( bulkheads, Bulkheads.REPORTING, HttpMethod.GET, "/subscriptions/1/transactions.json" );
+    assertRoute( bulkheads, Bulkheads.USAGE, HttpMethod.POST, "/subscriptions/1/components/2/usages.json" );
+    assertRoute( bulkheads, Bulkheads.CATALOG, HttpMethod.GET, "/product_families/1/components/2.json" );
+    assertRoute( bulkheads, Bulkheads.CATALOG, HttpMethod.PUT, "/components/2/price_points/3.json" );
+    assertRoute( bulkheads, Bulkheads.SUBSCRIPTION_READ, HttpMethod.GET, "/subscriptions/1/components.json" );
+    assertRoute( bulkheads, Bulkheads.SUBSCRIPTION_READ, HttpMethod.GET, "/customers/lookup.json" );
+    assertRoute( bulkheads, Bulkheads.SUBSCRIPTION_WRITE, HttpMethod.POST, "/subscriptions.json" );
+    assertRoute( bulkheads, Bulkheads.SUBSCRIPTION_WRITE, HttpMethod.PUT, "/subscriptions/1.json" );
+    assertNull( bulkheads.bulkheadFor( HttpMethod.GET, "/events.json" ) );
+  }
+
+  @Test
+  public void addedRoutesTakePrecedence()
+  {
+    final Bulkheads bulkheads = Bulkheads.chargifyDefaults()
+        .route( HttpMethod.GET, "/subscriptions/[^/]+/components\\.json", Bulkheads.REPORTING )
+        .build();
+
+    assertRoute( bulkheads, Bulkheads.REPORTING, HttpMethod.GET, "/subscriptions/1/components.json" );
+  }
+
+  @Test( expected = IllegalArgumentException.class )
+  public void rejectsRoutesToUnknownBulkheads()
+  {
+    Bulkheads.builder().route( null, "/.*", "unknown" ).build();
+  }
+
+  @Test
+  public void fullBulkheadDoesNotBlockOtherBulkheads() throws Exception
+  {
+    final Bulkheads bulkheads = Bulkheads.chargifyDefaults()
+        .bulkhead( new Bulkhead( Bulkheads.REPORTING, 1, 0, 0 ) )
+        .build();
+    final CountDownLatch inFlight = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+
+    final CompletableFuture<Void> slowRead = CompletableFuture.runAsync( () -> {
+      try
+      {
+        bulkheads.intercept( request( HttpMethod.GET, "/subscriptions/1/statements.json" ), new byte[ 0 ],
+                             ( request, body ) -> {
+                               inFlight.countDown();
+                               await( release );
+                               return new MockClientHttpResponse( new byte[ 0 ], HttpStatus.OK );
+                             } );
+      }
+      catch( Exception e )
+      {
+        throw new IllegalStateException( e );
+      }
+    } );
+    inFlight.await();
+
+    try
+    {
+      bulkheads.intercept( request( HttpMethod.GET, "/subscriptions/2/transactions.json" ), new byte[ 0 ],
+                           ( request, body ) -> new MockClientHttpResponse( new byte[ 0 ], HttpStatus.OK ) );
+      fail();
+    }
+    catch( BulkheadFullException e )
+    {
+      assertEquals( Bulkheads.REPORTING, e.getBulkheadName() );
+    }
+
+    bulkheads.intercept( request( HttpMethod.POST, "/subscriptions.json" ), new byte[ 0 ],
+                         ( request, body ) -> new MockClientHttpResponse( new byte[ 0 ], HttpStatus.CREATED ) );
+
+    assertEquals( 1, bulkheads.get( Bulkheads.REPORTING ).getInFlightCalls() );
+    assertEquals( 1, bulkheads.get( Bulkheads.REPORTING ).getRejectedCalls() );
+    release.countDown();
+    slowRead.get( 5, TimeUnit.SECONDS );
+    assertEquals( 0, bulkheads.get( Bulkheads.REPORTING ).getInFlightCalls() );
+  }
+
+  @Test
+  public void queuedCallsWaitForAFreeSlot() throws Exception
+  {
+    final Bulkhead bulkhead = new Bulkhead( "test", 1, 1, 5000 );
+    bulkhead.acquire();
+
+    final CompletableFuture<Void> queued = CompletableFuture.runAsync( () -> {
+      try
+      {
+        bulkhead.acquire();
+      }
+      catch( Exception e )
+      {
+        throw new IllegalStateException( e );
+      }
+    } );
+    while( bulkhead.getQueuedCalls() == 0 )
+      Thread.sleep( 1 );
+
+    try
+    {
+      bulkhead.acquire();
+      fail();
+    }
+    catch( BulkheadFullException expected )
+    {
+    }
+
+    bulkhead.release();
+    queued.get( 5, TimeUnit.SECONDS );
+    assertEquals( 1, bulkhead.getInFlightCalls() );
+  }
+
+  private static void assertRoute( Bulkheads bulkheads, String expected, HttpMethod method, String path )
+  {
+    assertEquals( method + " " + path, expected, bulkheads.bulkheadFor( method, path ).getName() );
+  }
+
+  private static MockClientHttpRequest request( HttpMethod method, String path )
+  {
+    return new MockClientHttpRequest( method, URI.create( "https://site.chargify.com" + path ) );
+  }
+
+  private static void await( CountDownLatch latch )
+  {
+    try
+    {
+      latch.await();
+    }
+    catch( InterruptedException e )
+    {
+      throw new IllegalStateException( e );
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.chargify.resilience;
+
+import com.chargify.exceptions.CircuitBreakerOpenException;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest
+{
+  private final MockClientHttpRequest request = new MockClientHttpRequest( HttpMethod.GET, URI.create( "/x" ) );
+  private final List<String> transitions = new ArrayList<>();
+  private long now;
+
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker( 10, 4, 0.5, 0.8, 1000, 30000, 2, () -> now );
+
+  {
+    circuitBreaker.addListener( ( from, to ) -> transitions.add( from + "->" + to ) );
+  }
+
+  @Test
+  public void opensOnFailureRateAndFailsFast() throws IOException
+  {
+    call( HttpStatus.OK );
+    call( HttpStatus.BAD_GATEWAY );
+    call( HttpStatus.OK );
+    assertEquals( CircuitBreaker.State.CLOSED, circuitBreaker.getState() );
+    call( HttpStatus.SERVICE_UNAVAILABLE );
+    assertEquals( CircuitBreaker.State.OPEN, circuitBreaker.getState() );
+
+    now += TimeUnit.SECONDS.toNanos( 10 );
+    try
+    {
+      call( HttpStatus.OK );
+      fail();
+    }
+    catch( CircuitBreakerOpenException e )
+    {
+      assertEquals( 20000, e.getRetryAfterInMillis() );
+    }
+    assertEquals( List.of( "CLOSED->OPEN" ), transitions );
+  }
+
+  @Test
+  public void opensOnSlowCallRate() throws IOException
+  {
+    for( int i = 0; i < 4; i++ )
+      slowCall();
+    assertEquals( CircuitBreaker.State.OPEN, circuitBreaker.getState() );
+  }
+
+  @Test
+  public void countsIoErrorsAsFailures() throws IOException
+  {
+    call( HttpStatus.OK );
+    call( HttpStatus.OK );
+    failWithIoError();
+    failWithIoError();
+    assertEquals( CircuitBreaker.State.OPEN, circuitBreaker.getState() );
+  }
+
+  @Test
+  public void closesAfterSuccessfulTrialCalls() throws IOException
+  {
+    open();
+    now += TimeUnit.SECONDS.toNanos( 30 );
+
+    call( HttpStatus.OK );
+    assertEquals( CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState() );
+    call( HttpStatus.OK );
+    assertEquals( CircuitBreaker.State.CLOSED, circuitBreaker.getState() );
+    assertEquals( List.of( "CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED" ), transitions );
+  }
+
+  @Test
+  public void reopensWhenTrialCallsFail() throws IOException
+  {
+    open();
+    now += TimeUnit.SECONDS.toNanos( 30 );
+
+    call( HttpStatus.BAD_GATEWAY );
+    call( HttpStatus.OK );
+    assertEquals( CircuitBreaker.State.OPEN, circuitBreaker.getState() );
+    assertEquals( List.of( "CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN" ), transitions );
+  }
+
+  @Test( expected = CircuitBreakerOpenException.class )
+  public void limitsTrialCalls() throws IOException
+  {
+    open();
+    now += TimeUnit.SECONDS.toNanos( 30 );
+
+    circuitBreaker.intercept( request, new byte[ 0 ], ( request, body ) -> {
+      circuitBreaker.intercept( request, body, respond( HttpStatus.OK ) );
+      circuitBreaker.intercept( request, body, respond( HttpStatus.OK ) );
+      return null;
+    } );
+  }
+
+  private void open() throws IOException
+  {
+    for( int i = 0; i < 4; i++ )
+      call( HttpStatus.BAD_GATEWAY );
+  }
+
+  private void call( HttpStatus status ) throws IOException
+  {
+    circuitBreaker.intercept( request, new byte[ 0 ], respond( status ) );
+  }
+
+  private void slowCall() throws IOException
+  {
+    circuitBreaker.intercept( request, new byte[ 0 ], ( request, body ) -> {
+      now += TimeUnit.SECONDS.toNanos( 2 );
+      return new MockClientHttpResponse( new byte[ 0 ], HttpStatus.OK );
+    } );
+  }
+
+  private void failWithIoError()
+  {
+    try
+    {
+      circuitBreaker.intercept( request, new byte[ 0 ], ( request, body ) -> {
+        throw new SocketTimeoutException( "Read timed out" );
+      } );
+      fail();
+    }
+    catch( IOException ignored )
+    {
+    }
+  }
+
+  private static ClientHttpRequestExecution respond( HttpStatus status )
+  {
+    return ( request, body ) -> new MockClientHttpResponse( new byte[ 0 ], status );
+  }
+}
@@ -0,0 +1,24 @@
+package com.chargify.resilience;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertEquals;
+
+public class RetryAfterTest
+{
+  private static final Clock CLOCK = Clock.fixed( Instant.parse( "2024-03-01T10:00:00Z" ), ZoneOffset.UTC );
+
+  @Test
+  public void readsSecondsAndDates()
+  {
+    assertEquals( 30_000, RetryAfter.toMillis( "30", CLOCK ) );
+    assertEquals( 5_000, RetryAfter.toMillis( "Fri, 01 Mar 2024 10:00:05 GMT", CLOCK ) );
+    assertEquals( 0, RetryAfter.toMillis( "Fri, 01 Mar 2024 09:00:00 GMT", CLOCK ) );
+    assertEquals( 0, RetryAfter.toMillis( null, CLOCK ) );
+    assertEquals( 0, RetryAfter.toMillis( "soon", CLOCK ) );
+  }
+}
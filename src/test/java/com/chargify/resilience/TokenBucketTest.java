@@ -0,0 +1,55 @@
+package com.chargify.resilience;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBucketTest
+{
+  private long now;
+
+  @Test
+  public void allowsBurstThenPacesAtRate()
+  {
+    final TokenBucket bucket = new TokenBucket( 10, 3, () -> now );
+
+    assertEquals( 0, bucket.reserve() );
+    assertEquals( 0, bucket.reserve() );
+    assertEquals( 0, bucket.reserve() );
+    assertEquals( TimeUnit.MILLISECONDS.toNanos( 100 ), bucket.reserve() );
+    assertEquals( TimeUnit.MILLISECONDS.toNanos( 200 ), bucket.reserve() );
+
+    now += TimeUnit.SECONDS.toNanos( 1 );
+    assertEquals( 0, bucket.tryAcquire() );
+  }
+
+  @Test
+  public void tryAcquireDoesNotTakeUnavailableTokens()
+  {
+    final TokenBucket bucket = new TokenBucket( 10, 1, () -> now );
+
+    assertEquals( 0, bucket.tryAcquire() );
+    assertEquals( TimeUnit.MILLISECONDS.toNanos( 100 ), bucket.tryAcquire() );
+    now += TimeUnit.MILLISECONDS.toNanos( 100 );
+    assertEquals( 0, bucket.tryAcquire() );
+  }
+
+  @Test
+  public void throttlingPausesAndHalvesTheRate()
+  {
+    final TokenBucket bucket = new TokenBucket( 10, 5, () -> now );
+
+    bucket.throttle( TimeUnit.SECONDS.toNanos( 2 ) );
+    assertEquals( 5, bucket.getPermitsPerSecond(), 0 );
+    assertEquals( TimeUnit.MILLISECONDS.toNanos( 2200 ), bucket.tryAcquire() );
+
+    now += TimeUnit.MILLISECONDS.toNanos( 2200 );
+    assertEquals( 0, bucket.tryAcquire() );
+
+    for( int i = 0; i < 100; i++ )
+      bucket.recover();
+    assertEquals( 10, bucket.getPermitsPerSecond(), 0 );
+  }
+}
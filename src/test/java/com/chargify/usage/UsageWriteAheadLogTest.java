@@ -0,0 +1,57 @@
+package com.chargify.usage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UsageWriteAheadLogTest
+{
+  private static final UsageKey METERED = new UsageKey( "s1", 1, 4 );
+  private static final UsageKey ON_DEFAULT_PRICE_POINT = new UsageKey( "s2", 2, null );
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void writesEveryEventBeforeReturning() throws Exception
+  {
+    final Path file = folder.getRoot().toPath().resolve( "usage.log" );
+    try( UsageWriteAheadLog log = new UsageWriteAheadLog( file, false ) )
+    {
+      log.recorded( METERED, 3 );
+      log.reported( METERED, 2 );
+
+      // not closed, as after a crash of the process
+      assertEquals( List.of( "+\ts1\t1\t4\t3", "-\ts1\t1\t4\t2" ), Files.readAllLines( file ) );
+      assertEquals( Map.of( METERED, 1L ), new UsageWriteAheadLog( file, false ).recovered() );
+    }
+  }
+
+  @Test
+  public void compactsWhileRunning() throws Exception
+  {
+    final Path file = folder.getRoot().toPath().resolve( "usage.log" );
+    try( UsageWriteAheadLog log = new UsageWriteAheadLog( file, false, 200 ) )
+    {
+      for( int i = 0; i < 1000; i++ )
+      {
+        log.recorded( METERED, 5 );
+        log.recorded( ON_DEFAULT_PRICE_POINT, -1 );
+        log.reported( METERED, 4 );
+        assertTrue( Files.size( file ) < 300 );
+      }
+    }
+
+    assertEquals( Map.of( METERED, 1000L, ON_DEFAULT_PRICE_POINT, -1000L ),
+                  new UsageWriteAheadLog( file, false ).recovered() );
+    assertTrue( Files.notExists( file.resolveSibling( "usage.log.tmp" ) ) );
+  }
+}